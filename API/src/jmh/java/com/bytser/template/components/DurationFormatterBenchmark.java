@@ -0,0 +1,60 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// DurationFormatter.format() runs once per stats response (the average time between observations).
+// Durations are drawn per magnitude, so the number of parts ("1 day 2 hours ...") varies with the param.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DurationFormatterBenchmark {
+
+    private static final int DURATIONS = 1024;
+
+    public enum Magnitude {
+        SECONDS(60),
+        HOURS(86_400),
+        DAYS(365L * 86_400);
+
+        private final long maxSeconds;
+
+        Magnitude(long maxSeconds) {
+            this.maxSeconds = maxSeconds;
+        }
+    }
+
+    @Param({"SECONDS", "HOURS", "DAYS"})
+    private Magnitude magnitude;
+
+    private Duration[] durations;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        durations = new Duration[DURATIONS];
+        for (int i = 0; i < DURATIONS; i++) {
+            durations[i] = Duration.ofSeconds(random.nextLong(magnitude.maxSeconds), random.nextInt(1_000_000_000));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DURATIONS)
+    public void format(Blackhole blackhole) {
+        for (Duration duration : durations) {
+            blackhole.consume(DurationFormatter.format(duration));
+        }
+    }
+}
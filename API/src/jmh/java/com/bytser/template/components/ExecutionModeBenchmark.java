@@ -0,0 +1,129 @@
+package com.bytser.template.components;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Platform-thread Tomcat pool vs a virtual thread per request, with and without the ConcurrencyLimitedDataSource,
+// while a backlog of blocking JDBC requests keeps every connection of the pool busy.
+// A "query" borrows a real Hikari connection (H2 in memory) and holds it for QUERY_MILLIS, standing in for the
+// round trip to PostgreSQL. Both benchmarks measure the latency of one request submitted next to that backlog.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExecutionModeBenchmark {
+
+    public enum ExecutionMode { PLATFORM, VIRTUAL, VIRTUAL_LIMITED }
+
+    // Tomcat's default server.tomcat.threads.max and Hikari's default maximumPoolSize
+    private static final int TOMCAT_THREADS = 200;
+    private static final int POOL_SIZE = 10;
+    private static final long QUERY_MILLIS = 5;
+
+    // Outstanding database requests, twice the Tomcat threads so the platform pool is saturated
+    private static final int BACKLOG = 400;
+
+    @Param({"PLATFORM", "VIRTUAL", "VIRTUAL_LIMITED"})
+    private ExecutionMode mode;
+
+    private HikariDataSource pool;
+    private DataSource dataSource;
+    private ExecutorService executor;
+    private Thread loader;
+
+    @Setup
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:execution-mode;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        config.setConnectionTimeout(30_000);
+        pool = new HikariDataSource(config);
+
+        // The queue is as long as the backlog, so the limiter only orders the callers and never rejects one here
+        dataSource = mode == ExecutionMode.VIRTUAL_LIMITED
+                ? new ConcurrencyLimitedDataSource("write", pool, POOL_SIZE, BACKLOG, Duration.ofSeconds(30), new SimpleMeterRegistry())
+                : pool;
+        executor = mode == ExecutionMode.PLATFORM
+                ? Executors.newFixedThreadPool(TOMCAT_THREADS)
+                : Executors.newVirtualThreadPerTaskExecutor();
+
+        Semaphore outstanding = new Semaphore(BACKLOG);
+        loader = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    outstanding.acquire();
+                    executor.execute(() -> {
+                        try {
+                            query();
+                        } finally {
+                            outstanding.release();
+                        }
+                    });
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        loader.interrupt();
+        loader.join();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        pool.close();
+    }
+
+    // A request that never touches the database, e.g. a cached leaderboard or a token refresh
+    @Benchmark
+    public double inMemoryRequest() throws Exception {
+        return executor.submit(() -> GeoGrid.distanceKm(51.05, 3.72, 50.85, 4.35)).get();
+    }
+
+    // A request that needs a connection, queued behind the backlog whatever the mode
+    @Benchmark
+    public boolean databaseRequest() throws Exception {
+        return executor.submit(this::query).get();
+    }
+
+    //
+    // Helper functions
+    //
+
+    private boolean query() {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            boolean result = statement.execute("SELECT 1");
+            Thread.sleep(QUERY_MILLIS);
+            return result;
+        } catch (SQLException exception) {
+            throw new IllegalStateException(exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
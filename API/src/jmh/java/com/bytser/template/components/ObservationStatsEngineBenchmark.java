@@ -0,0 +1,131 @@
+package com.bytser.template.components;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.bytser.template.dtos.responses.UserStatsResponse;
+import com.bytser.template.models.Family;
+import com.bytser.template.models.Observation;
+import com.bytser.template.models.Species;
+
+// Original multi-pass statistics vs the single-pass ObservationStatsEngine over the same observations,
+// plus the engine fed with one pre-aggregated row per species the way UserService computes stats.
+// Run with -prof gc (default in the benchmarks profile) to compare gc.alloc.rate.norm next to the throughput.
+// Narrow the matrix with e.g. -Djmh.args="-f 1 -prof gc -p observations=10000000 ObservationStatsEngineBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(jvmArgsAppend = {"-Xms4g", "-Xmx4g"})  // 10M observations are about 1.5 GB of entities
+public class ObservationStatsEngineBenchmark {
+
+    @Param({"10", "1000", "100000", "10000000"})
+    private int observations;
+
+    @Param({"10", "1000", "100000"})
+    private int species;
+
+    // Families are spread over the species, so a family never has more codes than there are species
+    @Param({"5", "250"})
+    private int families;
+
+    private List<Observation> history;
+    private List<SpeciesRow> rows;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+
+        // One entity per code, shared by its observations like a persistence context would
+        Family[] familyCatalog = new Family[Math.min(families, species)];
+        for (int i = 0; i < familyCatalog.length; i++) {
+            familyCatalog[i] = new Family("FAM" + i);
+        }
+        Species[] speciesCatalog = new Species[species];
+        for (int i = 0; i < species; i++) {
+            speciesCatalog[i] = new Species("SP" + i, familyCatalog[i % familyCatalog.length]);
+        }
+
+        LocalDateTime dateTime = LocalDateTime.of(2015, 1, 1, 0, 0);
+        history = new ArrayList<>(observations);
+        Map<String, SpeciesRow> bySpecies = new LinkedHashMap<>();
+
+        for (int i = 0; i < observations; i++) {
+            dateTime = dateTime.plusSeconds(1 + random.nextInt(3600));
+            Observation observation = new Observation(speciesCatalog[random.nextInt(species)], "51.05,3.72", dateTime, "notes", null);
+            history.add(observation);
+
+            bySpecies.computeIfAbsent(observation.getSpeciesCode(), code -> new SpeciesRow(observation)).add(observation);
+        }
+        rows = new ArrayList<>(bySpecies.values());
+    }
+
+    @Benchmark
+    public UserStatsResponse legacy() {
+        return LegacyUserStatsCalculator.calculate(history);
+    }
+
+    @Benchmark
+    public UserStatsResponse engine() {
+        ObservationStatsEngine engine = new ObservationStatsEngine();
+        for (Observation observation : history) {
+            engine.add(observation.getSpeciesCode(), observation.getFamilyCode(), observation.getDateTime());
+        }
+        return engine.toResponse();
+    }
+
+    // UserService.getUserStats(): the user_species_stats rows (or the windowed aggregate) instead of every observation
+    @Benchmark
+    public UserStatsResponse aggregates() {
+        ObservationStatsEngine engine = new ObservationStatsEngine();
+        for (SpeciesRow row : rows) {
+            engine.add(row.speciesCode, row.familyCode, row.count, row.earliest, row.latest);
+        }
+        return engine.toResponse();
+    }
+
+    //
+    // Helper classes
+    //
+
+    // Stands in for UserSpeciesStats / SpeciesAggregate without the JPA entity around it
+    private static final class SpeciesRow {
+
+        private final String speciesCode;
+        private final String familyCode;
+        private long count;
+        private LocalDateTime earliest;
+        private LocalDateTime latest;
+
+        private SpeciesRow(Observation first) {
+            this.speciesCode = first.getSpeciesCode();
+            this.familyCode = first.getFamilyCode();
+            this.earliest = first.getDateTime();
+            this.latest = first.getDateTime();
+        }
+
+        private void add(Observation observation) {
+            count++;
+            if (observation.getDateTime().isBefore(earliest)) {
+                earliest = observation.getDateTime();
+            }
+            if (observation.getDateTime().isAfter(latest)) {
+                latest = observation.getDateTime();
+            }
+        }
+    }
+}
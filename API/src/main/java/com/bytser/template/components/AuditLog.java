@@ -0,0 +1,145 @@
+package com.bytser.template.components;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bytser.template.models.AuditAction;
+import com.bytser.template.models.AuditEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Entry point of the audit trail: record() puts an event on a bounded in-memory queue and returns,
+// AuditWriter drains it in batches into audit_event on its own thread. The request never touches disk or database.
+// The queue is lock-free (a ConcurrentLinkedQueue with a CAS-reserved slot count); when it is full
+// audit.overflow-policy decides which event is lost. Lost events are counted in audit.events.dropped.
+@Component
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditLog {
+
+    private static final long BLOCK_PARK_NANOS = 100_000;
+
+    private final ConcurrentLinkedQueue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final AuditProperties.OverflowPolicy overflowPolicy;
+    private final long maxBlockNanos;
+
+    private final Counter droppedQueueFull;
+    private final Counter droppedWriteFailed;
+
+    public AuditLog(AuditProperties properties, MeterRegistry meterRegistry) {
+        this.capacity = properties.getQueueCapacity();
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.maxBlockNanos = properties.getMaxBlock().toNanos();
+
+        Gauge.builder("audit.queue.depth", size, AtomicInteger::get)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        this.droppedQueueFull = droppedCounter(meterRegistry, "queue-full");
+        this.droppedWriteFailed = droppedCounter(meterRegistry, "write-failed");
+    }
+
+    // Queued once the current transaction commits, so a rolled back write leaves no trail
+    public void record(AuditAction action, UUID userId, UUID actorId, String detail) {
+        AuditEvent event = new AuditEvent(action, userId, actorId, detail, LocalDateTime.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(event);
+                }
+            });
+        } else {
+            offer(event);
+        }
+    }
+
+    // false when the event was dropped
+    public boolean offer(AuditEvent event) {
+        switch (overflowPolicy) {
+            case DROP_NEWEST -> {
+                if (!reserve()) {
+                    droppedQueueFull.increment();
+                    return false;
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!reserve()) {
+                    if (queue.poll() != null) {
+                        size.decrementAndGet();
+                        droppedQueueFull.increment();
+                    } else {
+                        Thread.onSpinWait();     // A slot is reserved but its event not added yet
+                    }
+                }
+            }
+            case BLOCK -> {
+                long deadline = System.nanoTime() + maxBlockNanos;
+                while (!reserve()) {
+                    if (System.nanoTime() - deadline >= 0) {
+                        droppedQueueFull.increment();
+                        return false;
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+        }
+        queue.add(event);
+        return true;
+    }
+
+    // Up to `max` events in arrival order, empty when nothing is queued
+    public List<AuditEvent> drain(int max) {
+        List<AuditEvent> batch = new ArrayList<>(Math.min(max, Math.max(size.get(), 1)));
+        AuditEvent event;
+        while (batch.size() < max && (event = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    // A batch AuditWriter could not write
+    void writeFailed(int events) {
+        droppedWriteFailed.increment(events);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private boolean reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("audit.events.dropped")
+                .tag("reason", reason)
+                .description("Audit events lost to a full queue or a failed write")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,69 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// audit.* settings of the asynchronous audit trail, see AuditLog and AuditWriter.
+@ConfigurationProperties("audit")
+public class AuditProperties {
+
+    // What happens to an event that finds the queue full
+    public enum OverflowPolicy {
+        // Keep the queued events, drop the new one (the default: the request never waits)
+        DROP_NEWEST,
+        // Drop the oldest queued event to make room
+        DROP_OLDEST,
+        // Let the caller wait up to maxBlock for room, then drop the new event
+        BLOCK
+    }
+
+    private int queueCapacity = 10_000;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private Duration maxBlock = Duration.ofMillis(50);
+    private boolean jsonLog = false;
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public Duration getMaxBlock() {
+        return maxBlock;
+    }
+    public void setMaxBlock(Duration maxBlock) {
+        this.maxBlock = maxBlock;
+    }
+
+    public boolean isJsonLog() {
+        return jsonLog;
+    }
+    public void setJsonLog(boolean jsonLog) {
+        this.jsonLog = jsonLog;
+    }
+}
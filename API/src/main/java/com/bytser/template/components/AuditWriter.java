@@ -0,0 +1,189 @@
+package com.bytser.template.components;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.models.AuditEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import tools.jackson.databind.ObjectMapper;
+
+// Background thread of the audit trail: drains AuditLog in batches of audit.batch-size and inserts each batch
+// with one JDBC batch in one transaction on the write datasource. When a batch fails its events are retried one by
+// one, so a single bad row only loses itself. An idle queue is checked every
+// audit.flush-interval. With audit.json-log=true every event is also logged as one JSON line on the "audit" logger.
+// Stops after the web server, so the events of the last requests are still written on shutdown.
+@Component
+public class AuditWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditWriter.class);
+    private static final Logger auditLogger = LoggerFactory.getLogger("audit");
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_event (occurred_at, action, user_id, actor_id, detail) VALUES (?, ?, ?, ?, ?)";
+
+    private final AuditLog auditLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean jsonLog;
+
+    private final Timer flushTimer;
+    private final Counter written;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public AuditWriter(AuditLog auditLog, AuditProperties properties, JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.auditLog = auditLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.jsonLog = properties.isJsonLog();
+
+        this.flushTimer = Timer.builder("audit.flush")
+                .description("Time to write one batch of audit events")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.written = Counter.builder("audit.events.written")
+                .description("Audit events written to audit_event")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("audit-writer").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Below the web server's phase: running before it takes requests, stopped after the last one finished
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    //
+    // Helper functions
+    //
+
+    private void run() {
+        while (running) {
+            if (flush() < batchSize) {
+                // Less than a full batch was waiting, give the queue time to fill
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        // Shutdown: write whatever is still queued
+        while (flush() > 0) {
+            // next batch
+        }
+    }
+
+    // Number of events taken from the queue
+    private int flush() {
+        List<AuditEvent> batch = auditLog.drain(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> insert(batch)));
+            written.increment(batch.size());
+        } catch (RuntimeException exception) {
+            log.warn("Could not write a batch of {} audit events, retrying them one by one: {}",
+                    batch.size(), exception.getMessage());
+            insertOneByOne(batch);
+        }
+
+        if (jsonLog) {
+            batch.forEach(this::logJson);
+        }
+        return batch.size();
+    }
+
+    private void insert(List<AuditEvent> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                AuditEvent event = batch.get(i);
+                statement.setTimestamp(1, Timestamp.valueOf(event.getOccurredAt()));
+                statement.setString(2, event.getAction().name());
+                statement.setObject(3, event.getUserId());
+                statement.setObject(4, event.getActorId());
+                statement.setString(5, event.getDetail());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    private void insertOneByOne(List<AuditEvent> batch) {
+        int failed = 0;
+        for (AuditEvent event : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(event)));
+                written.increment();
+            } catch (RuntimeException exception) {
+                failed++;
+                log.warn("Could not write audit event {} of user {}: {}",
+                        event.getAction(), event.getUserId(), exception.getMessage());
+            }
+        }
+        if (failed > 0) {
+            auditLog.writeFailed(failed);
+        }
+    }
+
+    private void logJson(AuditEvent event) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("occurredAt", event.getOccurredAt().toString());
+        json.put("action", event.getAction().name());
+        json.put("userId", event.getUserId());
+        json.put("actorId", event.getActorId());
+        json.put("detail", event.getDetail());
+        auditLogger.info(objectMapper.writeValueAsString(json));
+    }
+}
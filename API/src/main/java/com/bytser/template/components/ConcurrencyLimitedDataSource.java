@@ -0,0 +1,152 @@
+package com.bytser.template.components;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Admission control in front of a connection pool for the virtual-thread mode.
+// With platform threads Tomcat's 200 workers cap how many requests wait for a connection; with a virtual thread per
+// request nothing does, and every blocked request would pile up inside Hikari until its connectionTimeout.
+// Here at most `permits` connections (the pool size) are out at once, at most `maxWaiting` callers queue for one
+// in arrival order and the rest are turned away immediately, so an overloaded API answers 503 fast instead of late.
+// A permit is held from getConnection() until the connection is closed, i.e. for the whole transaction.
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    // Thrown instead of waiting, GlobalExceptionHandler maps it to 503 Service Unavailable
+    public static class LimitExceededException extends SQLException {
+
+        public LimitExceededException(String message) {
+            super(message, "08001");
+        }
+    }
+
+    private final String name;
+    private final int permits;
+    private final int maxWaiting;
+    private final Duration maxWait;
+    private final Semaphore available;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejected;
+
+    public ConcurrencyLimitedDataSource(String name, DataSource target, int permits, int maxWaiting, Duration maxWait,
+            MeterRegistry meterRegistry) {
+        super(target);
+        this.name = name;
+        this.permits = permits;
+        this.maxWaiting = maxWaiting;
+        this.maxWait = maxWait;
+        // Fair: a connection goes to the caller that waited longest
+        this.available = new Semaphore(permits, true);
+
+        Gauge.builder("datasource.limiter.active", available, a -> permits - a.availablePermits())
+                .tag("target", name)
+                .description("Connections handed out through the limiter")
+                .register(meterRegistry);
+        Gauge.builder("datasource.limiter.waiting", waiting, AtomicInteger::get)
+                .tag("target", name)
+                .description("Callers queued for a connection")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("datasource.limiter.rejected")
+                .tag("target", name)
+                .description("Connection requests turned away because the queue was full or the wait too long")
+                .register(meterRegistry);
+    }
+
+    public int getPermits() {
+        return permits;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasing(super.getConnection());
+        } catch (SQLException | RuntimeException exception) {
+            available.release();
+            throw exception;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasing(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException exception) {
+            available.release();
+            throw exception;
+        }
+    }
+
+    //
+    // Helper functions
+    //
+
+    private void acquire() throws SQLException {
+        try {
+            // tryAcquire(0, unit) instead of tryAcquire() so a free permit does not jump the queue
+            if (available.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+
+            if (waiting.incrementAndGet() > maxWaiting) {
+                waiting.decrementAndGet();
+                rejected.increment();
+                throw new LimitExceededException("Too many callers waiting for a " + name + " connection");
+            }
+            try {
+                if (!available.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    rejected.increment();
+                    throw new LimitExceededException("No " + name + " connection within " + maxWait.toMillis() + " ms");
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + name + " connection", exception);
+        }
+    }
+
+    // The same connection, except that the first close() gives the permit back
+    private Connection releasing(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, arguments) -> {
+            if (method.getName().equals("close") && method.getParameterCount() == 0 && released.compareAndSet(false, true)) {
+                try {
+                    connection.close();
+                } finally {
+                    available.release();
+                }
+                return null;
+            }
+            return invoke(connection, method, arguments);
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(connection, arguments);
+        } catch (InvocationTargetException exception) {
+            throw exception.getTargetException();
+        }
+    }
+}
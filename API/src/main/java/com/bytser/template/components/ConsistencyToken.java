@@ -0,0 +1,76 @@
+package com.bytser.template.components;
+
+// Read-your-writes token: the primary's WAL position (PostgreSQL LSN) right after a write committed.
+// Writes return it in the X-Consistency-Token header, reads that send it back are only served by a replica
+// that has replayed at least that far. The token of the current request is kept in a thread local.
+// The position the current thread's reads were served at is kept too, so a cached result can record how fresh it is.
+// Only write requests get a token back: other transactions (reads, scheduled jobs, background writers) skip the query.
+public final class ConsistencyToken {
+
+    public static final String HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<Long> REQUIRED_LSN = new ThreadLocal<>();
+    private static final ThreadLocal<Long> SERVED_LSN = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> ISSUING = new ThreadLocal<>();
+
+    private ConsistencyToken() {
+    }
+
+    // 0 when the current request carries no token
+    public static long requiredLsn() {
+        Long lsn = REQUIRED_LSN.get();
+        return lsn == null ? 0 : lsn;
+    }
+
+    public static void require(long lsn) {
+        REQUIRED_LSN.set(lsn);
+    }
+
+    // Set by ConsistencyTokenFilter for a request whose response gets a token after its writes commit
+    public static void issue() {
+        ISSUING.set(Boolean.TRUE);
+    }
+
+    public static boolean issuing() {
+        return ISSUING.get() != null;
+    }
+
+    // 0 when unknown: how far the database that served this thread's reads since clearServed() had at least replayed
+    public static long servedLsn() {
+        Long lsn = SERVED_LSN.get();
+        return lsn == null ? 0 : lsn;
+    }
+
+    // The lowest position wins: reads on several connections together are only as fresh as the stalest of them
+    public static void served(long lsn) {
+        Long served = SERVED_LSN.get();
+        if (served == null || lsn < served) {
+            SERVED_LSN.set(lsn);
+        }
+    }
+
+    public static void clearServed() {
+        SERVED_LSN.remove();
+    }
+
+    public static void clear() {
+        REQUIRED_LSN.remove();
+        SERVED_LSN.remove();
+        ISSUING.remove();
+    }
+
+    // PostgreSQL prints an LSN as two hex halves, e.g. "16/B374D848"
+    public static long parse(String token) {
+        int slash = token.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Invalid consistency token: " + token);
+        }
+        long high = Long.parseLong(token.substring(0, slash).trim(), 16);
+        long low = Long.parseLong(token.substring(slash + 1).trim(), 16);
+        return (high << 32) | low;
+    }
+
+    public static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+}
@@ -0,0 +1,48 @@
+package com.bytser.template.components;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Binds the X-Consistency-Token of the request (if any) to the request thread for the read routing.
+// Requests with a method that writes are marked to get a token back, see ConsistencyTokenListener.
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsistencyTokenFilter.class);
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = request.getHeader(ConsistencyToken.HEADER);
+
+        if (token != null && !token.isBlank()) {
+            try {
+                ConsistencyToken.require(ConsistencyToken.parse(token));
+            } catch (IllegalArgumentException exception) {
+                // A bad token only costs consistency, not the request
+                log.debug("Ignoring consistency token {}: {}", token, exception.getMessage());
+            }
+        }
+
+        if (!READ_METHODS.contains(request.getMethod())) {
+            ConsistencyToken.issue();
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ConsistencyToken.clear();
+        }
+    }
+}
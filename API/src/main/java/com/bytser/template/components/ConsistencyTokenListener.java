@@ -0,0 +1,73 @@
+package com.bytser.template.components;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+// Sets the X-Consistency-Token response header after every committed write transaction of a write request (POST, PUT,
+// PATCH, DELETE through ConsistencyTokenFilter). Any other transaction, including scheduled jobs and background writers,
+// returns before the query.
+// The primary's WAL position read after the commit is at or past the commit record, so a replica that has
+// replayed up to it sees the write. Only on PostgreSQL, H2 has no replicas to be stale.
+// The position is read on the transaction's own connection, which is still bound at this point: borrowing a second
+// one would deadlock once every pooled connection belongs to a transaction that is waiting here for another.
+@Component
+public class ConsistencyTokenListener implements TransactionExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsistencyTokenListener.class);
+
+    private final DataSource dataSource;
+    private final DatabasePlatform databasePlatform;
+
+    public ConsistencyTokenListener(DataSource dataSource, DatabasePlatform databasePlatform) {
+        this.dataSource = dataSource;
+        this.databasePlatform = databasePlatform;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !ConsistencyToken.issuing()) {
+            return;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)
+                || servletAttributes.getResponse() == null
+                || !databasePlatform.isPostgres()) {
+            return;
+        }
+
+        HttpServletResponse response = servletAttributes.getResponse();
+        if (response.isCommitted()) {
+            return;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+            resultSet.next();
+            // A later write in the same request moves the token forward
+            response.setHeader(ConsistencyToken.HEADER, resultSet.getString(1));
+        } catch (SQLException exception) {
+            // Without a token the client just reads with the usual replica lag
+            log.warn("Could not read the WAL position after commit: {}", exception.getMessage());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package com.bytser.template.components;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
+@EnableConfigurationProperties(ReadRoutingProperties.class)
 public class DataSourceConfig {
 
     // Properties for WRITE datasource
@@ -23,11 +35,15 @@ public class DataSourceConfig {
         return new DataSourceProperties();
     }
 
+    // The shared spring.datasource.hikari settings (pool size, timeouts) apply to the write and the read pool
     @Bean(name = "writeDataSource")
-    public DataSource writeDataSource() {
-        return writeDataSourceProperties()
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(MeterRegistry meterRegistry) {
+        HikariDataSource pool = writeDataSourceProperties()
                 .initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
                 .build();
+        return instrument(pool, "write", meterRegistry);
     }
 
     // Properties for READ datasource
@@ -38,36 +54,125 @@ public class DataSourceConfig {
     }
 
     @Bean(name = "readDataSource")
-    public DataSource readDataSource() {
-        return readDataSourceProperties()
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource readDataSource(MeterRegistry meterRegistry) {
+        HikariDataSource pool = readDataSourceProperties()
                 .initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
                 .build();
+        return instrument(pool, "read", meterRegistry);
+    }
+
+    // Every connection to the primary, whether a write or a read that failed over, goes through here.
+    // In the virtual-thread mode (spring.threads.virtual.enabled) that is one limiter sized to the write pool.
+    @Bean(name = "primaryTargetDataSource")
+    public DataSource primaryTargetDataSource(
+            @Qualifier("writeDataSource") HikariDataSource writeDataSource,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${datasource.limiter.max-waiting:200}") int maxWaiting,
+            @Value("${datasource.limiter.max-wait:5s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        if (!virtualThreads) {
+            return writeDataSource;
+        }
+        return new ConcurrencyLimitedDataSource(
+                "write", writeDataSource, writeDataSource.getMaximumPoolSize(), maxWaiting, maxWait, meterRegistry);
+    }
+
+    // Replicas behind the READ key, load balanced with failover to the primary.
+    // Without datasource.routing.replicas the single read datasource above is the only replica.
+    @Bean
+    public LoadBalancedReadDataSource loadBalancedReadDataSource(
+            ReadRoutingProperties routingProperties,
+            @Qualifier("primaryTargetDataSource") DataSource primaryTargetDataSource,
+            @Qualifier("readDataSource") DataSource readDataSource,
+            MeterRegistry meterRegistry) {
+
+        List<ReplicaTarget> replicas = new ArrayList<>();
+        if (routingProperties.getReplicas().isEmpty()) {
+            replicas.add(new ReplicaTarget("read", readDataSource));
+        }
+
+        for (ReadRoutingProperties.Replica replica : routingProperties.getReplicas()) {
+            String name = replica.getName() != null ? replica.getName() : "replica-" + (replicas.size() + 1);
+
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .driverClassName(replica.getDriverClassName())
+                    .build();
+            instrument(pool, "read-" + name, meterRegistry);
+            // Fail over quickly instead of waiting the default 30 seconds on a dead replica
+            pool.setConnectionTimeout(routingProperties.getReplicaConnectionTimeout().toMillis());
+            pool.setReadOnly(true);
+
+            replicas.add(new ReplicaTarget(name, pool));
+        }
+
+        return new LoadBalancedReadDataSource(replicas, primaryTargetDataSource,
+                ReplicaBalancer.of(routingProperties.getBalancer()), meterRegistry);
     }
 
-    // Routing datasource: decides between READ and WRITE
+    // Routing datasource: decides between READ and WRITE.
+    // In the virtual-thread mode the READ target gets a limiter too. A read takes one replica connection or, failing
+    // over, one primary connection that also needs a permit of the shared write limiter; so the read limiter admits
+    // what the replica pools and the primary pool hold together, and never zero.
     @Bean
     public DataSource routingDataSource(
-            @Qualifier("writeDataSource") DataSource writeDataSource,
-            @Qualifier("readDataSource") DataSource readDataSource) {
+            @Qualifier("writeDataSource") HikariDataSource writeDataSource,
+            @Qualifier("primaryTargetDataSource") DataSource primaryTargetDataSource,
+            @Qualifier("loadBalancedReadDataSource") LoadBalancedReadDataSource readDataSource,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${datasource.limiter.max-waiting:200}") int maxWaiting,
+            @Value("${datasource.limiter.max-wait:5s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
 
-        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(meterRegistry);
 
         Map<Object, Object> targetDataSources = new HashMap<>();
-        targetDataSources.put(DataSourceType.WRITE, writeDataSource);
-        targetDataSources.put(DataSourceType.READ, readDataSource);
+        targetDataSources.put(DataSourceType.WRITE, primaryTargetDataSource);
+        if (virtualThreads) {
+            int readPermits = readDataSource.getReplicas().stream().mapToInt(replica -> poolSize(replica.getDataSource())).sum()
+                    + writeDataSource.getMaximumPoolSize();
+            targetDataSources.put(DataSourceType.READ, new ConcurrencyLimitedDataSource(
+                    "read", readDataSource, readPermits, maxWaiting, maxWait, meterRegistry));
+        } else {
+            targetDataSources.put(DataSourceType.READ, readDataSource);
+        }
 
         routingDataSource.setTargetDataSources(targetDataSources);
-        routingDataSource.setDefaultTargetDataSource(writeDataSource); // fallback
+        routingDataSource.setDefaultTargetDataSource(primaryTargetDataSource); // fallback
 
         return routingDataSource;
     }
 
-    // Primary datasource used by Spring / JPA: a lazy proxy over the routing DS
+    // Primary datasource used by Spring / JPA: a lazy proxy over the (profiled) routing DS
     @Bean
     @Primary
-    public DataSource dataSource(DataSource routingDataSource) {
+    public DataSource dataSource(DataSource routingDataSource, SqlProfiler sqlProfiler) {
+        // Counts statements, JDBC time and fetched rows per request, see SqlProfilingFilter
+        DataSource target = sqlProfiler.isEnabled() ? sqlProfiler.wrap(routingDataSource) : routingDataSource;
+
         // LazyConnectionDataSourceProxy delays getting a real connection
         // until it's actually used, which plays nicely with transactions.
-        return new LazyConnectionDataSourceProxy(routingDataSource);
+        return new LazyConnectionDataSourceProxy(target);
+    }
+
+    //
+    // Helper functions
+    //
+
+    // hikaricp.connections.* gauges and acquire/usage timers, tagged with pool=<name>
+    private static HikariDataSource instrument(HikariDataSource pool, String name, MeterRegistry meterRegistry) {
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        // 10 is also Hikari's default
+        return dataSource instanceof HikariDataSource pool ? pool.getMaximumPoolSize() : 10;
     }
 }
\ No newline at end of file
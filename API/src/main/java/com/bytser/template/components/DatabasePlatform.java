@@ -0,0 +1,63 @@
+package com.bytser.template.components;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+// Which database the primary runs on, for features that only exist on PostgreSQL (WAL positions, COPY, ...).
+// Detected once from the JDBC metadata, a failed detection is retried on the next call.
+@Component
+public class DatabasePlatform {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabasePlatform.class);
+
+    private final DataSource dataSource;
+    private volatile Boolean postgres;
+
+    public DatabasePlatform(@Qualifier("writeDataSource") DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected != null) {
+            return detected;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            detected = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            postgres = detected;
+            return detected;
+        } catch (SQLException exception) {
+            log.warn("Could not detect the database platform: {}", exception.getMessage());
+            return false;
+        }
+    }
+
+    // INSERT of one row that leaves an existing row with the same key alone instead of failing, so "create the row if
+    // missing, then lock it" has no first-insert race: ON CONFLICT DO NOTHING on PostgreSQL, a MERGE without an update
+    // branch elsewhere (H2). Parameters: the key columns, then the other columns, in the given order.
+    public String insertIfAbsentSql(String table, List<String> keyColumns, List<String> otherColumns) {
+        List<String> columns = Stream.concat(keyColumns.stream(), otherColumns.stream()).toList();
+        String columnList = String.join(", ", columns);
+        String parameters = columns.stream().map(column -> "?").collect(Collectors.joining(", "));
+
+        if (isPostgres()) {
+            return "INSERT INTO " + table + " (" + columnList + ") VALUES (" + parameters + ")"
+                    + " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO NOTHING";
+        }
+        return "MERGE INTO " + table + " t USING (VALUES (" + parameters + ")) AS v (" + columnList + ")"
+                + " ON " + keyColumns.stream().map(column -> "t." + column + " = v." + column).collect(Collectors.joining(" AND "))
+                + " WHEN NOT MATCHED THEN INSERT (" + columnList + ")"
+                + " VALUES (" + columns.stream().map(column -> "v." + column).collect(Collectors.joining(", ")) + ")";
+    }
+}
@@ -0,0 +1,169 @@
+package com.bytser.template.components;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.bytser.template.exceptions.BadRequestException;
+
+// Fixed latitude/longitude grid of 0.05 degree cells (about 5.5 km north-south) behind the nearby searches.
+// Every located observation stores the long key of its cell, a search turns its area into the covering cells,
+// lets the (geo_cell, date_time) index prune to those and refines the candidates with the exact geometry in Java.
+// The V7 migration computes the same keys in SQL: keep CELLS_PER_DEGREE, the parse pattern and cellOf in step with it.
+public final class GeoGrid {
+
+    public static final int CELLS_PER_DEGREE = 20;
+    private static final int ROWS = 180 * CELLS_PER_DEGREE;
+    private static final int COLUMNS = 360 * CELLS_PER_DEGREE;
+
+    // Upper bound on the cells of one search, so a huge area cannot turn into an unbounded IN list
+    public static final int MAX_CELLS = 2500;
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    // "lat,lon" in decimal degrees, the shape the clients have always sent as location
+    private static final Pattern COORDINATES = Pattern.compile(
+            "^\\s*([-+]?[0-9]+(?:\\.[0-9]+)?)\\s*,\\s*([-+]?[0-9]+(?:\\.[0-9]+)?)\\s*$");
+
+    public record Point(double latitude, double longitude) {
+    }
+
+    // The cells firstCell..lastCell (inclusive) of one grid row
+    public record CellRange(long firstCell, long lastCell) {
+    }
+
+    // minLongitude > maxLongitude means the box crosses the antimeridian
+    public record Box(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+
+        public boolean contains(double latitude, double longitude) {
+            if (latitude < minLatitude || latitude > maxLatitude) {
+                return false;
+            }
+            return minLongitude <= maxLongitude
+                    ? longitude >= minLongitude && longitude <= maxLongitude
+                    : longitude >= minLongitude || longitude <= maxLongitude;
+        }
+    }
+
+    private GeoGrid() {
+    }
+
+    // Null when the location is free text or out of range, those observations simply have no coordinates
+    public static Point parse(String location) {
+        if (location == null) {
+            return null;
+        }
+        Matcher matcher = COORDINATES.matcher(location);
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        double latitude = Double.parseDouble(matcher.group(1));
+        double longitude = Double.parseDouble(matcher.group(2));
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            return null;
+        }
+        return new Point(latitude, longitude);
+    }
+
+    public static long cellOf(double latitude, double longitude) {
+        return (long) row(latitude) * COLUMNS + column(longitude);
+    }
+
+    public static Box around(double latitude, double longitude, double radiusKm) {
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double minLatitude = Math.max(-90, latitude - latitudeDelta);
+        double maxLatitude = Math.min(90, latitude + latitudeDelta);
+
+        // Longitude degrees shrink towards the poles: widen by the latitude of the box edge closest to a pole
+        double cosine = Math.cos(Math.toRadians(Math.max(Math.abs(minLatitude), Math.abs(maxLatitude))));
+        double longitudeDelta = cosine <= 0 ? 180 : latitudeDelta / cosine;
+        if (longitudeDelta >= 180) {
+            return new Box(minLatitude, -180, maxLatitude, 180);
+        }
+
+        return new Box(minLatitude, wrap(longitude - longitudeDelta), maxLatitude, wrap(longitude + longitudeDelta));
+    }
+
+    public static List<Long> cellsWithin(Box box) {
+        int firstRow = row(box.minLatitude());
+        int lastRow = row(box.maxLatitude());
+        int firstColumn = column(box.minLongitude());
+        int columns = columns(box);
+        if (cellCount(box) > MAX_CELLS) {
+            throw new BadRequestException("Zoekgebied is te groot, maak het kleiner");
+        }
+
+        List<Long> cells = new ArrayList<>((lastRow - firstRow + 1) * columns);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int offset = 0; offset < columns; offset++) {
+                cells.add((long) row * COLUMNS + (firstColumn + offset) % COLUMNS);
+            }
+        }
+        return cells;
+    }
+
+    public static long cellCount(Box box) {
+        return (long) (row(box.maxLatitude()) - row(box.minLatitude()) + 1) * columns(box);
+    }
+
+    // The same cells as cellsWithin, as one range per row (two when the box crosses the antimeridian). Near the poles
+    // a small radius spans thousands of narrow cells, but never more rows than a radius of the same size elsewhere.
+    public static List<CellRange> rangesWithin(Box box) {
+        int firstColumn = column(box.minLongitude());
+        int lastColumn = column(box.maxLongitude());
+
+        List<CellRange> ranges = new ArrayList<>();
+        for (int row = row(box.minLatitude()); row <= row(box.maxLatitude()); row++) {
+            long rowStart = (long) row * COLUMNS;
+            if (firstColumn <= lastColumn) {
+                ranges.add(new CellRange(rowStart + firstColumn, rowStart + lastColumn));
+            } else {
+                ranges.add(new CellRange(rowStart + firstColumn, rowStart + COLUMNS - 1));
+                ranges.add(new CellRange(rowStart, rowStart + lastColumn));
+            }
+        }
+        return ranges;
+    }
+
+    // Great-circle distance (haversine)
+    public static double distanceKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double latitudeDelta = Math.toRadians(toLatitude - fromLatitude);
+        double longitudeDelta = Math.toRadians(toLongitude - fromLongitude);
+        double a = Math.sin(latitudeDelta / 2) * Math.sin(latitudeDelta / 2)
+                + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+                * Math.sin(longitudeDelta / 2) * Math.sin(longitudeDelta / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    //
+    // Helper functions
+    //
+
+    // 90 and 180 fall in the last row and column instead of one past the grid
+    private static int row(double latitude) {
+        return Math.min((int) Math.floor((latitude + 90) * CELLS_PER_DEGREE), ROWS - 1);
+    }
+
+    private static int column(double longitude) {
+        return Math.min((int) Math.floor((longitude + 180) * CELLS_PER_DEGREE), COLUMNS - 1);
+    }
+
+    private static int columns(Box box) {
+        int firstColumn = column(box.minLongitude());
+        int lastColumn = column(box.maxLongitude());
+        return firstColumn <= lastColumn ? lastColumn - firstColumn + 1 : COLUMNS - firstColumn + lastColumn + 1;
+    }
+
+    private static double wrap(double longitude) {
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        if (longitude > 180) {
+            return longitude - 360;
+        }
+        return longitude;
+    }
+}
@@ -0,0 +1,172 @@
+package com.bytser.template.components;
+
+import java.util.Arrays;
+
+// HyperLogLog distinct-count sketch (Flajolet et al.) with 2^11 one-byte registers: about 2.3% relative standard
+// error over the whole range, and small cardinalities come out almost exactly.
+// Sketches merge by taking the register maxima, so the distinct count over any set of buckets or users is the
+// estimate of their merged sketch. The serialized form is sparse (index/value pairs) while few registers are set,
+// so a typical user-month is tens of bytes and a full sketch 2 KB.
+// Not thread-safe.
+public final class HyperLogLog {
+
+    public static final int PRECISION = 11;
+    private static final int REGISTERS = 1 << PRECISION;
+
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    // Highest rank a register can hold: the hash bits left after the index, plus one
+    private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+
+    private static final double ALPHA = 1 / (2 * Math.log(2));
+
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // The marker bit caps the rank when all remaining bits are zero
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    // Ertl's improved estimator ("New cardinality estimation algorithms for HyperLogLog sketches", 2017):
+    // one formula over the register histogram, without the bias of switching from linear counting to the raw estimate
+    public long estimate() {
+        int[] histogram = new int[MAX_RANK + 1];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+
+        double z = REGISTERS * tau(1.0 - (double) histogram[MAX_RANK] / REGISTERS);
+        for (int rank = MAX_RANK - 1; rank >= 1; rank--) {
+            z = 0.5 * (z + histogram[rank]);
+        }
+        z += REGISTERS * sigma((double) histogram[0] / REGISTERS);
+
+        return Math.round(ALPHA * REGISTERS * REGISTERS / z);
+    }
+
+    public byte[] toBytes() {
+        int used = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                used++;
+            }
+        }
+
+        if (1 + used * 3 >= 1 + REGISTERS) {
+            byte[] bytes = new byte[1 + REGISTERS];
+            bytes[0] = DENSE;
+            System.arraycopy(registers, 0, bytes, 1, REGISTERS);
+            return bytes;
+        }
+
+        // Two bytes index, one byte rank per used register
+        byte[] bytes = new byte[1 + used * 3];
+        bytes[0] = SPARSE;
+        int offset = 1;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                bytes[offset++] = (byte) (i >>> 8);
+                bytes[offset++] = (byte) i;
+                bytes[offset++] = registers[i];
+            }
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes.length == 1 + REGISTERS && bytes[0] == DENSE) {
+            System.arraycopy(bytes, 1, sketch.registers, 0, REGISTERS);
+            return sketch;
+        }
+        if (bytes.length == 0 || bytes[0] != SPARSE || (bytes.length - 1) % 3 != 0) {
+            throw new IllegalArgumentException("Not a serialized HyperLogLog sketch");
+        }
+
+        for (int offset = 1; offset < bytes.length; offset += 3) {
+            int index = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+            if (index >= REGISTERS) {
+                throw new IllegalArgumentException("Not a serialized HyperLogLog sketch");
+            }
+            sketch.registers[index] = bytes[offset + 2];
+        }
+        return sketch;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof HyperLogLog sketch && Arrays.equals(registers, sketch.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registers);
+    }
+
+    // Correction for the registers that are still empty (series from the paper, converges in a few dozen steps)
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1.0;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    // Correction for the registers that hit the maximum rank
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double y = 1.0;
+        double z = 1.0 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1.0 - x) * (1.0 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    // 64-bit FNV-1a over the UTF-16 code units with the MurmurHash3 finalizer on top.
+    // Persisted sketches depend on it: never change it without rebuilding every stored sketch.
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,199 @@
+package com.bytser.template.components;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// The READ target of the routing datasource: spreads read connections over the healthy replicas.
+// A replica that fails to hand out a connection is ejected right away, the ReplicaHealthProber re-admits it.
+// With no healthy replica left the read runs on the primary instead of failing, through the same datasource (and, with
+// virtual threads, the same limiter) as the writes, see DataSourceConfig.
+// A request carrying a consistency token prefers replicas that had replayed past it at their last probe. The others
+// are asked for their replay position when the connection is handed out, as the probe runs only every few seconds.
+// The position a connection is known to have reached is recorded as ConsistencyToken.served for UserStatsCache.
+public class LoadBalancedReadDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadBalancedReadDataSource.class);
+    private static final String PRIMARY = "primary";
+
+    // The WAL position a replica has replayed, or the current one when it is not a replica (a single database setup)
+    private static final String REPLAYED_LSN_SQL = """
+            SELECT CASE
+                    WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn()
+                    ELSE pg_current_wal_lsn()
+                END::text""";
+
+    private final List<ReplicaTarget> replicas;
+    private final DataSource primary;
+    private final ReplicaBalancer balancer;
+
+    private final Map<String, Counter> routedCounters;
+    private final Map<String, Counter> failureCounters;
+
+    public LoadBalancedReadDataSource(List<ReplicaTarget> replicas, DataSource primary, ReplicaBalancer balancer,
+            MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.primary = primary;
+        this.balancer = balancer;
+
+        List<String> targets = new ArrayList<>();
+        this.replicas.forEach(replica -> targets.add(replica.getName()));
+        targets.add(PRIMARY);
+
+        this.routedCounters = targets.stream().collect(Collectors.toMap(Function.identity(), target ->
+                Counter.builder("datasource.read.routed")
+                        .tag("target", target)
+                        .description("Read connections handed out per target")
+                        .register(meterRegistry)));
+        this.failureCounters = this.replicas.stream().collect(Collectors.toMap(ReplicaTarget::getName, replica ->
+                Counter.builder("datasource.read.failures")
+                        .tag("target", replica.getName())
+                        .description("Read connections a replica failed to hand out")
+                        .register(meterRegistry)));
+
+        for (ReplicaTarget replica : this.replicas) {
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .tag("target", replica.getName())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.getReplicationLag().toMillis() / 1000.0)
+                    .tag("target", replica.getName())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<ReplicaTarget> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(username, password);
+    }
+
+    private Connection connect(String username, String password) throws SQLException {
+        long requiredLsn = ConsistencyToken.requiredLsn();
+        List<ReplicaTarget> caughtUp = new ArrayList<>(replicas.size());
+        List<ReplicaTarget> behind = new ArrayList<>(replicas.size());
+        for (ReplicaTarget replica : replicas) {
+            if (replica.isHealthy()) {
+                (replica.getReplayedLsn() >= requiredLsn ? caughtUp : behind).add(replica);
+            }
+        }
+
+        Connection connection = connectAny(caughtUp, 0, username, password);
+        if (connection == null && !behind.isEmpty()) {
+            // The last probe may be seconds old, a replica has usually replayed the write by now
+            connection = connectAny(behind, requiredLsn, username, password);
+        }
+        if (connection != null) {
+            return connection;
+        }
+
+        routedCounters.get(PRIMARY).increment();
+        Connection primaryConnection = open(primary, username, password);
+        // The primary is ahead of the token and of every replica
+        ConsistencyToken.served(Math.max(requiredLsn, highestReplayedLsn()));
+        return primaryConnection;
+    }
+
+    // A connection to one of the candidates that has replayed up to requiredLsn (0: any), null when none has
+    private Connection connectAny(List<ReplicaTarget> candidates, long requiredLsn, String username, String password) {
+        while (!candidates.isEmpty()) {
+            ReplicaTarget replica = balancer.choose(candidates);
+            candidates.remove(replica);
+
+            Connection connection;
+            try {
+                connection = open(replica.getDataSource(), username, password);
+            } catch (SQLException exception) {
+                replica.setHealthy(false);
+                failureCounters.get(replica.getName()).increment();
+                log.warn("Read replica {} ejected, could not get a connection: {}", replica.getName(), exception.getMessage());
+                continue;
+            }
+
+            if (requiredLsn == 0 || replayedPast(replica, connection, requiredLsn)) {
+                routedCounters.get(replica.getName()).increment();
+                ConsistencyToken.served(replica.getReplayedLsn());
+                return connection;
+            }
+            closeQuietly(connection);
+        }
+        return null;
+    }
+
+    private long highestReplayedLsn() {
+        long highest = 0;
+        for (ReplicaTarget replica : replicas) {
+            highest = Math.max(highest, replica.getReplayedLsn());
+        }
+        return highest;
+    }
+
+    private static boolean replayedPast(ReplicaTarget replica, Connection connection, long requiredLsn) {
+        try {
+            // Only PostgreSQL issues consistency tokens, another database cannot tell how far it is
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return false;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(REPLAYED_LSN_SQL)) {
+                resultSet.next();
+                String replayed = resultSet.getString(1);
+                long replayedLsn = replayed == null ? 0 : ConsistencyToken.parse(replayed);
+                // Never backwards, a concurrent probe may have seen a later position
+                replica.setReplayedLsn(Math.max(replica.getReplayedLsn(), replayedLsn));
+                return replayedLsn >= requiredLsn;
+            }
+        } catch (SQLException exception) {
+            log.debug("Could not read the replay position of read replica {}: {}", replica.getName(), exception.getMessage());
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException exception) {
+            log.debug("Could not return a read replica connection: {}", exception.getMessage());
+        }
+    }
+
+    private static Connection open(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The replica pools are owned here, closing an already closed Hikari pool is a no-op
+        for (ReplicaTarget replica : replicas) {
+            if (replica.getDataSource() instanceof Closeable pool) {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.bytser.template.components;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.services.ObservationStatsService;
+import com.bytser.template.services.SpeciesCatalogService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Writes one batch of imported observations in its own transaction, together with the stats deltas of that batch.
+// The caller has resolved every row's species already, here the catalog is only an in-memory lookup of the id.
+// Bypasses the persistence context: ids come from observation_seq in whole pooled blocks and the rows are sent
+// with PostgreSQL COPY, or a JDBC batch insert on other databases.
+@Component
+public class ObservationBatchWriter {
+
+    private static final String SEQUENCE = "observation_seq";
+    // allocationSize of the Observation id: Hibernate's pooled optimizer hands out (value - 49 .. value]
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String COLUMNS =
+            "observationid, species_id, location, latitude, longitude, geo_cell, date_time, notes, example_id";
+    private static final String INSERT_SQL = "INSERT INTO observation (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COPY_SQL = "COPY observation (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    private static final String POSTGRES_SEQUENCE_SQL = "SELECT nextval('" + SEQUENCE + "') FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final ObservationStatsService observationStatsService;
+    private final SpeciesCatalogService speciesCatalogService;
+    private final SqlProfiler sqlProfiler;
+    private final String nextValueSql;
+
+    public ObservationBatchWriter(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform,
+            ObservationStatsService observationStatsService, SpeciesCatalogService speciesCatalogService,
+            SqlProfiler sqlProfiler, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.observationStatsService = observationStatsService;
+        this.speciesCatalogService = speciesCatalogService;
+        this.sqlProfiler = sqlProfiler;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE);
+    }
+
+    @Transactional(readOnly = false)
+    public void write(UUID userId, List<ObservationImportReader.Row> rows) {
+        long[] ids = allocateIds(rows.size());
+
+        if (databasePlatform.isPostgres()) {
+            copy(userId, rows, ids);
+        } else {
+            insert(userId, rows, ids);
+        }
+
+        observationStatsService.recordBatch(userId, rows);
+    }
+
+    // Same blocks Hibernate would reserve, so imported and regularly saved observations never collide
+    private long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        int next = 0;
+
+        while (next < count) {
+            int blocks = (count - next + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+            for (long value : nextValues(blocks)) {
+                // The very first value of the sequence (1) only yields id 1, the loop then fetches one more block
+                for (long id = Math.max(1, value - SEQUENCE_INCREMENT + 1); id <= value && next < count; id++) {
+                    ids[next++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> nextValues(int blocks) {
+        if (databasePlatform.isPostgres()) {
+            // All blocks in one round trip
+            return jdbcTemplate.queryForList(POSTGRES_SEQUENCE_SQL, Long.class, blocks);
+        }
+
+        List<Long> values = new ArrayList<>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            values.add(jdbcTemplate.queryForObject(nextValueSql, Long.class));
+        }
+        return values;
+    }
+
+    private void insert(UUID userId, List<ObservationImportReader.Row> rows, long[] ids) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException {
+                ObservationImportReader.Row row = rows.get(index);
+                GeoGrid.Point point = GeoGrid.parse(row.location());
+                statement.setLong(1, ids[index]);
+                statement.setInt(2, speciesId(row));
+                statement.setString(3, row.location());
+                statement.setObject(4, point == null ? null : point.latitude(), Types.DOUBLE);
+                statement.setObject(5, point == null ? null : point.longitude(), Types.DOUBLE);
+                statement.setObject(6, point == null ? null : GeoGrid.cellOf(point.latitude(), point.longitude()), Types.BIGINT);
+                statement.setTimestamp(7, Timestamp.valueOf(row.dateTime()));
+                statement.setString(8, row.notes());
+                statement.setObject(9, userId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void copy(UUID userId, List<ObservationImportReader.Row> rows, long[] ids) {
+        StringBuilder csv = new StringBuilder(rows.size() * 96);
+        for (int i = 0; i < rows.size(); i++) {
+            ObservationImportReader.Row row = rows.get(i);
+            GeoGrid.Point point = GeoGrid.parse(row.location());
+            csv.append(ids[i]).append(',');
+            csv.append(speciesId(row)).append(',');
+            quote(csv, row.location()).append(',');
+            // An unquoted empty field is NULL in COPY's csv format
+            if (point != null) {
+                csv.append(point.latitude()).append(',').append(point.longitude()).append(',')
+                        .append(GeoGrid.cellOf(point.latitude(), point.longitude())).append(',');
+            } else {
+                csv.append(",,,");
+            }
+            csv.append(row.dateTime()).append(',');
+            quote(csv, row.notes()).append(',');
+            csv.append(userId).append('\n');
+        }
+
+        // Runs on the transaction's connection, so the COPY commits or rolls back with the stats update.
+        // The unwrapped connection is past the profiling proxy, hence the explicit record.
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            long started = System.nanoTime();
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            } finally {
+                sqlProfiler.recordStatement(COPY_SQL, System.nanoTime() - started);
+            }
+        });
+    }
+
+    private int speciesId(ObservationImportReader.Row row) {
+        return speciesCatalogService.resolve(row.speciesCode(), row.familyCode()).getId();
+    }
+
+    private static StringBuilder quote(StringBuilder csv, String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+}
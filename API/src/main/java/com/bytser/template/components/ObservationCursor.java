@@ -0,0 +1,30 @@
+package com.bytser.template.components;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.bytser.template.exceptions.BadRequestException;
+
+// Keyset position in a newest-first observation list: the (dateTime, id) of the last row of the previous page.
+// Sent to clients as an opaque url-safe string, so the encoding can change without breaking the API shape.
+public record ObservationCursor(LocalDateTime dateTime, long observationId) {
+
+    public String encode() {
+        String raw = dateTime + "|" + observationId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ObservationCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new ObservationCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException exception) {
+            throw new BadRequestException("Ongeldige cursor");
+        }
+    }
+}
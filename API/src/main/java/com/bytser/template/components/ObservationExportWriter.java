@@ -0,0 +1,160 @@
+package com.bytser.template.components;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import com.bytser.template.models.Observation;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+// Streaming serializer for observation exports, the counterpart of ObservationImportReader:
+// every row goes straight to the writer, so memory does not grow with the export.
+// NDJSON: one JSON object per line. CSV: a header line, then one observation per line (RFC 4180 quoting).
+// Both formats can be uploaded again through the import endpoint.
+public abstract class ObservationExportWriter {
+
+    protected final Writer writer;
+
+    protected ObservationExportWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public static ObservationExportWriter ndjson(Writer writer, ObjectMapper objectMapper) {
+        return new Ndjson(writer, objectMapper);
+    }
+
+    public static ObservationExportWriter csv(Writer writer) {
+        return new Csv(writer);
+    }
+
+    public abstract void write(Observation observation);
+
+    // Pushes everything buffered so far to the writer, the caller still owns (and closes) it
+    public void finish() {
+        try {
+            writer.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    // Same ISO format as the JSON responses, seconds are always written
+    protected static String format(LocalDateTime dateTime) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime);
+    }
+
+    private static final class Ndjson extends ObservationExportWriter {
+
+        private final JsonGenerator generator;
+
+        private Ndjson(Writer writer, ObjectMapper objectMapper) {
+            super(writer);
+            // One generator for the whole export, its buffers are reused for every row
+            this.generator = objectMapper.writer().withRootValueSeparator("\n").createGenerator(writer);
+        }
+
+        @Override
+        public void write(Observation observation) {
+            generator.writeStartObject();
+            if (observation.getObservationID() == null) {
+                generator.writeNullProperty("observationId");
+            } else {
+                generator.writeNumberProperty("observationId", observation.getObservationID());
+            }
+            generator.writeStringProperty("speciesCode", observation.getSpeciesCode());
+            generator.writeStringProperty("familyCode", observation.getFamilyCode());
+            generator.writeStringProperty("location", observation.getLocation());
+            generator.writeStringProperty("dateTime", format(observation.getDateTime()));
+            generator.writeStringProperty("notes", observation.getNotes());
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() {
+            // The root value separator only goes between rows, end the last line as well
+            generator.writeRaw('\n');
+            generator.flush();
+            super.finish();
+        }
+    }
+
+    private static final class Csv extends ObservationExportWriter {
+
+        private static final String HEADER = "observationId,speciesCode,familyCode,location,dateTime,notes\n";
+
+        private boolean headerWritten;
+
+        private Csv(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(Observation observation) {
+            try {
+                if (!headerWritten) {
+                    writer.write(HEADER);
+                    headerWritten = true;
+                }
+                if (observation.getObservationID() != null) {
+                    writer.write(Long.toString(observation.getObservationID()));
+                }
+                writer.write(',');
+                writeField(observation.getSpeciesCode());
+                writer.write(',');
+                writeField(observation.getFamilyCode());
+                writer.write(',');
+                writeField(observation.getLocation());
+                writer.write(',');
+                writer.write(format(observation.getDateTime()));
+                writer.write(',');
+                writeField(observation.getNotes());
+                writer.write('\n');
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public void finish() {
+            // An empty export still gets its header, so it can be imported again
+            if (!headerWritten) {
+                try {
+                    writer.write(HEADER);
+                    headerWritten = true;
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            super.finish();
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+    }
+}
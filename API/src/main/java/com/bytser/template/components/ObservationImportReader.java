@@ -0,0 +1,235 @@
+package com.bytser.template.components;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+// Streaming parser for observation uploads: reads one line at a time, so memory does not grow with the file.
+// NDJSON: one JSON object per line. CSV: a header line naming the columns, then one observation per line
+// (RFC 4180 quoting, a quoted field cannot span lines). Blank lines are skipped.
+// Every call to next() returns either a valid row or a rejection with the line number and the reason.
+public abstract class ObservationImportReader {
+
+    private static final int MAX_LENGTH = 255;
+
+    public record Row(long line, String speciesCode, String familyCode, String location, LocalDateTime dateTime,
+            String notes) {
+    }
+
+    public record Rejection(long line, String reason) {
+    }
+
+    // Exactly one of row / rejection is set
+    public record Result(Row row, Rejection rejection) {
+    }
+
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    protected ObservationImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    public static ObservationImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new Ndjson(reader, objectMapper);
+    }
+
+    public static ObservationImportReader csv(BufferedReader reader) {
+        return new Csv(reader);
+    }
+
+    // null at the end of the input
+    public Result next() {
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                return new Result(parse(line), null);
+            } catch (IllegalArgumentException exception) {
+                return new Result(null, new Rejection(lineNumber, exception.getMessage()));
+            }
+        }
+        return null;
+    }
+
+    protected abstract Row parse(String line);
+
+    protected long lineNumber() {
+        return lineNumber;
+    }
+
+    protected String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    protected Row row(String speciesCode, String familyCode, String location, String dateTime, String notes) {
+        return new Row(
+                lineNumber,
+                required("speciesCode", speciesCode),
+                required("familyCode", familyCode),
+                required("location", location),
+                parseDateTime(dateTime),
+                notes == null ? "" : limited("notes", notes)
+        );
+    }
+
+    private static String required(String field, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is verplicht");
+        }
+        return limited(field, value.trim());
+    }
+
+    private static String limited(String field, String value) {
+        if (value.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException(field + " is langer dan " + MAX_LENGTH + " tekens");
+        }
+        return value;
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("dateTime is verplicht");
+        }
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("dateTime '" + value + "' is geen geldige datum (yyyy-MM-ddTHH:mm:ss)");
+        }
+    }
+
+    private static final class Ndjson extends ObservationImportReader {
+
+        private final ObjectMapper objectMapper;
+
+        private Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        protected Row parse(String line) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JacksonException exception) {
+                throw new IllegalArgumentException("Ongeldige JSON: " + exception.getOriginalMessage());
+            }
+            if (node == null || !node.isObject()) {
+                throw new IllegalArgumentException("Verwacht een JSON object per regel");
+            }
+            return row(text(node, "speciesCode"), text(node, "familyCode"), text(node, "location"),
+                    text(node, "dateTime"), text(node, "notes"));
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asString();
+        }
+    }
+
+    private static final class Csv extends ObservationImportReader {
+
+        private static final List<String> COLUMNS = List.of("speciesCode", "familyCode", "location", "dateTime", "notes");
+
+        // Position of each of COLUMNS in the file, -1 when the column is missing (only allowed for notes)
+        private int[] columnIndex;
+
+        private Csv(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public Result next() {
+            if (columnIndex == null) {
+                String header;
+                while ((header = readLine()) != null && header.isBlank()) {
+                    // Skip leading blank lines
+                }
+                if (header == null) {
+                    return null;
+                }
+                readHeader(header);
+            }
+            return super.next();
+        }
+
+        private void readHeader(String header) {
+            List<String> names = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+            columnIndex = new int[COLUMNS.size()];
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                columnIndex[column] = -1;
+                for (int i = 0; i < names.size(); i++) {
+                    if (names.get(i).trim().equalsIgnoreCase(COLUMNS.get(column))) {
+                        columnIndex[column] = i;
+                    }
+                }
+                if (columnIndex[column] < 0 && !COLUMNS.get(column).equals("notes")) {
+                    throw new IllegalArgumentException("CSV header mist kolom " + COLUMNS.get(column));
+                }
+            }
+        }
+
+        @Override
+        protected Row parse(String line) {
+            List<String> fields = split(line);
+            return row(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3), field(fields, 4));
+        }
+
+        private String field(List<String> fields, int column) {
+            int index = columnIndex[column];
+            return index < 0 || index >= fields.size() ? null : fields.get(index);
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+
+            if (quoted) {
+                throw new IllegalArgumentException("Aanhalingsteken niet afgesloten");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
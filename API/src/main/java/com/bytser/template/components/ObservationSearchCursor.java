@@ -0,0 +1,28 @@
+package com.bytser.template.components;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.bytser.template.exceptions.BadRequestException;
+
+// Keyset position in a ranked search result: the (rank, id) of the last row of the previous page.
+// Float.toString round-trips the rank exactly, so the next page continues right after that row.
+public record ObservationSearchCursor(float rank, long observationId) {
+
+    public String encode() {
+        String raw = rank + "|" + observationId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ObservationSearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new ObservationSearchCursor(
+                    Float.parseFloat(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new BadRequestException("Ongeldige cursor");
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.bytser.template.dtos.responses.SpeciesStatsResponse;
+import com.bytser.template.dtos.responses.UserStatsResponse;
+
+// Single-pass aggregation of observations into a UserStatsResponse.
+// Species and family codes are dictionary-encoded to dense int ids, every counter lives in a primitive array
+// and timestamps are kept as epoch microseconds (the precision of the timestamp(6) columns).
+// Feed it raw observations with add(species, family, dateTime) or pre-aggregated rows with the count overload.
+// Not thread-safe: create one engine per computation.
+public final class ObservationStatsEngine {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final CodeDictionary speciesIds = new CodeDictionary();
+    private final CodeDictionary familyIds = new CodeDictionary();
+    private final PairIndex pairIds = new PairIndex();
+
+    // Per species id
+    private long[] speciesCount = new long[INITIAL_CAPACITY];
+    private long[] speciesLatest = new long[INITIAL_CAPACITY];
+    private int[] speciesFamily = new int[INITIAL_CAPACITY];
+
+    // Per family id
+    private long[] familyCount = new long[INITIAL_CAPACITY];
+
+    // Per species/family pair id
+    private int[] pairSpecies = new int[INITIAL_CAPACITY];
+    private int[] pairFamily = new int[INITIAL_CAPACITY];
+    private long[] pairCount = new long[INITIAL_CAPACITY];
+    private long[] pairLatest = new long[INITIAL_CAPACITY];
+
+    private long totalObservations;
+    private long firstObservation = Long.MAX_VALUE;
+    private long lastObservation = Long.MIN_VALUE;
+
+    // Running maxima: the first code to reach the highest count wins a tie
+    private int bestSpecies = -1;
+    private long bestSpeciesCount;
+    private int bestFamily = -1;
+    private long bestFamilyCount;
+
+    public void add(String speciesCode, String familyCode, LocalDateTime dateTime) {
+        long micros = toEpochMicros(dateTime);
+        add(speciesCode, familyCode, 1, micros, micros);
+    }
+
+    public void add(String speciesCode, String familyCode, long count, LocalDateTime earliest, LocalDateTime latest) {
+        add(speciesCode, familyCode, count, toEpochMicros(earliest), toEpochMicros(latest));
+    }
+
+    private void add(String speciesCode, String familyCode, long count, long earliest, long latest) {
+        int species = speciesIds.idOf(speciesCode);
+        int family = familyIds.idOf(familyCode);
+
+        if (species >= speciesCount.length) {
+            growSpecies();
+        }
+        if (family >= familyCount.length) {
+            familyCount = Arrays.copyOf(familyCount, familyCount.length * 2);
+        }
+
+        // Species
+        if (speciesCount[species] == 0) {
+            speciesFamily[species] = family;
+            speciesLatest[species] = latest;
+        } else if (latest > speciesLatest[species]) {
+            speciesLatest[species] = latest;
+        }
+        speciesCount[species] += count;
+        if (speciesCount[species] > bestSpeciesCount) {
+            bestSpeciesCount = speciesCount[species];
+            bestSpecies = species;
+        }
+
+        // Family
+        familyCount[family] += count;
+        if (familyCount[family] > bestFamilyCount) {
+            bestFamilyCount = familyCount[family];
+            bestFamily = family;
+        }
+
+        // Species within family
+        int pair = pairIds.idOf(species, family);
+        if (pair >= pairCount.length) {
+            growPairs();
+        }
+        if (pairCount[pair] == 0) {
+            pairSpecies[pair] = species;
+            pairFamily[pair] = family;
+            pairLatest[pair] = latest;
+        } else if (latest > pairLatest[pair]) {
+            pairLatest[pair] = latest;
+        }
+        pairCount[pair] += count;
+
+        // Whole history
+        totalObservations += count;
+        if (earliest < firstObservation) {
+            firstObservation = earliest;
+        }
+        if (latest > lastObservation) {
+            lastObservation = latest;
+        }
+    }
+
+    public long getTotalObservations() {
+        return totalObservations;
+    }
+
+    public int getUniqueSpecies() {
+        return speciesIds.size();
+    }
+
+    public int getUniqueFamilies() {
+        return familyIds.size();
+    }
+
+    public Duration getAverageTimeBetweenObservations() {
+        if (totalObservations <= 1) {
+            return Duration.ZERO;
+        }
+        // Sorted consecutive gaps add up to last - first
+        return Duration.of(lastObservation - firstObservation, ChronoUnit.MICROS).dividedBy(totalObservations - 1);
+    }
+
+    public SpeciesStatsResponse getMostObservedSpecies() {
+        if (bestSpecies < 0) {
+            return null;
+        }
+        return new SpeciesStatsResponse(
+                speciesIds.codeOf(bestSpecies),
+                familyIds.codeOf(speciesFamily[bestSpecies]),
+                (int) speciesCount[bestSpecies],
+                fromEpochMicros(speciesLatest[bestSpecies])
+        );
+    }
+
+    public List<SpeciesStatsResponse> getMostObservedFamily() {
+        if (bestFamily < 0) {
+            return Collections.emptyList();
+        }
+
+        List<SpeciesStatsResponse> result = new ArrayList<>();
+        for (int pair = 0; pair < pairIds.size(); pair++) {
+            if (pairFamily[pair] != bestFamily) {
+                continue;
+            }
+            result.add(new SpeciesStatsResponse(
+                    speciesIds.codeOf(pairSpecies[pair]),
+                    familyIds.codeOf(bestFamily),
+                    (int) pairCount[pair],
+                    fromEpochMicros(pairLatest[pair])
+            ));
+        }
+
+        // Most recently observed species first
+        result.sort((a, b) -> b.getLatestObservation().compareTo(a.getLatestObservation()));
+        return result;
+    }
+
+    public UserStatsResponse toResponse() {
+        return new UserStatsResponse(
+                (int) totalObservations,
+                getUniqueSpecies(),
+                getUniqueFamilies(),
+                DurationFormatter.format(getAverageTimeBetweenObservations()),
+                getMostObservedSpecies(),
+                getMostObservedFamily()
+        );
+    }
+
+    private void growSpecies() {
+        int capacity = speciesCount.length * 2;
+        speciesCount = Arrays.copyOf(speciesCount, capacity);
+        speciesLatest = Arrays.copyOf(speciesLatest, capacity);
+        speciesFamily = Arrays.copyOf(speciesFamily, capacity);
+    }
+
+    private void growPairs() {
+        int capacity = pairCount.length * 2;
+        pairSpecies = Arrays.copyOf(pairSpecies, capacity);
+        pairFamily = Arrays.copyOf(pairFamily, capacity);
+        pairCount = Arrays.copyOf(pairCount, capacity);
+        pairLatest = Arrays.copyOf(pairLatest, capacity);
+    }
+
+    static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                ZoneOffset.UTC);
+    }
+
+    // Open addressing String -> dense int id (0, 1, 2, ...) in insertion order
+    private static final class CodeDictionary {
+
+        private String[] keys = new String[INITIAL_CAPACITY * 2];
+        private int[] ids = new int[INITIAL_CAPACITY * 2];
+        private String[] codes = new String[INITIAL_CAPACITY];
+        private int size;
+
+        int idOf(String code) {
+            int mask = keys.length - 1;
+            int slot = mix(code.hashCode()) & mask;
+            while (keys[slot] != null) {
+                if (keys[slot].equals(code)) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = size++;
+            keys[slot] = code;
+            ids[slot] = id;
+            if (id >= codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            codes[id] = code;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        String codeOf(int id) {
+            return codes[id];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void rehash() {
+            String[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = new String[oldKeys.length * 2];
+            ids = new int[oldIds.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) {
+                    continue;
+                }
+                int slot = mix(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+
+    // Open addressing (speciesId, familyId) -> dense int id, the pair is packed into one long key
+    private static final class PairIndex {
+
+        private static final long EMPTY = -1L;
+
+        private long[] keys = newKeys(INITIAL_CAPACITY * 2);
+        private int[] ids = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        int idOf(int species, int family) {
+            long key = ((long) species << 32) | family;
+            int mask = keys.length - 1;
+            int slot = mix(Long.hashCode(key)) & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == key) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            int id = size++;
+            keys[slot] = key;
+            ids[slot] = id;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldIds = ids;
+            keys = newKeys(oldKeys.length * 2);
+            ids = new int[oldIds.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) {
+                    continue;
+                }
+                int slot = mix(Long.hashCode(oldKeys[i])) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+
+    // Spread the hash bits so sequential codes do not cluster in the low slots
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
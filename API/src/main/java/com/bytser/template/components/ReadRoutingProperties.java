@@ -0,0 +1,111 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// datasource.routing.* settings for the read side of the routing datasource.
+// Without replicas the single spring.datasource.read target is used, so existing deployments keep working.
+@ConfigurationProperties("datasource.routing")
+public class ReadRoutingProperties {
+
+    public enum Balancer {
+        ROUND_ROBIN,
+        LEAST_ACTIVE
+    }
+
+    private Balancer balancer = Balancer.ROUND_ROBIN;
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration healthCheckTimeout = Duration.ofSeconds(2);
+    private Duration maxReplicationLag = Duration.ofSeconds(10);
+    private Duration replicaConnectionTimeout = Duration.ofSeconds(3);
+    private List<Replica> replicas = new ArrayList<>();
+
+    public Balancer getBalancer() {
+        return balancer;
+    }
+    public void setBalancer(Balancer balancer) {
+        this.balancer = balancer;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public Duration getHealthCheckTimeout() {
+        return healthCheckTimeout;
+    }
+    public void setHealthCheckTimeout(Duration healthCheckTimeout) {
+        this.healthCheckTimeout = healthCheckTimeout;
+    }
+
+    public Duration getMaxReplicationLag() {
+        return maxReplicationLag;
+    }
+    public void setMaxReplicationLag(Duration maxReplicationLag) {
+        this.maxReplicationLag = maxReplicationLag;
+    }
+
+    public Duration getReplicaConnectionTimeout() {
+        return replicaConnectionTimeout;
+    }
+    public void setReplicaConnectionTimeout(Duration replicaConnectionTimeout) {
+        this.replicaConnectionTimeout = replicaConnectionTimeout;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public static class Replica {
+
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+    }
+}
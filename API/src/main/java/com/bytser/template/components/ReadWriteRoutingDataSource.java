@@ -3,11 +3,32 @@ package com.bytser.template.components;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Routes read-only transactions to READ and everything else to WRITE.
+// Every decision is counted in datasource.routing.decisions with tag target=read|write.
 public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
 
+    private final Counter readDecisions;
+    private final Counter writeDecisions;
+
+    public ReadWriteRoutingDataSource(MeterRegistry meterRegistry) {
+        this.readDecisions = decisionCounter(meterRegistry, DataSourceType.READ);
+        this.writeDecisions = decisionCounter(meterRegistry, DataSourceType.WRITE);
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
         boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        (readOnly ? readDecisions : writeDecisions).increment();
         return readOnly ? DataSourceType.READ : DataSourceType.WRITE;
     }
-}
\ No newline at end of file
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, DataSourceType type) {
+        return Counter.builder("datasource.routing.decisions")
+                .tag("target", type.name().toLowerCase())
+                .description("Connections routed to the read or the write datasource")
+                .register(meterRegistry);
+    }
+}
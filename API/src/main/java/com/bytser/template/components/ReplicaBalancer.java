@@ -0,0 +1,54 @@
+package com.bytser.template.components;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Picks the replica that serves the next read connection, only ever called with a non-empty list of healthy replicas
+public interface ReplicaBalancer {
+
+    ReplicaTarget choose(List<ReplicaTarget> healthyReplicas);
+
+    static ReplicaBalancer of(ReadRoutingProperties.Balancer balancer) {
+        return switch (balancer) {
+            case ROUND_ROBIN -> new RoundRobin();
+            case LEAST_ACTIVE -> new LeastActive();
+        };
+    }
+
+    // Spreads connections evenly, the default
+    final class RoundRobin implements ReplicaBalancer {
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Override
+        public ReplicaTarget choose(List<ReplicaTarget> healthyReplicas) {
+            int index = Math.floorMod(next.getAndIncrement(), healthyReplicas.size());
+            return healthyReplicas.get(index);
+        }
+    }
+
+    // Prefers the pool with the fewest borrowed connections, so a slow replica gets less new work
+    final class LeastActive implements ReplicaBalancer {
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        @Override
+        public ReplicaTarget choose(List<ReplicaTarget> healthyReplicas) {
+            // Start at a rotating offset so ties do not all land on the first replica
+            int size = healthyReplicas.size();
+            int offset = Math.floorMod(next.getAndIncrement(), size);
+
+            ReplicaTarget best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                ReplicaTarget replica = healthyReplicas.get((offset + i) % size);
+                int active = replica.getActiveConnections();
+                if (active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+            return best;
+        }
+    }
+}
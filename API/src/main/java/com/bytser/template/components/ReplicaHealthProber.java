@@ -0,0 +1,90 @@
+package com.bytser.template.components;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Background health check of every read replica.
+// A replica is ejected when it cannot answer within the timeout or lags more than max-replication-lag behind
+// the primary, and re-admitted by the first probe that passes again.
+@Component
+public class ReplicaHealthProber {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaHealthProber.class);
+
+    // Seconds since the last replayed transaction, 0 when everything received is replayed (an idle primary is not lag),
+    // and the replayed WAL position that consistency tokens are compared against
+    private static final String POSTGRES_LAG_SQL = """
+            SELECT CASE
+                    WHEN NOT pg_is_in_recovery() THEN 0
+                    WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                    ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                END,
+                CASE
+                    WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn()
+                    ELSE pg_current_wal_lsn()
+                END::text""";
+
+    private final LoadBalancedReadDataSource readDataSource;
+    private final Duration timeout;
+    private final Duration maxReplicationLag;
+
+    public ReplicaHealthProber(LoadBalancedReadDataSource readDataSource, ReadRoutingProperties properties) {
+        this.readDataSource = readDataSource;
+        this.timeout = properties.getHealthCheckTimeout();
+        this.maxReplicationLag = properties.getMaxReplicationLag();
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.health-check-interval:5s}")
+    public void probe() {
+        for (ReplicaTarget replica : readDataSource.getReplicas()) {
+            boolean healthy;
+            try {
+                Duration lag = replicationLag(replica);
+                replica.setReplicationLag(lag);
+                healthy = lag.compareTo(maxReplicationLag) <= 0;
+
+                if (!healthy && replica.isHealthy()) {
+                    log.warn("Read replica {} ejected, replication lag {} exceeds {}", replica.getName(), lag, maxReplicationLag);
+                }
+            } catch (SQLException exception) {
+                healthy = false;
+                if (replica.isHealthy()) {
+                    log.warn("Read replica {} ejected, health check failed: {}", replica.getName(), exception.getMessage());
+                }
+            }
+
+            if (healthy && !replica.isHealthy()) {
+                log.info("Read replica {} healthy again, routing reads to it", replica.getName());
+            }
+            replica.setHealthy(healthy);
+        }
+    }
+
+    private Duration replicationLag(ReplicaTarget replica) throws SQLException {
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, timeout.toSeconds()));
+
+            // Other databases (H2 in development) only get a liveness check
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                statement.execute("SELECT 1");
+                return Duration.ZERO;
+            }
+
+            try (ResultSet resultSet = statement.executeQuery(POSTGRES_LAG_SQL)) {
+                resultSet.next();
+                String replayedLsn = resultSet.getString(2);
+                replica.setReplayedLsn(replayedLsn == null ? 0 : ConsistencyToken.parse(replayedLsn));
+                return Duration.ofMillis(Math.round(resultSet.getDouble(1) * 1000));
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+// One read replica behind the READ key: its pool plus the state kept up to date by the ReplicaHealthProber
+public class ReplicaTarget {
+
+    private final String name;
+    private final DataSource dataSource;
+
+    private volatile boolean healthy = true;
+    private volatile Duration replicationLag = Duration.ZERO;
+    private volatile long replayedLsn;
+
+    public ReplicaTarget(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+    public void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public Duration getReplicationLag() {
+        return replicationLag;
+    }
+    public void setReplicationLag(Duration replicationLag) {
+        this.replicationLag = replicationLag;
+    }
+
+    // WAL position this replica had replayed at the last probe, 0 when unknown (not PostgreSQL)
+    public long getReplayedLsn() {
+        return replayedLsn;
+    }
+    public void setReplayedLsn(long replayedLsn) {
+        this.replayedLsn = replayedLsn;
+    }
+
+    // Connections currently handed out by the pool, 0 when the pool has not started yet or is not Hikari
+    public int getActiveConnections() {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+}
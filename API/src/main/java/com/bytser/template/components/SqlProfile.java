@@ -0,0 +1,88 @@
+package com.bytser.template.components;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The SQL a thread ran between SqlProfiler.start() and stop(): statements, time spent executing them,
+// rows read from their result sets, executions per distinct SQL text and the statements that ran slow.
+// Profiles nest (a test around a MockMvc request, the filter inside it), a statement counts for every open profile.
+public final class SqlProfile {
+
+    private final SqlProfile parent;
+
+    private int statements;
+    private long jdbcNanos;
+    private long rowsFetched;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private final List<String> slowStatements = new ArrayList<>();
+
+    SqlProfile(SqlProfile parent) {
+        this.parent = parent;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public double getJdbcMillis() {
+        return jdbcNanos / 1_000_000.0;
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    public List<String> getSlowStatements() {
+        return Collections.unmodifiableList(slowStatements);
+    }
+
+    // SQL texts that ran at least `threshold` times, most executed first: the usual shape of an N+1 query
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executionsBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    public String summary() {
+        return String.format("%d statements in %.1f ms, %d rows fetched", statements, getJdbcMillis(), rowsFetched);
+    }
+
+    //
+    // Recording, called by SqlProfiler on the owning thread
+    //
+
+    SqlProfile getParent() {
+        return parent;
+    }
+
+    void statementExecuted(String sql, long nanos) {
+        for (SqlProfile profile = this; profile != null; profile = profile.parent) {
+            profile.statements++;
+            profile.jdbcNanos += nanos;
+            profile.executionsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void rowFetched() {
+        for (SqlProfile profile = this; profile != null; profile = profile.parent) {
+            profile.rowsFetched++;
+        }
+    }
+
+    void slowStatement(String description) {
+        for (SqlProfile profile = this; profile != null; profile = profile.parent) {
+            profile.slowStatements.add(description);
+        }
+    }
+}
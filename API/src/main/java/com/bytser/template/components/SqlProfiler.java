@@ -0,0 +1,174 @@
+package com.bytser.template.components;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+// JDBC-level SQL profiling through datasource-proxy: every statement run through the wrapped DataSource
+// (JPA, JdbcTemplate and cursors alike) is counted into the SqlProfile open on the current thread.
+// A COPY goes through the driver's own API on the unwrapped connection, its caller records it with recordStatement().
+// Statements slower than sql.profiling.slow-statement-threshold are logged with the shape of their bind parameters
+// (position and type, never the values). With sql.profiling.enabled=false nothing is wrapped and profiles stay empty.
+@Component
+public class SqlProfiler implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlProfiler.class);
+
+    private static final ThreadLocal<SqlProfile> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<long[]> STARTED_AT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final boolean enabled;
+    private final long slowStatementMillis;
+
+    public SqlProfiler(
+            @Value("${sql.profiling.enabled:true}") boolean enabled,
+            @Value("${sql.profiling.slow-statement-threshold:250ms}") Duration slowStatementThreshold
+    ) {
+        this.enabled = enabled;
+        this.slowStatementMillis = slowStatementThreshold.toMillis();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Result sets are proxied too, that is where the fetched rows are counted
+    public DataSource wrap(DataSource dataSource) {
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name("profiled")
+                .listener(this)
+                .methodListener(this)
+                .proxyResultSet()
+                .build();
+    }
+
+    public SqlProfile start() {
+        SqlProfile profile = new SqlProfile(CURRENT.get());
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    // Closes the profile and reopens the one around it, if any
+    public void stop(SqlProfile profile) {
+        if (profile.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(profile.getParent());
+        }
+    }
+
+    // For SQL the proxy cannot see; counted and checked against the slow threshold like any other statement
+    public void recordStatement(String sql, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        SqlProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.statementExecuted(sql, nanos);
+        }
+
+        long millis = nanos / 1_000_000;
+        if (millis >= slowStatementMillis) {
+            String description = millis + " ms: " + sql;
+            log.warn("Slow SQL: {}", description);
+            if (profile != null) {
+                profile.slowStatement(description);
+            }
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+        STARTED_AT.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+        long nanos = System.nanoTime() - STARTED_AT.get()[0];
+        SqlProfile profile = CURRENT.get();
+
+        if (profile != null) {
+            for (QueryInfo query : queries) {
+                // A statement with several SQL texts (Statement.addBatch) shares its time over the first one
+                profile.statementExecuted(query.getQuery(), query == queries.get(0) ? nanos : 0);
+            }
+        }
+
+        if (executionInfo.getElapsedTime() >= slowStatementMillis) {
+            String description = describe(executionInfo, queries);
+            log.warn("Slow SQL: {}", description);
+            if (profile != null) {
+                profile.slowStatement(description);
+            }
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        // Only the results are of interest
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            SqlProfile profile = CURRENT.get();
+            if (profile != null) {
+                profile.rowFetched();
+            }
+        }
+    }
+
+    //
+    // Helper functions
+    //
+
+    // e.g. "312 ms, batch of 50: INSERT INTO observation (...) VALUES (?, ?, ?) [1:Long, 2:Timestamp, 3:Null]"
+    private static String describe(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+        StringBuilder description = new StringBuilder().append(executionInfo.getElapsedTime()).append(" ms");
+        if (executionInfo.isBatch()) {
+            description.append(", batch of ").append(executionInfo.getBatchSize());
+        }
+
+        for (QueryInfo query : queries) {
+            description.append(": ").append(query.getQuery());
+            List<List<ParameterSetOperation>> parameterSets = query.getParametersList();
+            if (!parameterSets.isEmpty()) {
+                // The first set stands for the batch, every set of a batch has the same shape
+                description.append(' ').append(parameterShape(parameterSets.get(0)));
+            }
+        }
+        return description.toString();
+    }
+
+    private static String parameterShape(List<ParameterSetOperation> parameters) {
+        StringJoiner shape = new StringJoiner(", ", "[", "]");
+        for (ParameterSetOperation parameter : parameters) {
+            Object[] args = parameter.getArgs();
+            String type = parameter.getMethod().getName().substring("set".length());
+            // setObject says nothing by itself, the value's class does
+            if ("Object".equals(type) && args.length > 1 && args[1] != null) {
+                type = args[1].getClass().getSimpleName();
+            }
+            shape.add(args[0] + ":" + type);
+        }
+        return shape.toString();
+    }
+}
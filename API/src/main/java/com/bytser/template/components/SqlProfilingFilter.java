@@ -0,0 +1,131 @@
+package com.bytser.template.components;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// Profiles the SQL of each request, including the lookups done by the security filters, see SqlProfiler.
+// Ordered first so the whole filter chain is counted, enable the per-request line with
+// logging.level.com.bytser.template.components.SqlProfilingFilter=DEBUG.
+// SQL texts repeated sql.profiling.n-plus-one-threshold times or more in one request are logged as a likely N+1.
+// With sql.profiling.response-headers=true (dev) the totals are also sent as X-SQL-* headers, taken when the
+// body starts: a streamed response only reports the statements that ran before its first byte.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlProfilingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlProfilingFilter.class);
+
+    private final SqlProfiler sqlProfiler;
+    private final boolean responseHeaders;
+    private final int nPlusOneThreshold;
+
+    public SqlProfilingFilter(
+            SqlProfiler sqlProfiler,
+            @Value("${sql.profiling.response-headers:false}") boolean responseHeaders,
+            @Value("${sql.profiling.n-plus-one-threshold:5}") int nPlusOneThreshold
+    ) {
+        this.sqlProfiler = sqlProfiler;
+        this.responseHeaders = responseHeaders;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !sqlProfiler.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlProfile profile = sqlProfiler.start();
+        ProfileHeaderResponse profiledResponse = responseHeaders ? new ProfileHeaderResponse(response, profile) : null;
+        try {
+            filterChain.doFilter(request, profiledResponse != null ? profiledResponse : response);
+        } finally {
+            sqlProfiler.stop(profile);
+            if (profiledResponse != null) {
+                profiledResponse.addProfileHeaders();   // Bodiless responses are still open here
+            }
+
+            log.debug("{} {} -> {} ran {}",
+                request.getMethod(), request.getRequestURI(), response.getStatus(), profile.summary());
+
+            Map<String, Integer> repeated = profile.getRepeatedStatements(nPlusOneThreshold);
+            repeated.forEach((sql, executions) -> log.warn("Possible N+1 in {} {}: {} executions of {}",
+                request.getMethod(), request.getRequestURI(), executions, sql));
+        }
+    }
+
+    //
+    // Helper classes
+    //
+
+    // Adds the X-SQL-* headers once, just before the response commits
+    private static final class ProfileHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlProfile profile;
+        private boolean added;
+
+        private ProfileHeaderResponse(HttpServletResponse response, SqlProfile profile) {
+            super(response);
+            this.profile = profile;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addProfileHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addProfileHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addProfileHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            addProfileHeaders();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            addProfileHeaders();
+            super.sendError(status);
+        }
+
+        private void addProfileHeaders() {
+            if (added || isCommitted()) {
+                return;
+            }
+            added = true;
+            setHeader("X-SQL-Statements", Integer.toString(profile.getStatements()));
+            setHeader("X-SQL-Time-Ms", String.format(Locale.ROOT, "%.1f", profile.getJdbcMillis()));
+            setHeader("X-SQL-Rows", Long.toString(profile.getRowsFetched()));
+        }
+    }
+}
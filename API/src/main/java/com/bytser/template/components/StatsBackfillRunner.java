@@ -0,0 +1,56 @@
+package com.bytser.template.components;
+
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.bytser.template.models.User;
+import com.bytser.template.repositories.UserRepository;
+import com.bytser.template.services.ObservationStatsService;
+
+// One-shot job that rebuilds the user_species_stats rows and monthly sketches of every user.
+// The Flyway migration already backfills PostgreSQL, this covers H2 and repairs after manual data fixes.
+// Enable with stats.backfill.enabled=true, each user is rebuilt in its own transaction.
+@Component
+@ConditionalOnProperty(name = "stats.backfill.enabled", havingValue = "true")
+public class StatsBackfillRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsBackfillRunner.class);
+    private static final int PAGE_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final ObservationStatsService observationStatsService;
+
+    public StatsBackfillRunner(UserRepository userRepository, ObservationStatsService observationStatsService) {
+        this.userRepository = userRepository;
+        this.observationStatsService = observationStatsService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int rebuilt = 0;
+        Slice<User> page = userRepository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+
+        while (true) {
+            for (User user : page) {
+                UUID userId = user.getId();
+                observationStatsService.rebuild(userId);
+                rebuilt++;
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = userRepository.findAll(page.nextPageable());
+        }
+
+        log.info("Rebuilt observation stats for {} users", rebuilt);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bytser.template.components;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.models.AuditAction;
+
+// Inserts one batch of provisioned users with a single JDBC batch in its own transaction on the write datasource.
+// Bypasses the persistence context: ids are generated here (random UUIDs, like the User entity's generator) and the
+// passwords arrive hashed. A taken username or email fails the whole batch, the caller sorts those rows out.
+@Component
+public class UserBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, ?)";
+
+    public record Row(long line, UUID id, String username, String email, String passwordHash) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditLog auditLog;
+
+    public UserBatchWriter(JdbcTemplate jdbcTemplate, AuditLog auditLog) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditLog = auditLog;
+    }
+
+    @Transactional(readOnly = false)
+    public void write(UUID actorId, List<Row> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException {
+                Row row = rows.get(index);
+                statement.setObject(1, row.id());
+                statement.setString(2, row.username());
+                statement.setString(3, row.email());
+                statement.setString(4, row.passwordHash());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+
+        // Queued once this batch commits
+        for (Row row : rows) {
+            auditLog.record(AuditAction.USER_CREATED, row.id(), actorId, "username=" + row.username());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bytser.template.dtos.responses.UserStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Bounded per-user cache of computed statistics (size + TTL eviction).
+// Writes that change a user's observations or profile call invalidate(), which evicts once the transaction commits.
+// The first load after that reads the primary: a replica may not have replayed the write yet, and caching what it
+// returns would serve the old numbers for the whole time-to-live. Later loads go to a replica again.
+// Every pod has its own cache and invalidate() only reaches the pod that handled the write: the other pod keeps
+// serving its entry until it expires, so across pods the stats can be up to time-to-live behind. Each entry keeps the
+// WAL position its load was served at (ConsistencyToken.served), a request that sends back a newer consistency token
+// refreshes the entry from a source that has replayed past the token. An older or equal token is served the entry.
+// Hits, misses, evictions and load time are published as cache.* metrics with tag cache=userStats.
+@Component
+public class UserStatsCache {
+
+    private static final String CACHE_NAME = "userStats";
+
+    // Kept to count the hits and misses of the token lookups, which peek at the entry without Caffeine counting them
+    private final StatsCounter statsCounter = new ConcurrentStatsCounter();
+    private final Cache<UUID, Entry> cache;
+    // Users whose next load must read the primary, marked per invalidation
+    private final Cache<UUID, Object> loadFromPrimary;
+
+    public UserStatsCache(
+            MeterRegistry meterRegistry,
+            @Value("${stats.cache.maximum-size:10000}") long maximumSize,
+            @Value("${stats.cache.time-to-live:5m}") Duration timeToLive
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats(() -> statsCounter)
+                .build();
+        // After time-to-live every replica within max-replication-lag has long replayed the write
+        this.loadFromPrimary = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .description("Share of lookups answered from the cache")
+                .register(meterRegistry);
+    }
+
+    // replicaLoader and primaryLoader compute the same stats, on a replica or on the primary
+    public UserStatsResponse get(UUID userId, Function<UUID, UserStatsResponse> replicaLoader,
+            Function<UUID, UserStatsResponse> primaryLoader) {
+        long requiredLsn = ConsistencyToken.requiredLsn();
+        if (requiredLsn == 0) {
+            return cache.get(userId, id -> load(id, replicaLoader, primaryLoader)).stats();
+        }
+
+        Entry cached = cache.policy().getIfPresentQuietly(userId);
+        if (cached != null && cached.lsn() >= requiredLsn) {
+            statsCounter.recordHits(1);
+            return cached.stats();
+        }
+
+        // The entry predates the caller's own write (handled by another pod): load on a replica that has replayed past
+        // the token, or the primary, and cache that instead. A concurrent request may have done so already.
+        statsCounter.recordMisses(1);
+        return cache.asMap().compute(userId, (id, current) -> current != null && current.lsn() >= requiredLsn
+                ? current
+                : load(id, replicaLoader, primaryLoader)).stats();
+    }
+
+    public void invalidate(UUID userId) {
+        // Evicting before commit would let a concurrent read re-cache the old state
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    //
+    // Helper functions
+    //
+
+    private Entry load(UUID userId, Function<UUID, UserStatsResponse> replicaLoader,
+            Function<UUID, UserStatsResponse> primaryLoader) {
+        ConsistencyToken.clearServed();
+        Object marker = loadFromPrimary.getIfPresent(userId);
+        if (marker == null) {
+            return loaded(replicaLoader.apply(userId));
+        }
+
+        Entry entry = loaded(primaryLoader.apply(userId));
+        // Only this marker: an invalidation that committed during the load leaves its own for the next one
+        loadFromPrimary.asMap().remove(userId, marker);
+        return entry;
+    }
+
+    // A load under a token ran on a source past it, without one the position is whatever the loader recorded (0: none)
+    private static Entry loaded(UserStatsResponse stats) {
+        return new Entry(stats, Math.max(ConsistencyToken.servedLsn(), ConsistencyToken.requiredLsn()));
+    }
+
+    private void evict(UUID userId) {
+        // Marked first, so the load that follows the eviction already sees it
+        loadFromPrimary.put(userId, new Object());
+        cache.invalidate(userId);
+    }
+
+    private record Entry(UserStatsResponse stats, long lsn) {
+    }
+}
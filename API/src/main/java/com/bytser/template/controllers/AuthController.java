@@ -0,0 +1,47 @@
+package com.bytser.template.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bytser.template.dtos.requests.LoginRequest;
+import com.bytser.template.dtos.responses.ApiErrorResponse;
+import com.bytser.template.dtos.responses.TokenResponse;
+import com.bytser.template.services.AuthService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("auth")
+public class AuthController {
+
+    private final AuthService authService;
+
+    public AuthController(AuthService authService) {
+        this.authService = authService;
+    }
+
+    @Operation(summary = "Log in and receive a bearer access token")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = TokenResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Ongeldige gebruikersnaam of wachtwoord",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        )
+    })
+    @PostMapping("/login")
+    @ResponseStatus(HttpStatus.OK)
+    public TokenResponse login(
+            @Valid @RequestBody LoginRequest loginRequest) {
+        return authService.login(loginRequest);
+    }
+}
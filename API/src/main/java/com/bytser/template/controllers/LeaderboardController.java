@@ -0,0 +1,91 @@
+package com.bytser.template.controllers;
+
+import java.time.LocalDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bytser.template.dtos.responses.DistinctCountResponse;
+import com.bytser.template.dtos.responses.LeaderboardEntryResponse;
+import com.bytser.template.dtos.responses.LeaderboardResponse;
+import com.bytser.template.dtos.responses.ObserverRankResponse;
+import com.bytser.template.services.LeaderboardService;
+import com.bytser.template.services.ObservationSketchService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+@RestController
+@RequestMapping("leaderboards")
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+    private final ObservationSketchService observationSketchService;
+
+    public LeaderboardController(LeaderboardService leaderboardService, ObservationSketchService observationSketchService) {
+        this.leaderboardService = leaderboardService;
+        this.observationSketchService = observationSketchService;
+    }
+
+    @Operation(summary = "Most observed species platform-wide",
+        description = "Served from a snapshot refreshed every few minutes, see refreshedAt")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/species")
+    @ResponseStatus(HttpStatus.OK)
+    public LeaderboardResponse<LeaderboardEntryResponse> getTopSpecies(
+            @RequestParam(defaultValue = "10") int limit) {
+        return leaderboardService.getTopSpecies(limit);
+    }
+
+    @Operation(summary = "Most observed families platform-wide",
+        description = "Served from a snapshot refreshed every few minutes, see refreshedAt")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/families")
+    @ResponseStatus(HttpStatus.OK)
+    public LeaderboardResponse<LeaderboardEntryResponse> getTopFamilies(
+            @RequestParam(defaultValue = "10") int limit) {
+        return leaderboardService.getTopFamilies(limit);
+    }
+
+    @Operation(summary = "Users with the most observations of a species",
+        description = "Served from a snapshot refreshed every few minutes, see refreshedAt")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/species/{speciesCode}/observers")
+    @ResponseStatus(HttpStatus.OK)
+    public LeaderboardResponse<ObserverRankResponse> getTopObservers(@PathVariable String speciesCode) {
+        return leaderboardService.getTopObservers(speciesCode);
+    }
+
+    @Operation(summary = "Approximate unique species and families platform-wide",
+        description = "Merged from the monthly HyperLogLog sketches of every user, from and to are widened to whole months. "
+            + "The fields listed in approximate carry the given relative standard error")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "400", description = "Bad request - from moet voor to liggen"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/distinct")
+    @ResponseStatus(HttpStatus.OK)
+    public DistinctCountResponse getDistinctCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return observationSketchService.estimateForPlatform(from, to);
+    }
+}
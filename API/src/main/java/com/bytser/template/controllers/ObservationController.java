@@ -0,0 +1,273 @@
+package com.bytser.template.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bytser.template.dtos.requests.CreateObservationRequest;
+import com.bytser.template.dtos.requests.UpdateObservationRequest;
+import com.bytser.template.dtos.responses.ApiErrorResponse;
+import com.bytser.template.dtos.responses.ImportResponse;
+import com.bytser.template.dtos.responses.NearbyObservationResponse;
+import com.bytser.template.dtos.responses.ObservationPageResponse;
+import com.bytser.template.dtos.responses.ObservationResponse;
+import com.bytser.template.services.ObservationExportService;
+import com.bytser.template.services.ObservationGeoService;
+import com.bytser.template.services.ObservationImportService;
+import com.bytser.template.services.ObservationSearchService;
+import com.bytser.template.services.ObservationService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("observations")
+public class ObservationController {
+
+    private final ObservationService observationService;
+    private final ObservationImportService observationImportService;
+    private final ObservationExportService observationExportService;
+    private final ObservationGeoService observationGeoService;
+    private final ObservationSearchService observationSearchService;
+
+    public ObservationController(ObservationService observationService,
+            ObservationImportService observationImportService, ObservationExportService observationExportService,
+            ObservationGeoService observationGeoService, ObservationSearchService observationSearchService) {
+        this.observationService = observationService;
+        this.observationImportService = observationImportService;
+        this.observationExportService = observationExportService;
+        this.observationGeoService = observationGeoService;
+        this.observationSearchService = observationSearchService;
+    }
+
+    @Operation(summary = "Register an observation for the current user")
+    @ApiResponses({
+        @ApiResponse(responseCode = "201", description = "Created - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ObservationResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige of ontbrekende input data",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ObservationResponse createObservation(
+            @Valid @RequestBody CreateObservationRequest observation) {
+        return observationService.addObservation(observation);
+    }
+
+    @Operation(summary = "List the observations of the current user, newest first",
+        description = "Keyset pagination: pass the nextCursor of the previous page as cursor, limit is 1-200 (default 50)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ObservationPageResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige cursor",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ObservationPageResponse getObservations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return observationService.getObservations(cursor, limit);
+    }
+
+    @Operation(summary = "Search the notes of the current user's observations, best match first",
+        description = "q supports web search syntax: words, \"quoted phrases\", or, and -word to exclude. "
+            + "Pass nextCursor as cursor for the next page")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ObservationPageResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - Zoekterm ontbreekt of ongeldige cursor",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public ObservationPageResponse searchObservations(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return observationSearchService.search(q, cursor, limit);
+    }
+
+    @Operation(summary = "Observations of all users within a radius of a point, newest first",
+        description = "Only observations whose location is \"lat,lon\" have coordinates. radiusKm defaults to 5, at most 50. "
+            + "from/to limit the observation time to [from, to)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige coordinaten, straal of periode",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/nearby")
+    @ResponseStatus(HttpStatus.OK)
+    public List<NearbyObservationResponse> getNearbyObservations(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return observationGeoService.findNearby(latitude, longitude, radiusKm, from, to, limit);
+    }
+
+    @Operation(summary = "Observations of all users inside a bounding box, newest first",
+        description = "minLongitude greater than maxLongitude selects a box across the antimeridian. "
+            + "from/to limit the observation time to [from, to)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige coordinaten, te groot zoekgebied of periode",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/within")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ObservationResponse> getObservationsWithin(
+            @RequestParam double minLatitude,
+            @RequestParam double minLongitude,
+            @RequestParam double maxLatitude,
+            @RequestParam double maxLongitude,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return observationGeoService.findWithin(minLatitude, minLongitude, maxLatitude, maxLongitude, from, to, limit);
+    }
+
+    @Operation(summary = "Get one observation of the current user")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ObservationResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "404", description = "Not found - Waarneming niet gevonden",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        )
+    })
+    @GetMapping("/{observationId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ObservationResponse getObservation(@PathVariable Long observationId) {
+        return observationService.getObservation(observationId);
+    }
+
+    @Operation(summary = "Update an observation of the current user")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ObservationResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige of ontbrekende input data",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "404", description = "Not found - Waarneming niet gevonden",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        )
+    })
+    @PutMapping("/{observationId}")
+    @ResponseStatus(HttpStatus.OK)
+    public ObservationResponse updateObservation(
+            @PathVariable Long observationId,
+            @Valid @RequestBody UpdateObservationRequest updateObservation
+    ) {
+        return observationService.updateObservation(observationId, updateObservation);
+    }
+
+    @Operation(summary = "Delete an observation of the current user")
+    @ApiResponses({
+        @ApiResponse(responseCode = "204", description = "No content - Succes"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "404", description = "Not found - Waarneming niet gevonden",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        )
+    })
+    @DeleteMapping("/{observationId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteObservation(@PathVariable Long observationId) {
+        observationService.deleteObservation(observationId);
+    }
+
+    @Operation(summary = "Bulk import observations (NDJSON or CSV with header) for the current user")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Per batch voortgang en afgewezen regels, completed=false als een batch mislukte",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige CSV header",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+    @ResponseStatus(HttpStatus.OK)
+    public ImportResponse importObservations(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) {
+        return observationImportService.importObservations(body, contentType);
+    }
+
+    @Operation(summary = "Export all observations of the current user (NDJSON or CSV), oldest first",
+        description = "Streamed with chunked transfer, gzip compressed when the client sends Accept-Encoding: gzip")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "400", description = "Bad request - Onbekend exportformaat",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/export")
+    public void exportObservations(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response
+    ) throws IOException {
+        MediaType mediaType = observationExportService.mediaTypeOf(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        // No Content-Length: the servlet container sends the rows in chunks as the buffers fill up
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(mediaType + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("observations." + format.toLowerCase()).build().toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        observationExportService.exportObservations(mediaType, gzip, response.getOutputStream());
+    }
+}
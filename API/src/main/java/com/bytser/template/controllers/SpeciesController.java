@@ -0,0 +1,39 @@
+package com.bytser.template.controllers;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.bytser.template.dtos.responses.SpeciesResponse;
+import com.bytser.template.services.SpeciesCatalogService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+@RestController
+@RequestMapping("species")
+public class SpeciesController {
+
+    private final SpeciesCatalogService speciesCatalogService;
+
+    public SpeciesController(SpeciesCatalogService speciesCatalogService) {
+        this.speciesCatalogService = speciesCatalogService;
+    }
+
+    @Operation(summary = "The species catalog",
+        description = "Every species with its family, ordered by code. New species are added when they are first observed")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public List<SpeciesResponse> getSpecies() {
+        return speciesCatalogService.getCatalog();
+    }
+}
@@ -1,21 +1,30 @@
 package com.bytser.template.controllers;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.bytser.template.dtos.requests.CreateUserRequest;
 import com.bytser.template.dtos.requests.UpdateUserRequest;
 import com.bytser.template.dtos.responses.ApiErrorResponse;
+import com.bytser.template.dtos.responses.BulkUserResponse;
+import com.bytser.template.dtos.responses.DistinctCountResponse;
+import com.bytser.template.dtos.responses.StatsHistogramResponse;
 import com.bytser.template.dtos.responses.UserStatsResponse;
+import com.bytser.template.services.UserProvisioningService;
 import com.bytser.template.services.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -30,9 +39,11 @@ import jakarta.validation.Valid;
 public class UserController {
 
     private final UserService userService;
+    private final UserProvisioningService userProvisioningService;
 
-	public UserController(UserService userService) {
+	public UserController(UserService userService, UserProvisioningService userProvisioningService) {
 		this.userService = userService;
+		this.userProvisioningService = userProvisioningService;
 	}
 
     @Operation(summary = "Register a user")
@@ -40,6 +51,12 @@ public class UserController {
         @ApiResponse(responseCode = "201", description = "Created - Succes"),
         @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige of ontbrekende input data",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "409", description = "Conflict - Gebruikersnaam of emailadres is al in gebruik",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "503", description = "Service unavailable - Server is te druk, probeer het later opnieuw",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
         )
     })
     @PostMapping
@@ -49,11 +66,29 @@ public class UserController {
         userService.addUser(user);
     }
 
+    @Operation(summary = "Bulk create users (NDJSON, one CreateUserRequest per line), admins only",
+        description = "Validated and de-duplicated per line, hashed in parallel and inserted in batches; one result per line")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Resultaat per regel, completed=false als een batch mislukte",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkUserResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "403", description = "Forbidden - Alleen voor beheerders")
+    })
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public BulkUserResponse createUsers(InputStream body) {
+        return userProvisioningService.provision(userService.getCurrentUser(), body);
+    }
+
     @Operation(summary = "Update a user")
     @ApiResponses({
         @ApiResponse(responseCode = "201", description = "Created - Succes"),
         @ApiResponse(responseCode = "400", description = "Bad request - Ongeldige of ontbrekende input data",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "409", description = "Conflict - Gebruikersnaam of emailadres is al in gebruik",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
         )
     })
     @PutMapping("/{userId}")
@@ -65,16 +100,65 @@ public class UserController {
         userService.updateUser(userId, updateUser);
     }
 
-    @Operation(summary = "User statistics")
+    @Operation(summary = "User statistics",
+        description = "Whole history by default, or only the observations in [from, to) when from and/or to are given")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Ok - Succes",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserStatsResponse.class))
         ),
+        @ApiResponse(responseCode = "400", description = "Bad request - from moet voor to liggen",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
         @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/stats")
     @ResponseStatus(HttpStatus.OK)
-    public UserStatsResponse getUserStats() {
-        return userService.getUserStats();
+    public UserStatsResponse getUserStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return userService.getUserStats(from, to);
+    }
+
+    @Operation(summary = "Observation counts and distinct species per day, week or month",
+        description = "Only the observations in [from, to) when from and/or to are given, empty buckets are left out")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = StatsHistogramResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - Onbekende bucket of from na to",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/stats/histogram")
+    @ResponseStatus(HttpStatus.OK)
+    public StatsHistogramResponse getUserStatsHistogram(
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return userService.getUserStatsHistogram(bucket, from, to);
+    }
+
+    @Operation(summary = "Approximate unique species and families of the logged in user",
+        description = "Merged from monthly HyperLogLog sketches, from and to are widened to whole months. "
+            + "The fields listed in approximate carry the given relative standard error")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Ok - Succes",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = DistinctCountResponse.class))
+        ),
+        @ApiResponse(responseCode = "400", description = "Bad request - from moet voor to liggen",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiErrorResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/stats/distinct")
+    @ResponseStatus(HttpStatus.OK)
+    public DistinctCountResponse getUserDistinctCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return userService.getUserDistinctCounts(from, to);
     }
 }
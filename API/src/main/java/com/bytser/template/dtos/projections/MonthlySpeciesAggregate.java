@@ -0,0 +1,40 @@
+package com.bytser.template.dtos.projections;
+
+import java.time.LocalDateTime;
+
+// One GROUP BY month/species/family row, computed by the database
+public class MonthlySpeciesAggregate {
+
+    private final LocalDateTime monthStart;
+    private final String speciesCode;
+    private final String familyCode;
+    private final long observationCount;
+
+    public MonthlySpeciesAggregate(
+            LocalDateTime monthStart,
+            String speciesCode,
+            String familyCode,
+            long observationCount
+    ) {
+        this.monthStart = monthStart;
+        this.speciesCode = speciesCode;
+        this.familyCode = familyCode;
+        this.observationCount = observationCount;
+    }
+
+    public LocalDateTime getMonthStart() {
+        return monthStart;
+    }
+
+    public String getSpeciesCode() {
+        return speciesCode;
+    }
+
+    public String getFamilyCode() {
+        return familyCode;
+    }
+
+    public long getObservationCount() {
+        return observationCount;
+    }
+}
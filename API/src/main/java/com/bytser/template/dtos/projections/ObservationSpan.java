@@ -0,0 +1,38 @@
+package com.bytser.template.dtos.projections;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// count / min(dateTime) / max(dateTime) of a set of observations, computed by the database
+public class ObservationSpan {
+
+    private final long observationCount;
+    private final LocalDateTime firstObservation;
+    private final LocalDateTime lastObservation;
+
+    public ObservationSpan(long observationCount, LocalDateTime firstObservation, LocalDateTime lastObservation) {
+        this.observationCount = observationCount;
+        this.firstObservation = firstObservation;
+        this.lastObservation = lastObservation;
+    }
+
+    public long getObservationCount() {
+        return observationCount;
+    }
+
+    public LocalDateTime getFirstObservation() {
+        return firstObservation;
+    }
+
+    public LocalDateTime getLastObservation() {
+        return lastObservation;
+    }
+
+    // Sorted consecutive gaps add up to last - first, so their average is (max - min) / (n - 1)
+    public Duration getAverageGap() {
+        if (observationCount <= 1) {
+            return Duration.ZERO;
+        }
+        return Duration.between(firstObservation, lastObservation).dividedBy(observationCount - 1);
+    }
+}
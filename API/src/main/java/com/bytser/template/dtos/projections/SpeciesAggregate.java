@@ -0,0 +1,47 @@
+package com.bytser.template.dtos.projections;
+
+import java.time.LocalDateTime;
+
+// One GROUP BY species/family row, computed by the database
+public class SpeciesAggregate {
+
+    private final String speciesCode;
+    private final String familyCode;
+    private final long observationCount;
+    private final LocalDateTime earliestObservation;
+    private final LocalDateTime latestObservation;
+
+    public SpeciesAggregate(
+            String speciesCode,
+            String familyCode,
+            long observationCount,
+            LocalDateTime earliestObservation,
+            LocalDateTime latestObservation
+    ) {
+        this.speciesCode = speciesCode;
+        this.familyCode = familyCode;
+        this.observationCount = observationCount;
+        this.earliestObservation = earliestObservation;
+        this.latestObservation = latestObservation;
+    }
+
+    public String getSpeciesCode() {
+        return speciesCode;
+    }
+
+    public String getFamilyCode() {
+        return familyCode;
+    }
+
+    public long getObservationCount() {
+        return observationCount;
+    }
+
+    public LocalDateTime getEarliestObservation() {
+        return earliestObservation;
+    }
+
+    public LocalDateTime getLatestObservation() {
+        return latestObservation;
+    }
+}
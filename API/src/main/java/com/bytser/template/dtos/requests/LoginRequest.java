@@ -0,0 +1,24 @@
+package com.bytser.template.dtos.requests;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class LoginRequest {
+
+    @NotBlank(message = "Gebruikersnaam is verplicht")
+    private final String username;
+
+    @NotBlank(message = "Wachtwoord is verplicht")
+    private final String password;
+
+    public LoginRequest(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+    public String getPassword() {
+        return password;
+    }
+}
@@ -0,0 +1,52 @@
+package com.bytser.template.dtos.requests;
+
+import java.time.LocalDateTime;
+
+import jakarta.validation.constraints.Size;
+
+public class UpdateObservationRequest {
+
+    @Size(max = 255, message = "Soortcode is te lang")
+    private final String speciesCode;
+
+    @Size(max = 255, message = "Familiecode is te lang")
+    private final String familyCode;
+
+    @Size(max = 255, message = "Locatie is te lang")
+    private final String location;
+
+    private final LocalDateTime dateTime;
+
+    @Size(max = 255, message = "Notities zijn te lang")
+    private final String notes;
+
+    public UpdateObservationRequest(
+            String speciesCode,
+            String familyCode,
+            String location,
+            LocalDateTime dateTime,
+            String notes
+    ) {
+        this.speciesCode = speciesCode;
+        this.familyCode = familyCode;
+        this.location = location;
+        this.dateTime = dateTime;
+        this.notes = notes;
+    }
+
+    public String getSpeciesCode() {
+        return speciesCode;
+    }
+    public String getFamilyCode() {
+        return familyCode;
+    }
+    public String getLocation() {
+        return location;
+    }
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+    public String getNotes() {
+        return notes;
+    }
+}
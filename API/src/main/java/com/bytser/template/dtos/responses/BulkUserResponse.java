@@ -0,0 +1,46 @@
+package com.bytser.template.dtos.responses;
+
+import java.util.List;
+
+public class BulkUserResponse {
+
+    private final long createdRows;
+    private final long rejectedRows;
+    private final boolean completed;
+    private final String error;
+    private final List<BulkUserResultResponse> results;     // One per line, in line order
+
+    public BulkUserResponse(
+            long createdRows,
+            long rejectedRows,
+            boolean completed,
+            String error,
+            List<BulkUserResultResponse> results
+    ) {
+        this.createdRows = createdRows;
+        this.rejectedRows = rejectedRows;
+        this.completed = completed;
+        this.error = error;
+        this.results = results;
+    }
+
+    public long getCreatedRows() {
+        return createdRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public List<BulkUserResultResponse> getResults() {
+        return results;
+    }
+}
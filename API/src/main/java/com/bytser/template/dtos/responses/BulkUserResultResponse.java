@@ -0,0 +1,48 @@
+package com.bytser.template.dtos.responses;
+
+import java.util.UUID;
+
+public class BulkUserResultResponse {
+
+    private final long line;
+    private final String username;
+    private final boolean created;
+    private final UUID id;          // Only when created
+    private final String reason;    // Only when not created
+
+    public BulkUserResultResponse(long line, String username, boolean created, UUID id, String reason) {
+        this.line = line;
+        this.username = username;
+        this.created = created;
+        this.id = id;
+        this.reason = reason;
+    }
+
+    public static BulkUserResultResponse created(long line, String username, UUID id) {
+        return new BulkUserResultResponse(line, username, true, id, null);
+    }
+
+    public static BulkUserResultResponse rejected(long line, String username, String reason) {
+        return new BulkUserResultResponse(line, username, false, null, reason);
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public boolean isCreated() {
+        return created;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
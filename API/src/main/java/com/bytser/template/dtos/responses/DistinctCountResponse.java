@@ -0,0 +1,66 @@
+package com.bytser.template.dtos.responses;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class DistinctCountResponse {
+
+    // Whole months, null for an open end
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    private final long totalObservations;
+    private final long uniqueSpecies;
+    private final long uniqueFamilies;
+
+    // Names of the fields above that are estimates
+    private final List<String> approximate;
+    // Relative standard error of the estimates, about 95% of them fall within twice this
+    private final double relativeStandardError;
+
+    public DistinctCountResponse(
+            LocalDateTime from,
+            LocalDateTime to,
+            long totalObservations,
+            long uniqueSpecies,
+            long uniqueFamilies,
+            List<String> approximate,
+            double relativeStandardError
+    ) {
+        this.from = from;
+        this.to = to;
+        this.totalObservations = totalObservations;
+        this.uniqueSpecies = uniqueSpecies;
+        this.uniqueFamilies = uniqueFamilies;
+        this.approximate = approximate;
+        this.relativeStandardError = relativeStandardError;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public long getTotalObservations() {
+        return totalObservations;
+    }
+
+    public long getUniqueSpecies() {
+        return uniqueSpecies;
+    }
+
+    public long getUniqueFamilies() {
+        return uniqueFamilies;
+    }
+
+    public List<String> getApproximate() {
+        return approximate;
+    }
+
+    public double getRelativeStandardError() {
+        return relativeStandardError;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bytser.template.dtos.responses;
+
+public class ImportBatchResponse {
+
+    private final int batch;
+    private final int importedRows;
+    private final int rejectedRows;
+    private final long durationMillis;
+
+    public ImportBatchResponse(int batch, int importedRows, int rejectedRows, long durationMillis) {
+        this.batch = batch;
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.durationMillis = durationMillis;
+    }
+
+    public int getBatch() {
+        return batch;
+    }
+
+    public int getImportedRows() {
+        return importedRows;
+    }
+
+    public int getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
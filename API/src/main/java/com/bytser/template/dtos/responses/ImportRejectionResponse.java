@@ -0,0 +1,20 @@
+package com.bytser.template.dtos.responses;
+
+public class ImportRejectionResponse {
+
+    private final long line;
+    private final String reason;
+
+    public ImportRejectionResponse(long line, String reason) {
+        this.line = line;
+        this.reason = reason;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bytser.template.dtos.responses;
+
+import java.util.List;
+
+public class ImportResponse {
+
+    private final long importedRows;
+    private final long rejectedRows;
+    private final boolean completed;
+    private final String error;
+    private final List<ImportBatchResponse> batches;
+    private final List<ImportRejectionResponse> rejections;     // The first rejected rows only, rejectedRows has the total
+
+    public ImportResponse(
+            long importedRows,
+            long rejectedRows,
+            boolean completed,
+            String error,
+            List<ImportBatchResponse> batches,
+            List<ImportRejectionResponse> rejections
+    ) {
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.completed = completed;
+        this.error = error;
+        this.batches = batches;
+        this.rejections = rejections;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public List<ImportBatchResponse> getBatches() {
+        return batches;
+    }
+
+    public List<ImportRejectionResponse> getRejections() {
+        return rejections;
+    }
+}
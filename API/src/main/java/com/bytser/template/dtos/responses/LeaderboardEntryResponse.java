@@ -0,0 +1,31 @@
+package com.bytser.template.dtos.responses;
+
+// One species or family on a platform-wide leaderboard
+public class LeaderboardEntryResponse {
+
+    private final String code;
+    private final long observations;
+    private final long observers;
+
+    public LeaderboardEntryResponse(
+            String code,
+            long observations,
+            long observers
+    ) {
+        this.code = code;
+        this.observations = observations;
+        this.observers = observers;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+
+    public long getObservers() {
+        return observers;
+    }
+}
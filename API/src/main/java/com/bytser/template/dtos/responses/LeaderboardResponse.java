@@ -0,0 +1,27 @@
+package com.bytser.template.dtos.responses;
+
+import java.time.Instant;
+import java.util.List;
+
+public class LeaderboardResponse<T> {
+
+    // null until the first refresh has finished
+    private final Instant refreshedAt;
+    private final List<T> entries;
+
+    public LeaderboardResponse(
+            Instant refreshedAt,
+            List<T> entries
+    ) {
+        this.refreshedAt = refreshedAt;
+        this.entries = entries;
+    }
+
+    public Instant getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public List<T> getEntries() {
+        return entries;
+    }
+}
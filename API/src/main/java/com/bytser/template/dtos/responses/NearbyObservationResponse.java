@@ -0,0 +1,23 @@
+package com.bytser.template.dtos.responses;
+
+public class NearbyObservationResponse {
+
+    private final ObservationResponse observation;
+    private final double distanceKm;
+
+    public NearbyObservationResponse(
+            ObservationResponse observation,
+            double distanceKm
+    ) {
+        this.observation = observation;
+        this.distanceKm = distanceKm;
+    }
+
+    public ObservationResponse getObservation() {
+        return observation;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+}
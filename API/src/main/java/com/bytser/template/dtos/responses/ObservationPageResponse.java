@@ -0,0 +1,22 @@
+package com.bytser.template.dtos.responses;
+
+import java.util.List;
+
+public class ObservationPageResponse {
+
+    private final List<ObservationResponse> observations;
+    private final String nextCursor;     // null on the last page
+
+    public ObservationPageResponse(List<ObservationResponse> observations, String nextCursor) {
+        this.observations = observations;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ObservationResponse> getObservations() {
+        return observations;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bytser.template.dtos.responses;
+
+import java.time.LocalDateTime;
+
+public class ObservationResponse {
+
+    private final Long observationId;
+    private final String speciesCode;
+    private final String familyCode;
+    private final String location;
+    private final Double latitude;
+    private final Double longitude;
+    private final LocalDateTime dateTime;
+    private final String notes;
+
+    public ObservationResponse(
+            Long observationId,
+            String speciesCode,
+            String familyCode,
+            String location,
+            Double latitude,
+            Double longitude,
+            LocalDateTime dateTime,
+            String notes
+    ) {
+        this.observationId = observationId;
+        this.speciesCode = speciesCode;
+        this.familyCode = familyCode;
+        this.location = location;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.dateTime = dateTime;
+        this.notes = notes;
+    }
+
+    public Long getObservationId() {
+        return observationId;
+    }
+
+    public String getSpeciesCode() {
+        return speciesCode;
+    }
+
+    public String getFamilyCode() {
+        return familyCode;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+}
@@ -0,0 +1,24 @@
+package com.bytser.template.dtos.responses;
+
+// One user on the leaderboard of a species
+public class ObserverRankResponse {
+
+    private final String username;
+    private final long observations;
+
+    public ObserverRankResponse(
+            String username,
+            long observations
+    ) {
+        this.username = username;
+        this.observations = observations;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+}
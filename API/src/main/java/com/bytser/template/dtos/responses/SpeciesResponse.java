@@ -0,0 +1,38 @@
+package com.bytser.template.dtos.responses;
+
+// One entry of the species catalog; the names stay null until someone fills them in
+public class SpeciesResponse {
+
+    private final String code;
+    private final String name;
+    private final String familyCode;
+    private final String familyName;
+
+    public SpeciesResponse(
+            String code,
+            String name,
+            String familyCode,
+            String familyName
+    ) {
+        this.code = code;
+        this.name = name;
+        this.familyCode = familyCode;
+        this.familyName = familyName;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFamilyCode() {
+        return familyCode;
+    }
+
+    public String getFamilyName() {
+        return familyName;
+    }
+}
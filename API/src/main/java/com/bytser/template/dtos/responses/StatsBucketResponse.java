@@ -0,0 +1,33 @@
+package com.bytser.template.dtos.responses;
+
+import java.time.LocalDateTime;
+
+// One histogram bucket, computed by the database: start of the day, week (monday) or month
+public class StatsBucketResponse {
+
+    private final LocalDateTime start;
+    private final long observations;
+    private final long uniqueSpecies;
+
+    public StatsBucketResponse(
+            LocalDateTime start,
+            long observations,
+            long uniqueSpecies
+    ) {
+        this.start = start;
+        this.observations = observations;
+        this.uniqueSpecies = uniqueSpecies;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+
+    public long getUniqueSpecies() {
+        return uniqueSpecies;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bytser.template.dtos.responses;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StatsHistogramResponse {
+
+    private final String bucket;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    // Only buckets with observations, oldest first
+    private final List<StatsBucketResponse> buckets;
+
+    public StatsHistogramResponse(
+            String bucket,
+            LocalDateTime from,
+            LocalDateTime to,
+            List<StatsBucketResponse> buckets
+    ) {
+        this.bucket = bucket;
+        this.from = from;
+        this.to = to;
+        this.buckets = buckets;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public List<StatsBucketResponse> getBuckets() {
+        return buckets;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bytser.template.dtos.responses;
+
+public class TokenResponse {
+
+    private final String accessToken;
+    private final String tokenType;
+    private final long expiresIn;
+
+    public TokenResponse(String accessToken, String tokenType, long expiresIn) {
+        this.accessToken = accessToken;
+        this.tokenType = tokenType;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
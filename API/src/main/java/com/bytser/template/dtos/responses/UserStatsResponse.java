@@ -24,7 +24,7 @@ public class UserStatsResponse {
         this.uniqueFamilies = uniqueFamilies;
         this.averageTimeBetweenObservations = averageTimeBetweenObservations;
         this.mostObservedSpecies = mostObservedSpecies;
-        this.mostObservedFamily = mostObservedFamily;
+        this.mostObservedFamily = List.copyOf(mostObservedFamily);  // Immutable, responses are shared through the stats cache
     }
 
     public int getTotalObservations() {
@@ -0,0 +1,7 @@
+package com.bytser.template.exceptions;
+
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
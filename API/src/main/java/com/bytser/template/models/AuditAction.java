@@ -0,0 +1,7 @@
+package com.bytser.template.models;
+
+// What an audit event records, stored by name in audit_event.action
+public enum AuditAction {
+    USER_CREATED,
+    USER_UPDATED
+}
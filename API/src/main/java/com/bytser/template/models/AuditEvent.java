@@ -0,0 +1,82 @@
+package com.bytser.template.models;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// One entry of the audit trail: who (actor) did what (action) to which user, and when.
+// Queued by AuditLog and inserted in batches by AuditWriter, never through the persistence context.
+// No foreign key to users: the trail outlives the account it is about.
+@Entity
+@Table(name = "audit_event")
+@Immutable
+public class AuditEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique=false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, unique=false, updatable = false, length = 64)
+    private AuditAction action;
+
+    @Column(nullable = false, unique=false, updatable = false)
+    private UUID userId;
+
+    // null when nobody was logged in, e.g. a registration
+    @Column(nullable = true, unique=false, updatable = false)
+    private UUID actorId;
+
+    // Which fields changed, never their values; text since V15, a username has no length limit
+    @Column(nullable = true, unique=false, updatable = false, columnDefinition = "text")
+    private String detail;
+
+    protected AuditEvent() {
+        // JPA requirement
+    }
+
+    public AuditEvent(AuditAction action, UUID userId, UUID actorId, String detail, LocalDateTime occurredAt) {
+        this.action = action;
+        this.userId = userId;
+        this.actorId = actorId;
+        this.detail = detail;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public AuditAction getAction() {
+        return action;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getActorId() {
+        return actorId;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+}
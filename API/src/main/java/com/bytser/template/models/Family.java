@@ -0,0 +1,50 @@
+package com.bytser.template.models;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Reference data: a family in the species catalog, see SpeciesCatalogService.
+// Rows are only ever inserted, so Hibernate can skip dirty checking them.
+@Entity
+@Table(name = "family")
+@Immutable
+public class Family {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique=true, updatable = false)
+    private String code;
+
+    // Display name, filled in by hand; null until someone does
+    @Column(nullable = true, unique=false, updatable = false)
+    private String name;
+
+    protected Family() {
+        // JPA requirement
+    }
+
+    public Family(String code) {
+        this.code = code;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -2,31 +2,49 @@ package com.bytser.template.models;
 
 import java.time.LocalDateTime;
 
+import com.bytser.template.components.GeoGrid;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 
 @Entity
+// Keyset pagination of one user's observations (see V4 migration) and the nearby searches (see V8 migration)
+@Table(indexes = {
+    @Index(name = "observation_owner_date_time_idx", columnList = "example_id, date_time, observationid"),
+    @Index(name = "observation_geo_cell_date_time_idx", columnList = "geo_cell, date_time")
+})
 public class Observation {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long observationID;
 
-    @Column(nullable = false, unique=false, updatable = true)
-    private String speciesCode;
-
-    @Column(nullable = false, unique=false, updatable = true)
-    private String familyCode;
+    // Catalog key instead of the species and family codes, see SpeciesCatalogService (and the V11 migration)
+    @ManyToOne(optional=false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "species_id")
+    private Species species;
 
     @Column(nullable = false, unique=false, updatable = true)
     private String location;
 
+    // Derived from location when it holds "lat,lon", null for free-text locations
+    @Column(nullable = true, unique=false, updatable = true)
+    private Double latitude;
+
+    @Column(nullable = true, unique=false, updatable = true)
+    private Double longitude;
+
+    @Column(nullable = true, unique=false, updatable = true)
+    private Long geoCell;
+
     @Column(nullable = false, unique=false, updatable = true)
     private LocalDateTime dateTime;
 
@@ -41,31 +59,31 @@ public class Observation {
         // JPA requirement
     }
 
-    public Observation(String speciesCode, String familyCode, String location, LocalDateTime dateTime, String notes, User owner) {
-        this.speciesCode = speciesCode;
-        this.familyCode = familyCode;
-        this.location = location;
+    public Observation(Species species, String location, LocalDateTime dateTime, String notes, User owner) {
+        this.species = species;
         this.dateTime = dateTime;
         this.notes = notes;
         this.owner = owner;
+        setLocation(location);
     }
 
     public Long getObservationID() {
         return observationID;
     }
 
-    public String getSpeciesCode() {
-        return speciesCode;
+    public Species getSpecies() {
+        return species;
     }
-    public void setSpeciesCode(String speciesCode) {
-        this.speciesCode = speciesCode;
+    public void setSpecies(Species species) {
+        this.species = species;
     }
 
-    public String getFamilyCode() {
-        return familyCode;
+    public String getSpeciesCode() {
+        return species.getCode();
     }
-    public void setFamilyCode(String familyCode) {
-        this.familyCode = familyCode;
+
+    public String getFamilyCode() {
+        return species.getFamilyCode();
     }
 
     public String getLocation() {
@@ -73,6 +91,23 @@ public class Observation {
     }
     public void setLocation(String location) {
         this.location = location;
+
+        GeoGrid.Point point = GeoGrid.parse(location);
+        this.latitude = point == null ? null : point.latitude();
+        this.longitude = point == null ? null : point.longitude();
+        this.geoCell = point == null ? null : GeoGrid.cellOf(point.latitude(), point.longitude());
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public Long getGeoCell() {
+        return geoCell;
     }
 
     public LocalDateTime getDateTime() {
@@ -0,0 +1,67 @@
+package com.bytser.template.models;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+// Reference data: a species and the one family it belongs to, see SpeciesCatalogService.
+// Observations point at it with a 4-byte key instead of repeating both codes on every row.
+@Entity
+@Table(name = "species")
+@Immutable
+public class Species {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique=true, updatable = false)
+    private String code;
+
+    // Eager: a species is never used without its family code
+    @ManyToOne(optional=false, fetch = FetchType.EAGER)
+    @JoinColumn(name = "family_id")
+    private Family family;
+
+    // Display name, filled in by hand; null until someone does
+    @Column(nullable = true, unique=false, updatable = false)
+    private String name;
+
+    protected Species() {
+        // JPA requirement
+    }
+
+    public Species(String code, Family family) {
+        this.code = code;
+        this.family = family;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Family getFamily() {
+        return family;
+    }
+
+    public String getFamilyCode() {
+        return family.getCode();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.CascadeType;
@@ -14,20 +16,28 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
 
 @Entity
-@Table(name = "users")
+// Named unique constraints: UserService maps a violation to a 409 on the field by constraint name
+@Table(name = "users", uniqueConstraints = {
+    @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+    @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+})
 public class User {
 
+    public static final String USERNAME_CONSTRAINT = "users_username_key";
+    public static final String EMAIL_CONSTRAINT = "users_email_key";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(nullable = false, unique=true, updatable = true)
+    @Column(nullable = false, unique=false, updatable = true)
     private String username;
 
-    @Column(nullable = false, unique=true, updatable = true)
+    @Column(nullable = false, unique=false, updatable = true)
     @Email
     private String email;
 
@@ -35,6 +45,12 @@ public class User {
     @JsonIgnore
     private String password;
 
+    // ROLE_ADMIN, granted by hand in the database (V16) and never bound from a request body
+    @Column(nullable = false, unique=false, updatable = true)
+    @ColumnDefault("false")
+    @JsonIgnore
+    private boolean admin;
+
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, orphanRemoval = true)
     private final List<Observation> observations = new ArrayList<>();
 
@@ -73,6 +89,10 @@ public class User {
         this.password = password;
     }
 
+    public boolean isAdmin() {
+        return admin;
+    }
+
     public List<Observation> getObservations() {
         return observations;
     }
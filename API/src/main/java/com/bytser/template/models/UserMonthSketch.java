@@ -0,0 +1,88 @@
+package com.bytser.template.models;
+
+import org.springframework.data.domain.Persistable;
+
+import com.bytser.template.components.HyperLogLog;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+// One user's observations of one month, summarized for approximate distinct counts:
+// the exact number of observations plus HyperLogLog sketches of the distinct species and families.
+// Maintained by ObservationSketchService in the same transaction as the observation writes.
+@Entity
+@Table(name = "user_month_sketch")
+public class UserMonthSketch implements Persistable<UserMonthSketchId> {
+
+    // A dense sketch is 2049 bytes
+    private static final int MAX_SKETCH_BYTES = 4096;
+
+    @EmbeddedId
+    private UserMonthSketchId id;
+
+    @Column(nullable = false, unique=false, updatable = true)
+    private long observationCount;
+
+    @Column(nullable = false, unique=false, updatable = true, length = MAX_SKETCH_BYTES)
+    private byte[] speciesSketch;
+
+    @Column(nullable = false, unique=false, updatable = true, length = MAX_SKETCH_BYTES)
+    private byte[] familySketch;
+
+    // Assigned key, so tell Spring Data whether to persist or merge instead of letting it SELECT first
+    @Transient
+    private boolean isNew = true;
+
+    protected UserMonthSketch() {
+        // JPA requirement
+    }
+
+    public UserMonthSketch(UserMonthSketchId id) {
+        this.id = id;
+        this.observationCount = 0;
+        this.speciesSketch = new HyperLogLog().toBytes();
+        this.familySketch = new HyperLogLog().toBytes();
+    }
+
+    @Override
+    public UserMonthSketchId getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public long getObservationCount() {
+        return observationCount;
+    }
+    public void setObservationCount(long observationCount) {
+        this.observationCount = observationCount;
+    }
+
+    public HyperLogLog getSpeciesSketch() {
+        return HyperLogLog.fromBytes(speciesSketch);
+    }
+    public void setSpeciesSketch(HyperLogLog sketch) {
+        this.speciesSketch = sketch.toBytes();
+    }
+
+    public HyperLogLog getFamilySketch() {
+        return HyperLogLog.fromBytes(familySketch);
+    }
+    public void setFamilySketch(HyperLogLog sketch) {
+        this.familySketch = sketch.toBytes();
+    }
+}
@@ -0,0 +1,54 @@
+package com.bytser.template.models;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+@Embeddable
+public class UserMonthSketchId implements Serializable {
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    // First day of the month
+    @Column(nullable = false, updatable = false)
+    private LocalDate monthStart;
+
+    protected UserMonthSketchId() {
+        // JPA requirement
+    }
+
+    public UserMonthSketchId(UUID userId, LocalDate monthStart) {
+        this.userId = userId;
+        this.monthStart = monthStart;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof UserMonthSketchId that)) {
+            return false;
+        }
+        return Objects.equals(userId, that.userId)
+                && Objects.equals(monthStart, that.monthStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, monthStart);
+    }
+}
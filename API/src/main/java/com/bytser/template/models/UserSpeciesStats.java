@@ -0,0 +1,108 @@
+package com.bytser.template.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+// Running aggregate of one user's observations for one species/family pair.
+// Maintained by ObservationStatsService in the same transaction as the observation writes,
+// so reading a user's statistics only touches one row per distinct species instead of every observation.
+@Entity
+@Table(name = "user_species_stats")
+public class UserSpeciesStats implements Persistable<UserSpeciesStatsId> {
+
+    @EmbeddedId
+    private UserSpeciesStatsId id;
+
+    @Column(nullable = false, unique=false, updatable = true)
+    private long observationCount;
+
+    @Column(nullable = false, unique=false, updatable = true)
+    private LocalDateTime earliestObservation;
+
+    @Column(nullable = false, unique=false, updatable = true)
+    private LocalDateTime latestObservation;
+
+    // Assigned key, so tell Spring Data whether to persist or merge instead of letting it SELECT first
+    @Transient
+    private boolean isNew = true;
+
+    protected UserSpeciesStats() {
+        // JPA requirement
+    }
+
+    public UserSpeciesStats(UserSpeciesStatsId id, LocalDateTime firstObservation) {
+        this.id = id;
+        this.observationCount = 0;
+        this.earliestObservation = firstObservation;
+        this.latestObservation = firstObservation;
+    }
+
+    @Override
+    public UserSpeciesStatsId getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    public String getSpeciesCode() {
+        return id.getSpeciesCode();
+    }
+
+    public String getFamilyCode() {
+        return id.getFamilyCode();
+    }
+
+    public long getObservationCount() {
+        return observationCount;
+    }
+    public void setObservationCount(long observationCount) {
+        this.observationCount = observationCount;
+    }
+
+    public LocalDateTime getEarliestObservation() {
+        return earliestObservation;
+    }
+    public void setEarliestObservation(LocalDateTime earliestObservation) {
+        this.earliestObservation = earliestObservation;
+    }
+
+    public LocalDateTime getLatestObservation() {
+        return latestObservation;
+    }
+    public void setLatestObservation(LocalDateTime latestObservation) {
+        this.latestObservation = latestObservation;
+    }
+
+    // Count one more observation and widen the [earliest, latest] window
+    public void include(LocalDateTime dateTime) {
+        observationCount++;
+        widen(dateTime);
+    }
+
+    public void widen(LocalDateTime dateTime) {
+        if (dateTime.isBefore(earliestObservation)) {
+            earliestObservation = dateTime;
+        }
+        if (dateTime.isAfter(latestObservation)) {
+            latestObservation = dateTime;
+        }
+    }
+}
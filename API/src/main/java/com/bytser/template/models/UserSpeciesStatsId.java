@@ -0,0 +1,61 @@
+package com.bytser.template.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+@Embeddable
+public class UserSpeciesStatsId implements Serializable {
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(nullable = false, updatable = false)
+    private String speciesCode;
+
+    @Column(nullable = false, updatable = false)
+    private String familyCode;
+
+    protected UserSpeciesStatsId() {
+        // JPA requirement
+    }
+
+    public UserSpeciesStatsId(UUID userId, String speciesCode, String familyCode) {
+        this.userId = userId;
+        this.speciesCode = speciesCode;
+        this.familyCode = familyCode;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getSpeciesCode() {
+        return speciesCode;
+    }
+
+    public String getFamilyCode() {
+        return familyCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof UserSpeciesStatsId that)) {
+            return false;
+        }
+        return Objects.equals(userId, that.userId)
+                && Objects.equals(speciesCode, that.speciesCode)
+                && Objects.equals(familyCode, that.familyCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, speciesCode, familyCode);
+    }
+}
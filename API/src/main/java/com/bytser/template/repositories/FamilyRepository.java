@@ -0,0 +1,16 @@
+package com.bytser.template.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.bytser.template.models.Family;
+
+// Internal only, the catalog is served by SpeciesController from memory
+@RepositoryRestResource(exported = false)
+public interface FamilyRepository extends JpaRepository<Family, Integer> {
+
+    Optional<Family> findByCode(String code);
+
+}
@@ -0,0 +1,175 @@
+package com.bytser.template.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.bytser.template.dtos.projections.MonthlySpeciesAggregate;
+import com.bytser.template.dtos.projections.ObservationSpan;
+import com.bytser.template.dtos.projections.SpeciesAggregate;
+import com.bytser.template.dtos.responses.ObservationResponse;
+import com.bytser.template.dtos.responses.StatsBucketResponse;
+import com.bytser.template.models.Observation;
+
+import jakarta.persistence.QueryHint;
+
+// Aggregations run in the database (plain JPQL, so H2 and PostgreSQL alike),
+// only the grouped rows are sent back instead of every Observation entity.
+// Internal only, not exported by Spring Data REST (that would list every user's rows)
+@RepositoryRestResource(exported = false)
+public interface ObservationRepository extends JpaRepository<Observation, Long> {
+
+    @Query("""
+            select new com.bytser.template.dtos.projections.SpeciesAggregate(
+                s.code, f.code, count(o), min(o.dateTime), max(o.dateTime))
+            from Observation o join o.species s join s.family f
+            where o.owner.id = :userId
+            group by s.code, f.code
+            """)
+    List<SpeciesAggregate> aggregateBySpecies(UUID userId);
+
+    @Query("""
+            select new com.bytser.template.dtos.projections.ObservationSpan(
+                count(o), min(o.dateTime), max(o.dateTime))
+            from Observation o
+            where o.owner.id = :userId and o.species.code = :speciesCode and o.species.family.code = :familyCode
+            """)
+    ObservationSpan findSpeciesSpan(UUID userId, String speciesCode, String familyCode);
+
+    // Time windows are half-open [from, to) range scans on the (example_id, date_time, observationid) index,
+    // so a one-month window only reads that month's rows however long the history is
+    @Query("""
+            select new com.bytser.template.dtos.projections.SpeciesAggregate(
+                s.code, f.code, count(o), min(o.dateTime), max(o.dateTime))
+            from Observation o join o.species s join s.family f
+            where o.owner.id = :userId and o.dateTime >= :from and o.dateTime < :to
+            group by s.code, f.code
+            """)
+    List<SpeciesAggregate> aggregateBySpeciesBetween(UUID userId, LocalDateTime from, LocalDateTime to);
+
+    // Input of the monthly distinct-count sketches of one user
+    @Query("""
+            select new com.bytser.template.dtos.projections.MonthlySpeciesAggregate(
+                truncate(o.dateTime, month), s.code, f.code, count(o))
+            from Observation o join o.species s join s.family f
+            where o.owner.id = :userId
+            group by truncate(o.dateTime, month), s.code, f.code
+            order by truncate(o.dateTime, month)
+            """)
+    List<MonthlySpeciesAggregate> aggregateBySpeciesPerMonth(UUID userId);
+
+    // truncate() renders as date_trunc on PostgreSQL and H2, the unit has to be a literal so there is one query per bucket size
+    @Query("""
+            select new com.bytser.template.dtos.responses.StatsBucketResponse(
+                truncate(o.dateTime, day), count(o), count(distinct o.species.id))
+            from Observation o
+            where o.owner.id = :userId and o.dateTime >= :from and o.dateTime < :to
+            group by truncate(o.dateTime, day)
+            order by truncate(o.dateTime, day)
+            """)
+    List<StatsBucketResponse> histogramByDay(UUID userId, LocalDateTime from, LocalDateTime to);
+
+    @Query("""
+            select new com.bytser.template.dtos.responses.StatsBucketResponse(
+                truncate(o.dateTime, week), count(o), count(distinct o.species.id))
+            from Observation o
+            where o.owner.id = :userId and o.dateTime >= :from and o.dateTime < :to
+            group by truncate(o.dateTime, week)
+            order by truncate(o.dateTime, week)
+            """)
+    List<StatsBucketResponse> histogramByWeek(UUID userId, LocalDateTime from, LocalDateTime to);
+
+    @Query("""
+            select new com.bytser.template.dtos.responses.StatsBucketResponse(
+                truncate(o.dateTime, month), count(o), count(distinct o.species.id))
+            from Observation o
+            where o.owner.id = :userId and o.dateTime >= :from and o.dateTime < :to
+            group by truncate(o.dateTime, month)
+            order by truncate(o.dateTime, month)
+            """)
+    List<StatsBucketResponse> histogramByMonth(UUID userId, LocalDateTime from, LocalDateTime to);
+
+    // With its species, which every caller reads
+    @EntityGraph(attributePaths = {"species", "species.family"})
+    Optional<Observation> findByObservationIDAndOwnerId(Long observationID, UUID ownerId);
+
+    // Keyset pagination, newest first, served by the (example_id, date_time, observationid) index:
+    // every page is an index range scan that starts where the previous page stopped, however deep the page
+    @Query("""
+            select new com.bytser.template.dtos.responses.ObservationResponse(
+                o.observationID, s.code, f.code, o.location, o.latitude, o.longitude, o.dateTime, o.notes)
+            from Observation o join o.species s join s.family f
+            where o.owner.id = :userId
+            order by o.dateTime desc, o.observationID desc
+            """)
+    List<ObservationResponse> findFirstPage(UUID userId, Limit limit);
+
+    // The redundant dateTime <= bound keeps the seek an index range condition, the OR only filters the boundary timestamp
+    @Query("""
+            select new com.bytser.template.dtos.responses.ObservationResponse(
+                o.observationID, s.code, f.code, o.location, o.latitude, o.longitude, o.dateTime, o.notes)
+            from Observation o join o.species s join s.family f
+            where o.owner.id = :userId
+              and o.dateTime <= :dateTime
+              and (o.dateTime < :dateTime or o.observationID < :observationId)
+            order by o.dateTime desc, o.observationID desc
+            """)
+    List<ObservationResponse> findPageAfter(UUID userId, LocalDateTime dateTime, Long observationId, Limit limit);
+
+    // Forward-only cursor over all of a user's observations, oldest first (same index as the keyset pages).
+    // The fetch size makes the driver pull rows in chunks instead of buffering the whole result (PostgreSQL only
+    // does this inside a transaction), read-only skips the dirty-checking snapshots.
+    // Must be consumed inside a transaction and closed; the caller detaches every row once it is written.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select o
+            from Observation o join fetch o.species s join fetch s.family
+            where o.owner.id = :userId
+            order by o.dateTime, o.observationID
+            """)
+    Stream<Observation> streamByOwnerId(UUID userId);
+
+    // Candidates of a nearby search, newest first: the (geo_cell, date_time) index prunes to the covering cells,
+    // the caller refines on the exact coordinates and stops reading once it has enough rows.
+    // Must be consumed inside a transaction and closed.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.bytser.template.dtos.responses.ObservationResponse(
+                o.observationID, s.code, f.code, o.location, o.latitude, o.longitude, o.dateTime, o.notes)
+            from Observation o join o.species s join s.family f
+            where o.geoCell in :cells and o.dateTime >= :from and o.dateTime < :to
+            order by o.dateTime desc, o.observationID desc
+            """)
+    Stream<ObservationResponse> streamInCells(Collection<Long> cells, LocalDateTime from, LocalDateTime to);
+
+    // Same, for every cell key between firstCell and lastCell: whole grid rows, for areas with too many cells to list
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.bytser.template.dtos.responses.ObservationResponse(
+                o.observationID, s.code, f.code, o.location, o.latitude, o.longitude, o.dateTime, o.notes)
+            from Observation o join o.species s join s.family f
+            where o.geoCell between :firstCell and :lastCell and o.dateTime >= :from and o.dateTime < :to
+            order by o.dateTime desc, o.observationID desc
+            """)
+    Stream<ObservationResponse> streamInCellRange(long firstCell, long lastCell, LocalDateTime from, LocalDateTime to);
+}
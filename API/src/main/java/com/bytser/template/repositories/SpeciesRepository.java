@@ -0,0 +1,22 @@
+package com.bytser.template.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.bytser.template.models.Species;
+
+// Internal only, the catalog is served by SpeciesController from memory
+@RepositoryRestResource(exported = false)
+public interface SpeciesRepository extends JpaRepository<Species, Integer> {
+
+    Optional<Species> findByCode(String code);
+
+    // The whole catalog in one query
+    @Query("select s from Species s join fetch s.family")
+    List<Species> findAllWithFamily();
+
+}
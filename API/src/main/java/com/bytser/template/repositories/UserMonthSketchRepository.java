@@ -0,0 +1,53 @@
+package com.bytser.template.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.bytser.template.models.UserMonthSketch;
+import com.bytser.template.models.UserMonthSketchId;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+// Internal only, not exported by Spring Data REST (that would list every user's rows)
+@RepositoryRestResource(exported = false)
+public interface UserMonthSketchRepository extends JpaRepository<UserMonthSketch, UserMonthSketchId> {
+
+    // Row lock so concurrent observation writes of the same user/month merge into the sketch one at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserMonthSketch s where s.id = :id")
+    Optional<UserMonthSketch> findForUpdate(UserMonthSketchId id);
+
+    @Query("""
+            select s from UserMonthSketch s
+            where s.id.userId = :userId and s.id.monthStart >= :from and s.id.monthStart < :to
+            """)
+    List<UserMonthSketch> findByUserBetween(UUID userId, LocalDate from, LocalDate to);
+
+    // Every user's months in the window, as a forward-only cursor: one row per user per month
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select s from UserMonthSketch s
+            where s.id.monthStart >= :from and s.id.monthStart < :to
+            """)
+    Stream<UserMonthSketch> streamBetween(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("delete from UserMonthSketch s where s.id.userId = :userId")
+    void deleteByUserId(UUID userId);
+
+}
@@ -1,9 +1,12 @@
 package com.bytser.template.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.bytser.template.models.User;
 
@@ -17,4 +20,11 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByUsername(String username);
 
+    // Which of a batch of usernames / emails are taken, one query for the whole batch
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findTakenUsernames(Collection<String> usernames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findTakenEmails(Collection<String> emails);
+
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.bytser.template.repositories;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import com.bytser.template.models.UserSpeciesStats;
+import com.bytser.template.models.UserSpeciesStatsId;
+
+import jakarta.persistence.LockModeType;
+
+// Internal only, not exported by Spring Data REST (that would list every user's rows)
+@RepositoryRestResource(exported = false)
+public interface UserSpeciesStatsRepository extends JpaRepository<UserSpeciesStats, UserSpeciesStatsId> {
+
+    List<UserSpeciesStats> findByIdUserId(UUID userId);
+
+    // Row lock so concurrent observation writes of the same user/species serialize on the counter
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserSpeciesStats s where s.id = :id")
+    Optional<UserSpeciesStats> findForUpdate(UserSpeciesStatsId id);
+
+    @Modifying
+    @Query("delete from UserSpeciesStats s where s.id.userId = :userId")
+    void deleteByUserId(UUID userId);
+
+}
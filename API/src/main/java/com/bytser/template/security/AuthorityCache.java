@@ -0,0 +1,52 @@
+package com.bytser.template.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.bytser.template.repositories.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Roles of bearer token requests, looked up by user id instead of read from the token: a token outlives a revoked
+// admin flag or a deleted account, this cache at most security.authority-cache.time-to-live.
+// An account that no longer exists has no authorities at all, JwtAuthenticationFilter then leaves the request
+// unauthenticated.
+@Component
+public class AuthorityCache {
+
+    private static final String CACHE_NAME = "authorities";
+
+    private final UserRepository userRepository;
+    private final Cache<UUID, List<GrantedAuthority>> cache;
+
+    public AuthorityCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${security.authority-cache.maximum-size:10000}") long maximumSize,
+            @Value("${security.authority-cache.time-to-live:30s}") Duration timeToLive
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    // Empty when the account is gone
+    public List<GrantedAuthority> get(UUID userId) {
+        return cache.get(userId, id -> userRepository.findById(id)
+                .map(MyUserDetailsService::authorities)
+                .orElse(List.of()));
+    }
+}
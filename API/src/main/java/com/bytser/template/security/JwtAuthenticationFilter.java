@@ -0,0 +1,61 @@
+package com.bytser.template.security;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Authenticates "Authorization: Bearer <token>" requests: the identity from the signed claims, the roles from the
+// database through AuthorityCache. Invalid tokens, and tokens of deleted accounts, leave the request unauthenticated,
+// so protected endpoints answer 401 as usual.
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtService jwtService;
+    private final AuthorityCache authorityCache;
+
+    public JwtAuthenticationFilter(JwtService jwtService, AuthorityCache authorityCache) {
+        this.jwtService = jwtService;
+        this.authorityCache = authorityCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            try {
+                UserIdentity identity = jwtService.verify(header.substring(BEARER_PREFIX.length()).trim());
+                List<GrantedAuthority> authorities = authorityCache.get(identity.id());
+
+                if (authorities.isEmpty()) {
+                    log.debug("Rejected bearer token of deleted user id={}", identity.id());
+                } else {
+                    SecurityContext context = SecurityContextHolder.createEmptyContext();
+                    context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(identity, null, authorities));
+                    SecurityContextHolder.setContext(context);
+                }
+            } catch (JwtException | IllegalArgumentException exception) {
+                log.debug("Rejected bearer token: {}", exception.getMessage());
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,48 @@
+package com.bytser.template.security;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// security.jwt.* settings.
+// Keys are base64 HMAC secrets (at least 256 bits) by key id. Tokens are signed with activeKeyId and verified
+// with whichever key their "kid" header names, so a key can be rotated by adding the new one, switching
+// activeKeyId and removing the old one once its last tokens have expired.
+@ConfigurationProperties("security.jwt")
+public class JwtProperties {
+
+    private String issuer = "template-api";
+    private Duration expiry = Duration.ofMinutes(15);
+    private String activeKeyId;
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    public String getIssuer() {
+        return issuer;
+    }
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    public Duration getExpiry() {
+        return expiry;
+    }
+    public void setExpiry(Duration expiry) {
+        this.expiry = expiry;
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+    public void setActiveKeyId(String activeKeyId) {
+        this.activeKeyId = activeKeyId;
+    }
+
+    public Map<String, String> getKeys() {
+        return keys;
+    }
+    public void setKeys(Map<String, String> keys) {
+        this.keys = keys;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bytser.template.security;
+
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.crypto.SecretKey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+// Issues and verifies HS256 access tokens carrying the user id (sub) and username.
+// Verification is pure CPU (an HMAC), no password hash and no database lookup. Roles are deliberately not in the
+// token: it would keep a revoked role until it expires, see AuthorityCache.
+@Service
+public class JwtService {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtService.class);
+
+    private static final String CLAIM_USERNAME = "username";
+
+    private final JwtProperties properties;
+    private final Map<String, Key> keys = new LinkedHashMap<>();
+    private final String activeKeyId;
+    private final JwtParser parser;
+
+    public JwtService(JwtProperties properties) {
+        this.properties = properties;
+
+        properties.getKeys().forEach((keyId, secret) -> {
+            if (secret != null && !secret.isBlank()) {
+                keys.put(keyId, Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)));
+            }
+        });
+
+        if (keys.isEmpty()) {
+            // Keeps local runs and tests working, but tokens do not survive a restart or another replica
+            log.warn("No security.jwt.keys configured, signing tokens with an ephemeral key");
+            SecretKey ephemeral = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+            keys.put("ephemeral", ephemeral);
+        }
+
+        this.activeKeyId = properties.getActiveKeyId() != null && keys.containsKey(properties.getActiveKeyId())
+                ? properties.getActiveKeyId()
+                : keys.keySet().iterator().next();
+
+        this.parser = Jwts.parserBuilder()
+                .requireIssuer(properties.getIssuer())
+                .setAllowedClockSkewSeconds(30)
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keys.get(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown signing key " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
+
+    public String issueToken(UserIdentity identity) {
+        Instant now = Instant.now();
+
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
+                .setIssuer(properties.getIssuer())
+                .setSubject(identity.id().toString())
+                .claim(CLAIM_USERNAME, identity.username())
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plus(properties.getExpiry())))
+                .signWith(keys.get(activeKeyId), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    // Throws JwtException when the token is malformed, expired or not signed by one of our keys
+    public UserIdentity verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+
+        return new UserIdentity(
+                UUID.fromString(claims.getSubject()),
+                claims.get(CLAIM_USERNAME, String.class));
+    }
+
+    public long getExpirySeconds() {
+        return properties.getExpiry().toSeconds();
+    }
+}
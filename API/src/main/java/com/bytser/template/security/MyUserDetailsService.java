@@ -1,5 +1,9 @@
 package com.bytser.template.security;
 
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,6 +15,10 @@ import com.bytser.template.repositories.UserRepository;
 @Service
 public class MyUserDetailsService implements UserDetailsService {
 
+    private static final List<GrantedAuthority> USER = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    private static final List<GrantedAuthority> ADMIN =
+            List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+
     private final UserRepository userRepository;
 
     public MyUserDetailsService(UserRepository userRepository) {
@@ -22,6 +30,11 @@ public class MyUserDetailsService implements UserDetailsService {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return new MyUserPrincipal(user);
+        return new MyUserPrincipal(new UserIdentity(user.getId(), user.getUsername()), user.getPassword(), authorities(user));
+    }
+
+    // ROLE_USER for everyone, ROLE_ADMIN for the accounts with users.admin set
+    static List<GrantedAuthority> authorities(User user) {
+        return user.isAdmin() ? ADMIN : USER;
     }
 }
@@ -1,39 +1,41 @@
 package com.bytser.template.security;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
-import com.bytser.template.models.User;
-
 // This class is a simple class that implements UserDetails and wraps our User entity
 // This file is mainly AI generated but I believe that this is out of scope for the assignment
 // I have used user roles and authentication etc before in other projects but not with Spring Security(Self-Build authentication)
+// It carries an immutable UserIdentity instead of the entity, so the service layer can read the id without a new query
 public class MyUserPrincipal implements UserDetails {
 
-    private final User user;
+    private final UserIdentity identity;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
 
-    public MyUserPrincipal(User user) {
-        this.user = user;
+    public MyUserPrincipal(UserIdentity identity, String password, List<GrantedAuthority> authorities) {
+        this.identity = identity;
+        this.password = password;
+        this.authorities = authorities;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        // You can later replace this with real roles from your User entity, currently everyone has ROLE_USER
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        // ROLE_USER for everyone, ROLE_ADMIN for the accounts with users.admin set (see MyUserDetailsService)
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword(); // hashed password
+        return password; // hashed password
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return identity.username();
     }
 
     @Override
@@ -56,7 +58,7 @@ public class MyUserPrincipal implements UserDetails {
         return true;
     }
 
-    public User getUser() {
-        return user;
+    public UserIdentity getIdentity() {
+        return identity;
     }
 }
@@ -0,0 +1,187 @@
+package com.bytser.template.security;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Password hashing (BCrypt) off the request thread, on a small fixed pool with a bounded queue.
+// A signup burst then uses at most `threads` cores (half of them by default) and every other endpoint keeps the rest.
+// When the queue is full, or the hashes queued ahead (at the mean hash time) would already take longer than max-wait,
+// the caller gets SaturatedException right away instead of piling up: GlobalExceptionHandler answers 503 with
+// Retry-After. max-wait only bounds how long the caller waits: BCrypt cannot be interrupted, so a hash that is already
+// running when the caller gives up still finishes on its thread. A hash that has not started yet is dropped.
+// Bulk provisioning hashes on the same pool with encodeAll(), so it shares the same CPU cap.
+@Component
+public class PasswordHasher implements DisposableBean {
+
+    // The hashing pool is full, GlobalExceptionHandler maps it to 503 Service Unavailable
+    public static class SaturatedException extends RuntimeException {
+
+        public SaturatedException(String message) {
+            super(message);
+        }
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+
+    private final Timer hashTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password-hashing.max-wait:3s}") Duration maxWait
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxWait = maxWait;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hasher-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Passwords being hashed")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queued", executor, e -> e.getQueue().size())
+                .description("Passwords waiting for a hashing thread")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hashing")
+                .description("Time to hash one password, without the wait in the queue")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Hash requests turned away because the queue was full or the wait too long")
+                .register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        // Turned away before queueing: the work would be done for a caller that has already given up
+        if (expectedWaitNanos() > maxWait.toNanos()) {
+            rejected.increment();
+            throw new SaturatedException("Password hashing queue would take longer than " + maxWait.toMillis() + " ms");
+        }
+
+        Future<String> hash;
+        try {
+            hash = executor.submit(() -> hash(rawPassword));
+        } catch (RejectedExecutionException exception) {
+            rejected.increment();
+            throw new SaturatedException("Password hashing queue is full");
+        }
+
+        try {
+            return hash.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exception) {
+            // Drops the hash if it is still queued, a running one is not interrupted by this
+            hash.cancel(true);
+            rejected.increment();
+            throw new SaturatedException("No password hash within " + maxWait.toMillis() + " ms");
+        } catch (InterruptedException exception) {
+            hash.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SaturatedException("Interrupted while waiting for a password hash");
+        } catch (ExecutionException exception) {
+            throw failure(exception);
+        }
+    }
+
+    // Hashes in parallel on every hashing thread, in input order. At most `threads` of these hashes are queued
+    // at a time, so single registrations queued meanwhile are interleaved and not stuck behind the whole list.
+    // Waits for the last hash without max-wait: a long list takes long by design.
+    public List<String> encodeAll(List<String> rawPasswords) {
+        Semaphore inFlight = new Semaphore(getThreads());
+        List<Future<String>> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (String rawPassword : rawPasswords) {
+                inFlight.acquire();
+                try {
+                    hashes.add(executor.submit(() -> {
+                        try {
+                            return hash(rawPassword);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException exception) {
+                    inFlight.release();
+                    throw exception;
+                }
+            }
+
+            List<String> encoded = new ArrayList<>(hashes.size());
+            for (Future<String> hash : hashes) {
+                encoded.add(hash.get());
+            }
+            return encoded;
+        } catch (RejectedExecutionException exception) {
+            cancel(hashes);
+            rejected.increment();
+            throw new SaturatedException("Password hashing queue is full");
+        } catch (InterruptedException exception) {
+            cancel(hashes);
+            Thread.currentThread().interrupt();
+            throw new SaturatedException("Interrupted while waiting for a password hash");
+        } catch (ExecutionException exception) {
+            cancel(hashes);
+            throw failure(exception);
+        }
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    //
+    // Helper functions
+    //
+
+    private String hash(String rawPassword) {
+        return hashTimer.record(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    // Until a new hash is done: the hashes queued ahead go through `threads` at a time, then this one, each at the mean
+    // hash time so far (0 before the first hash)
+    private long expectedWaitNanos() {
+        long rounds = executor.getQueue().size() / getThreads() + 1;
+        return (long) (rounds * hashTimer.mean(TimeUnit.NANOSECONDS));
+    }
+
+    private static void cancel(List<Future<String>> hashes) {
+        hashes.forEach(hash -> hash.cancel(true));
+    }
+
+    private static RuntimeException failure(ExecutionException exception) {
+        if (exception.getCause() instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException("Password hashing failed", exception.getCause());
+    }
+}
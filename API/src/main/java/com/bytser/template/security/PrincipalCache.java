@@ -0,0 +1,66 @@
+package com.bytser.template.security;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Short-lived cache of loaded principals by username, used by the DaoAuthenticationProvider.
+// A repeated httpBasic request skips the findByUsername lookup, the password is still checked against the cached hash.
+// Username and password changes evict the entry once the transaction commits, the TTL bounds any other staleness.
+@Component
+public class PrincipalCache implements UserCache {
+
+    private static final String CACHE_NAME = "principals";
+
+    private final Cache<String, UserDetails> cache;
+
+    public PrincipalCache(
+            MeterRegistry meterRegistry,
+            @Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+            @Value("${security.principal-cache.time-to-live:60s}") Duration timeToLive
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        cache.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        // Evicting before commit would let a concurrent login re-cache the old credentials
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        } else {
+            cache.invalidate(username);
+        }
+    }
+}
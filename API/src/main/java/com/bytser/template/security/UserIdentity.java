@@ -0,0 +1,13 @@
+package com.bytser.template.security;
+
+import java.security.Principal;
+import java.util.UUID;
+
+// Immutable identity of an authenticated user, built from signed token claims without touching the database
+public record UserIdentity(UUID id, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,29 +1,56 @@
 package com.bytser.template.security;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import static org.springframework.security.config.Customizer.withDefaults;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.annotation.web.configurers.AuthorizeHttpRequestsConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(JwtProperties.class)
 public class WebSecurityConfiguration {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationManager authenticationManager,
+            JwtService jwtService, AuthorityCache authorityCache,
+            @Value("${server.port:8080}") int serverPort,
+            @Value("${management.server.port:${server.port:8080}}") int managementPort) throws Exception {
 
         http
             .csrf(AbstractHttpConfigurer::disable)
-            .authorizeHttpRequests(auth -> auth
+            .authenticationManager(authenticationManager)
+            .authorizeHttpRequests(auth -> {
+                // The Prometheus scrape is open on a management port of its own, which stays out of the public service.
+                // On the API port anyone could read it, so there it is for admins only.
+                AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizedUrl prometheus =
+                        auth.requestMatchers(HttpMethod.GET, "/actuator/prometheus");
+                if (managementPort != serverPort) {
+                    prometheus.permitAll();
+                } else {
+                    prometheus.hasRole("ADMIN");
+                }
+
+                auth
+                    // Bulk provisioning is for admins only (users.admin)
+                    .requestMatchers(HttpMethod.POST, "/users/bulk").hasRole("ADMIN")
                     // Allow user registration
                     .requestMatchers(HttpMethod.POST, "/users").permitAll()
+                    // Allow login (token issuing)
+                    .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
                      // Allow health endpoints
                     .requestMatchers("/actuator/health/**", "/health/**").permitAll() 
                     // Allow Swagger / OpenAPI
@@ -32,8 +59,10 @@ public class WebSecurityConfiguration {
                         "/swagger-ui/**",       // static assets
                         "/api-docs/**"          // OpenAPI JSON (springdoc.api-docs.path=/api-docs)
                     ).permitAll()
-                    .anyRequest().authenticated()
-            )
+                    .anyRequest().authenticated();
+            })
+            // Bearer tokens are checked first, httpBasic stays available for clients without a token
+            .addFilterBefore(new JwtAuthenticationFilter(jwtService, authorityCache), BasicAuthenticationFilter.class)
             .httpBasic(withDefaults())
             // Stateless session
             .sessionManagement(session ->
@@ -43,6 +72,15 @@ public class WebSecurityConfiguration {
         return http.build();
     }
 
+    @Bean
+    public AuthenticationManager authenticationManager(MyUserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder, PrincipalCache principalCache) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(principalCache);
+        return new ProviderManager(provider);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
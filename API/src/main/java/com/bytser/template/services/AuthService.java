@@ -0,0 +1,38 @@
+package com.bytser.template.services;
+
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import com.bytser.template.dtos.requests.LoginRequest;
+import com.bytser.template.dtos.responses.TokenResponse;
+import com.bytser.template.security.JwtService;
+import com.bytser.template.security.MyUserPrincipal;
+import com.bytser.template.security.UserIdentity;
+
+@Service
+public class AuthService {
+
+    private final AuthenticationManager authenticationManager;
+    private final JwtService jwtService;
+
+    public AuthService(AuthenticationManager authenticationManager, JwtService jwtService) {
+        this.authenticationManager = authenticationManager;
+        this.jwtService = jwtService;
+    }
+
+    // The only place a password is checked (BCrypt), every following request just verifies the token signature
+    public TokenResponse login(LoginRequest loginRequest) {
+        Authentication authentication = authenticationManager.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(loginRequest.getUsername(), loginRequest.getPassword()));
+
+        MyUserPrincipal principal = (MyUserPrincipal) authentication.getPrincipal();
+        UserIdentity identity = principal.getIdentity();
+
+        // Identity only, the roles are looked up per request (see AuthorityCache)
+        String token = jwtService.issueToken(identity);
+
+        return new TokenResponse(token, "Bearer", jwtService.getExpirySeconds());
+    }
+}
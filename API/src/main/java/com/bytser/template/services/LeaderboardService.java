@@ -0,0 +1,205 @@
+package com.bytser.template.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.dtos.responses.LeaderboardEntryResponse;
+import com.bytser.template.dtos.responses.LeaderboardResponse;
+import com.bytser.template.dtos.responses.ObserverRankResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Platform-wide leaderboards, served from an in-memory snapshot that is rebuilt on a schedule and swapped atomically:
+// requests never query the database and always see one complete refresh.
+// On PostgreSQL the snapshot is read from the V5 materialized views, refreshed CONCURRENTLY first;
+// elsewhere (H2, or PostgreSQL without the migration) the same rows are aggregated from user_species_stats directly.
+// Only one API instance refreshes the views per interval, the others load the snapshot from them as they are.
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    // Observers per species kept by the species_top_observers view
+    public static final int MAX_OBSERVERS_PER_SPECIES = 25;
+
+    // pg_try_advisory_xact_lock key, so several API instances do not refresh the views at the same time
+    private static final long REFRESH_LOCK_KEY = 0x4c454144_45525344L;
+
+    // The V14 lease row: claimed when the last refresh, by any instance, is at least the given seconds old
+    private static final String CLAIM_REFRESH_SQL = """
+            UPDATE leaderboard_refresh SET refreshed_at = now()
+            WHERE id = 1 AND refreshed_at <= now() - make_interval(secs => ?)""";
+
+    private static final String[] MATERIALIZED_VIEWS = { "species_leaderboard", "family_leaderboard", "species_top_observers" };
+
+    private static final String VIEW_SPECIES_SQL = """
+            SELECT species_code, observations, observers FROM species_leaderboard
+            ORDER BY observations DESC, species_code LIMIT ?""";
+
+    private static final String VIEW_FAMILIES_SQL = """
+            SELECT family_code, observations, observers FROM family_leaderboard
+            ORDER BY observations DESC, family_code LIMIT ?""";
+
+    private static final String VIEW_OBSERVERS_SQL = """
+            SELECT t.species_code, u.username, t.observations
+            FROM species_top_observers t JOIN users u ON u.id = t.user_id
+            WHERE t.observer_rank <= ?
+            ORDER BY t.species_code, t.observer_rank""";
+
+    private static final String SUMMARY_SPECIES_SQL = """
+            SELECT species_code, SUM(observation_count) AS observations, COUNT(DISTINCT user_id) AS observers
+            FROM user_species_stats
+            GROUP BY species_code
+            ORDER BY observations DESC, species_code LIMIT ?""";
+
+    private static final String SUMMARY_FAMILIES_SQL = """
+            SELECT family_code, SUM(observation_count) AS observations, COUNT(DISTINCT user_id) AS observers
+            FROM user_species_stats
+            GROUP BY family_code
+            ORDER BY observations DESC, family_code LIMIT ?""";
+
+    private static final String SUMMARY_OBSERVERS_SQL = """
+            SELECT r.species_code, u.username, r.observations
+            FROM (
+                SELECT species_code, user_id, SUM(observation_count) AS observations,
+                    ROW_NUMBER() OVER (PARTITION BY species_code ORDER BY SUM(observation_count) DESC, user_id) AS observer_rank
+                FROM user_species_stats
+                GROUP BY species_code, user_id
+            ) r JOIN users u ON u.id = r.user_id
+            WHERE r.observer_rank <= ?
+            ORDER BY r.species_code, r.observer_rank""";
+
+    private static final RowMapper<LeaderboardEntryResponse> ENTRY_MAPPER = (rs, rowNum) ->
+            new LeaderboardEntryResponse(rs.getString(1), rs.getLong(2), rs.getLong(3));
+
+    private record Snapshot(
+            Instant refreshedAt,
+            List<LeaderboardEntryResponse> species,
+            List<LeaderboardEntryResponse> families,
+            Map<String, List<ObserverRankResponse>> observersBySpecies
+    ) {
+        static final Snapshot EMPTY = new Snapshot(null, List.of(), List.of(), Map.of());
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final Timer refreshTimer;
+    private final Duration refreshInterval;
+    private final int size;
+    private final int observersPerSpecies;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    public LeaderboardService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            DatabasePlatform databasePlatform, MeterRegistry meterRegistry,
+            @Value("${leaderboard.refresh-interval:5m}") Duration refreshInterval,
+            @Value("${leaderboard.size:100}") int size,
+            @Value("${leaderboard.observers-per-species:10}") int observersPerSpecies) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.databasePlatform = databasePlatform;
+        this.refreshTimer = Timer.builder("leaderboard.refresh")
+                .description("Time to refresh the leaderboard views and load a new snapshot")
+                .register(meterRegistry);
+        this.refreshInterval = refreshInterval;
+        this.size = size;
+        this.observersPerSpecies = Math.min(observersPerSpecies, MAX_OBSERVERS_PER_SPECIES);
+    }
+
+    public LeaderboardResponse<LeaderboardEntryResponse> getTopSpecies(int limit) {
+        Snapshot current = snapshot.get();
+        return new LeaderboardResponse<>(current.refreshedAt(), head(current.species(), limit));
+    }
+
+    public LeaderboardResponse<LeaderboardEntryResponse> getTopFamilies(int limit) {
+        Snapshot current = snapshot.get();
+        return new LeaderboardResponse<>(current.refreshedAt(), head(current.families(), limit));
+    }
+
+    public LeaderboardResponse<ObserverRankResponse> getTopObservers(String speciesCode) {
+        Snapshot current = snapshot.get();
+        return new LeaderboardResponse<>(current.refreshedAt(), current.observersBySpecies().getOrDefault(speciesCode, List.of()));
+    }
+
+    // Also runs right after startup, until then the leaderboards are empty
+    @Scheduled(fixedDelayString = "${leaderboard.refresh-interval:5m}")
+    public void refresh() {
+        try {
+            snapshot.set(refreshTimer.record(() -> transactionTemplate.execute(status -> load())));
+        } catch (DataAccessException exception) {
+            // Keep serving the previous snapshot
+            log.warn("Leaderboard refresh failed, still serving the snapshot of {}: {}",
+                snapshot.get().refreshedAt(), exception.getMostSpecificCause().getMessage());
+        }
+    }
+
+    //
+    // Helper functions
+    //
+
+    private Snapshot load() {
+        boolean materialized = databasePlatform.isPostgres()
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT to_regclass('species_leaderboard') IS NOT NULL", Boolean.class));
+
+        if (materialized && claimRefresh()) {
+            for (String view : MATERIALIZED_VIEWS) {
+                jdbcTemplate.execute("REFRESH MATERIALIZED VIEW CONCURRENTLY " + view);
+            }
+        }
+
+        List<LeaderboardEntryResponse> species = jdbcTemplate.query(
+                materialized ? VIEW_SPECIES_SQL : SUMMARY_SPECIES_SQL, ENTRY_MAPPER, size);
+        List<LeaderboardEntryResponse> families = jdbcTemplate.query(
+                materialized ? VIEW_FAMILIES_SQL : SUMMARY_FAMILIES_SQL, ENTRY_MAPPER, size);
+
+        Map<String, List<ObserverRankResponse>> observersBySpecies = new HashMap<>();
+        jdbcTemplate.query(materialized ? VIEW_OBSERVERS_SQL : SUMMARY_OBSERVERS_SQL, rs -> {
+            observersBySpecies.computeIfAbsent(rs.getString(1), code -> new ArrayList<>())
+                    .add(new ObserverRankResponse(rs.getString(2), rs.getLong(3)));
+        }, observersPerSpecies);
+        observersBySpecies.replaceAll((code, observers) -> List.copyOf(observers));
+
+        log.debug("Leaderboards refreshed ({}): {} species, {} families",
+            materialized ? "materialized views" : "user_species_stats", species.size(), families.size());
+
+        return new Snapshot(Instant.now(), List.copyOf(species), List.copyOf(families), Map.copyOf(observersBySpecies));
+    }
+
+    // The advisory lock (released at commit) keeps a second instance from waiting on a running refresh, the lease row
+    // from refreshing again right after it finished: the instances' schedules are not in step
+    private boolean claimRefresh() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, REFRESH_LOCK_KEY))) {
+            return false;
+        }
+        // Without V14 the lock alone decides
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass('leaderboard_refresh') IS NOT NULL", Boolean.class))) {
+            return true;
+        }
+        // Half an interval, so the instance that refreshed last time is not skipped for a few milliseconds of drift
+        return jdbcTemplate.update(CLAIM_REFRESH_SQL, refreshInterval.toMillis() / 2000.0) == 1;
+    }
+
+    private static <T> List<T> head(List<T> entries, int limit) {
+        return entries.subList(0, Math.clamp(limit, 0, entries.size()));
+    }
+}
@@ -0,0 +1,91 @@
+package com.bytser.template.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.components.ObservationExportWriter;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.models.Observation;
+import com.bytser.template.repositories.ObservationRepository;
+import com.bytser.template.security.UserIdentity;
+
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.ObjectMapper;
+
+@Service
+public class ObservationExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ObservationExportService.class);
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ObservationRepository observationRepository;
+    private final UserService userService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ObservationExportService(ObservationRepository observationRepository, UserService userService,
+            EntityManager entityManager, ObjectMapper objectMapper) {
+        this.observationRepository = observationRepository;
+        this.userService = userService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    public MediaType mediaTypeOf(String format) {
+        return switch (format.toLowerCase()) {
+            case "ndjson" -> MediaType.APPLICATION_NDJSON;
+            case "csv" -> ObservationImportService.TEXT_CSV;
+            default -> throw new BadRequestException("Onbekend exportformaat " + format + ", kies ndjson of csv");
+        };
+    }
+
+    // Streams every observation of the current user, oldest first, straight into the output.
+    // readOnly routes the cursor to a read replica and every row is detached once written,
+    // so neither the heap nor the persistence context grows with the number of observations.
+    @Transactional(readOnly = true)
+    public long exportObservations(MediaType mediaType, boolean gzip, OutputStream out) {
+        UserIdentity currentUser = userService.getCurrentUser();
+        long start = System.nanoTime();
+        long exported = 0;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE) : out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+                Stream<Observation> observations = observationRepository.streamByOwnerId(currentUser.id())) {
+            ObservationExportWriter export = ObservationImportService.TEXT_CSV.equals(mediaType)
+                    ? ObservationExportWriter.csv(writer)
+                    : ObservationExportWriter.ndjson(writer, objectMapper);
+
+            Iterator<Observation> rows = observations.iterator();
+            while (rows.hasNext()) {
+                Observation observation = rows.next();
+                export.write(observation);
+                entityManager.detach(observation);
+                exported++;
+            }
+            export.finish();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        // !INFO: Log exports for debugging and auditing
+        log.info("Exported {} observations for user id={} as {}{} in {} ms",
+            exported, currentUser.id(), mediaType, gzip ? " (gzip)" : "", (System.nanoTime() - start) / 1_000_000);
+
+        return exported;
+    }
+}
@@ -0,0 +1,214 @@
+package com.bytser.template.services;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.components.GeoGrid;
+import com.bytser.template.dtos.responses.NearbyObservationResponse;
+import com.bytser.template.dtos.responses.ObservationResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.repositories.ObservationRepository;
+
+// Platform-wide sightings around a point or inside a bounding box.
+// The grid cells covering the area prune through the (geo_cell, date_time) index, every candidate is then checked
+// against the exact radius or box and reading stops as soon as the page is full.
+// On PostgreSQL every cell is read newest first up to one batch (LIMIT per cell or grid row) and merged, so a busy
+// area never sorts its whole history; the next batch continues behind the last row (keyset) while the page is not full.
+// Elsewhere (H2) one query sorts all candidates of the window.
+@Service
+public class ObservationGeoService {
+
+    public static final double DEFAULT_RADIUS_KM = 5;
+    public static final double MAX_RADIUS_KM = 50;
+
+    // Open ends of a search window, within the timestamp range of both PostgreSQL and H2
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final String COLUMNS = "o.observationid, s.code AS species_code, f.code AS family_code, "
+            + "o.location, o.latitude, o.longitude, o.date_time, o.notes";
+
+    // The newest rows of the union are always among the newest rows of their own range, so LIMIT per range and
+    // once more over the merge is exact. Parameters: first and last cells (arrays), from, keyset time (twice, the
+    // first one lets the index stop there), keyset id, LIMIT per range, LIMIT overall. %s is the range condition.
+    private static final String NEWEST_SQL = """
+            SELECT %s
+            FROM unnest(?::bigint[], ?::bigint[]) AS r(first_cell, last_cell)
+            CROSS JOIN LATERAL (
+                SELECT x.observationid, x.species_id, x.location, x.latitude, x.longitude, x.date_time, x.notes
+                FROM observation x
+                WHERE %s AND x.date_time >= ? AND x.date_time <= ?
+                  AND (x.date_time, x.observationid) < (?, ?)
+                ORDER BY x.date_time DESC, x.observationid DESC
+                LIMIT ?
+            ) o
+            JOIN species s ON s.id = o.species_id JOIN family f ON f.id = s.family_id
+            ORDER BY o.date_time DESC, o.observationid DESC
+            LIMIT ?""";
+
+    // One cell per range: the index returns each cell's rows already in date_time order
+    private static final String NEWEST_IN_CELLS_SQL = NEWEST_SQL.formatted(COLUMNS, "x.geo_cell = r.first_cell");
+    private static final String NEWEST_IN_RANGES_SQL = NEWEST_SQL.formatted(COLUMNS, "x.geo_cell BETWEEN r.first_cell AND r.last_cell");
+
+    private final ObservationRepository observationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    public ObservationGeoService(ObservationRepository observationRepository, JdbcTemplate jdbcTemplate,
+            DatabasePlatform databasePlatform) {
+        this.observationRepository = observationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    // Newest first, every observation with its distance to the point
+    @Transactional(readOnly = true)
+    public List<NearbyObservationResponse> findNearby(double latitude, double longitude, Double radiusKm,
+            LocalDateTime from, LocalDateTime to, Integer limit) {
+        validatePoint(latitude, longitude);
+        double radius = radiusKm == null ? DEFAULT_RADIUS_KM : radiusKm;
+        if (!(radius > 0 && radius <= MAX_RADIUS_KM)) {
+            throw new BadRequestException("radiusKm moet tussen 0 en " + (int) MAX_RADIUS_KM + " liggen");
+        }
+
+        // Near the poles a radius spans more (narrow) cells than MAX_CELLS: read whole grid rows instead
+        GeoGrid.Box area = GeoGrid.around(latitude, longitude, radius);
+        List<GeoGrid.CellRange> ranges = GeoGrid.cellCount(area) <= GeoGrid.MAX_CELLS
+                ? singleCells(GeoGrid.cellsWithin(area))
+                : GeoGrid.rangesWithin(area);
+
+        return newest(ranges, from, to, pageSize(limit), observation -> GeoGrid.distanceKm(
+                        latitude, longitude, observation.getLatitude(), observation.getLongitude()) <= radius)
+                .stream()
+                .map(observation -> new NearbyObservationResponse(observation, GeoGrid.distanceKm(
+                        latitude, longitude, observation.getLatitude(), observation.getLongitude())))
+                .toList();
+    }
+
+    // Newest first; minLongitude > maxLongitude selects a box across the antimeridian
+    @Transactional(readOnly = true)
+    public List<ObservationResponse> findWithin(double minLatitude, double minLongitude, double maxLatitude,
+            double maxLongitude, LocalDateTime from, LocalDateTime to, Integer limit) {
+        validatePoint(minLatitude, minLongitude);
+        validatePoint(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new BadRequestException("minLatitude mag niet groter zijn dan maxLatitude");
+        }
+
+        GeoGrid.Box box = new GeoGrid.Box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        return newest(singleCells(GeoGrid.cellsWithin(box)), from, to, pageSize(limit),
+                observation -> box.contains(observation.getLatitude(), observation.getLongitude()));
+    }
+
+    //
+    // Helper functions
+    //
+
+    // The newest candidates in the ranges that are inside the area, at most pageSize
+    private List<ObservationResponse> newest(List<GeoGrid.CellRange> ranges, LocalDateTime from, LocalDateTime to,
+            int pageSize, Predicate<ObservationResponse> inArea) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from moet voor to liggen");
+        }
+        LocalDateTime start = from == null ? EARLIEST : from;
+        LocalDateTime end = to == null ? LATEST : to;
+
+        if (!databasePlatform.isPostgres()) {
+            try (Stream<ObservationResponse> candidates = streamCandidates(ranges, start, end)) {
+                return candidates.filter(inArea).limit(pageSize).toList();
+            }
+        }
+
+        boolean singleCells = ranges.stream().allMatch(range -> range.firstCell() == range.lastCell());
+        String sql = singleCells ? NEWEST_IN_CELLS_SQL : NEWEST_IN_RANGES_SQL;
+        Long[] firstCells = ranges.stream().map(GeoGrid.CellRange::firstCell).toArray(Long[]::new);
+        Long[] lastCells = ranges.stream().map(GeoGrid.CellRange::lastCell).toArray(Long[]::new);
+
+        // Everything before the end of the window (ids are positive)
+        LocalDateTime beforeTime = end;
+        long beforeId = 0;
+        List<ObservationResponse> page = new ArrayList<>(pageSize);
+        while (true) {
+            LocalDateTime keysetTime = beforeTime;
+            long keysetId = beforeId;
+            List<ObservationResponse> batch = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setArray(1, connection.createArrayOf("bigint", firstCells));
+                statement.setArray(2, connection.createArrayOf("bigint", lastCells));
+                statement.setTimestamp(3, Timestamp.valueOf(start));
+                statement.setTimestamp(4, Timestamp.valueOf(keysetTime));
+                statement.setTimestamp(5, Timestamp.valueOf(keysetTime));
+                statement.setLong(6, keysetId);
+                statement.setInt(7, pageSize);
+                statement.setInt(8, pageSize);
+                return statement;
+            }, (rs, rowNum) -> observation(rs));
+
+            for (ObservationResponse observation : batch) {
+                if (inArea.test(observation)) {
+                    page.add(observation);
+                    if (page.size() == pageSize) {
+                        return page;
+                    }
+                }
+            }
+            if (batch.size() < pageSize) {
+                return page;
+            }
+
+            ObservationResponse last = batch.get(batch.size() - 1);
+            beforeTime = last.getDateTime();
+            beforeId = last.getObservationId();
+        }
+    }
+
+    // H2: the cells listed, or every cell key from the first to the last range (the area filter drops the rest)
+    private Stream<ObservationResponse> streamCandidates(List<GeoGrid.CellRange> ranges, LocalDateTime start, LocalDateTime end) {
+        if (ranges.stream().allMatch(range -> range.firstCell() == range.lastCell())) {
+            return observationRepository.streamInCells(ranges.stream().map(GeoGrid.CellRange::firstCell).toList(), start, end);
+        }
+        return observationRepository.streamInCellRange(
+                ranges.stream().mapToLong(GeoGrid.CellRange::firstCell).min().orElseThrow(),
+                ranges.stream().mapToLong(GeoGrid.CellRange::lastCell).max().orElseThrow(), start, end);
+    }
+
+    private static List<GeoGrid.CellRange> singleCells(List<Long> cells) {
+        return cells.stream().map(cell -> new GeoGrid.CellRange(cell, cell)).toList();
+    }
+
+    private static ObservationResponse observation(ResultSet rs) throws SQLException {
+        return new ObservationResponse(
+                rs.getLong("observationid"),
+                rs.getString("species_code"),
+                rs.getString("family_code"),
+                rs.getString("location"),
+                rs.getObject("latitude", Double.class),
+                rs.getObject("longitude", Double.class),
+                rs.getTimestamp("date_time").toLocalDateTime(),
+                rs.getString("notes")
+        );
+    }
+
+    private static void validatePoint(double latitude, double longitude) {
+        // Written so NaN fails too
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new BadRequestException("Ongeldige coordinaten " + latitude + "," + longitude);
+        }
+    }
+
+    private static int pageSize(Integer limit) {
+        return limit == null ? ObservationService.DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, ObservationService.MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,141 @@
+package com.bytser.template.services;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import com.bytser.template.components.ObservationBatchWriter;
+import com.bytser.template.components.ObservationImportReader;
+import com.bytser.template.dtos.responses.ImportBatchResponse;
+import com.bytser.template.dtos.responses.ImportRejectionResponse;
+import com.bytser.template.dtos.responses.ImportResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.security.UserIdentity;
+
+import tools.jackson.databind.ObjectMapper;
+
+@Service
+public class ObservationImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ObservationImportService.class);
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ObservationBatchWriter batchWriter;
+    private final UserService userService;
+    private final SpeciesCatalogService speciesCatalogService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public ObservationImportService(ObservationBatchWriter batchWriter, UserService userService,
+            SpeciesCatalogService speciesCatalogService, ObjectMapper objectMapper,
+            @Value("${observations.import.batch-size:1000}") int batchSize) {
+        this.batchWriter = batchWriter;
+        this.userService = userService;
+        this.speciesCatalogService = speciesCatalogService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    // Streams the upload into the current user's observations, batch by batch.
+    // Each batch commits on its own: when one fails, the batches before it stay imported and the response says where it stopped.
+    public ImportResponse importObservations(InputStream body, MediaType contentType) {
+        UserIdentity currentUser = userService.getCurrentUser();
+
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset), READ_BUFFER_SIZE);
+        ObservationImportReader parser = TEXT_CSV.isCompatibleWith(contentType)
+                ? ObservationImportReader.csv(reader)
+                : ObservationImportReader.ndjson(reader, objectMapper);
+
+        List<ObservationImportReader.Row> batch = new ArrayList<>(batchSize);
+        List<ImportBatchResponse> batches = new ArrayList<>();
+        List<ImportRejectionResponse> rejections = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+        int rejectedInBatch = 0;
+        String error = null;
+
+        try {
+            ObservationImportReader.Result result;
+            while (error == null && (result = parser.next()) != null) {
+                ObservationImportReader.Rejection rejection = result.rejection() != null
+                        ? result.rejection()
+                        : checkSpecies(result.row());
+                if (rejection != null) {
+                    rejected++;
+                    rejectedInBatch++;
+                    if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                        rejections.add(new ImportRejectionResponse(rejection.line(), rejection.reason()));
+                    }
+                    continue;
+                }
+
+                batch.add(result.row());
+                if (batch.size() == batchSize) {
+                    error = flush(currentUser, batch, rejectedInBatch, batches);
+                    imported += error == null ? batch.size() : 0;
+                    batch.clear();
+                    rejectedInBatch = 0;
+                }
+            }
+
+            if (error == null && (!batch.isEmpty() || rejectedInBatch > 0)) {
+                error = flush(currentUser, batch, rejectedInBatch, batches);
+                imported += error == null ? batch.size() : 0;
+            }
+        } catch (IllegalArgumentException exception) {
+            // Only an unusable CSV header gets here, row errors are rejections
+            throw new BadRequestException(exception.getMessage());
+        }
+
+        // !INFO: Log imports for debugging and auditing
+        log.info("Imported {} observations for user id={} ({} rejected, {} batches{})",
+            imported, currentUser.id(), rejected, batches.size(), error == null ? "" : ", stopped: " + error);
+
+        return new ImportResponse(imported, rejected, error == null, error, batches, rejections);
+    }
+
+    // Registers a new species up front, outside the batch transaction; a family that contradicts the catalog rejects the row
+    private ObservationImportReader.Rejection checkSpecies(ObservationImportReader.Row row) {
+        try {
+            speciesCatalogService.resolve(row.speciesCode(), row.familyCode());
+            return null;
+        } catch (BadRequestException exception) {
+            return new ObservationImportReader.Rejection(row.line(), exception.getMessage());
+        }
+    }
+
+    private String flush(UserIdentity user, List<ObservationImportReader.Row> batch, int rejectedInBatch,
+            List<ImportBatchResponse> batches) {
+        long start = System.nanoTime();
+        int number = batches.size() + 1;
+
+        if (!batch.isEmpty()) {
+            try {
+                batchWriter.write(user.id(), batch);
+            } catch (DataAccessException exception) {
+                log.warn("Import batch {} for user id={} failed: {}", number, user.id(), exception.getMostSpecificCause().getMessage());
+                return "Batch " + number + " kon niet worden opgeslagen: " + exception.getMostSpecificCause().getMessage();
+            }
+        }
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        batches.add(new ImportBatchResponse(number, batch.size(), rejectedInBatch, millis));
+        log.debug("Import batch {} for user id={}: {} rows in {} ms", number, user.id(), batch.size(), millis);
+        return null;
+    }
+}
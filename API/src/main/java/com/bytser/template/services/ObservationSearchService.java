@@ -0,0 +1,204 @@
+package com.bytser.template.services;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.components.ObservationSearchCursor;
+import com.bytser.template.dtos.responses.ObservationPageResponse;
+import com.bytser.template.dtos.responses.ObservationResponse;
+import com.bytser.template.exceptions.BadRequestException;
+
+// Full-text search over the notes of the current user's observations, best match first, keyset-paginated on (rank, id).
+// On PostgreSQL it uses the generated notes_search tsvector column and its GIN index (V9/V10 migrations) with
+// websearch syntax ("nest -leeg", "\"jonge vogel\"", "nest or ei") and ts_rank.
+// Elsewhere (H2, or PostgreSQL without the migration) every word must occur in the notes (LIKE) and the rank is the
+// number of occurrences: good enough for development, not meant for large tables.
+@Service
+public class ObservationSearchService {
+
+    public static final int MAX_QUERY_LENGTH = 200;
+    private static final int MAX_FALLBACK_TERMS = 8;
+
+    private static final String COLUMNS = "o.observationid, s.code AS species_code, f.code AS family_code, "
+            + "o.location, o.latitude, o.longitude, o.date_time, o.notes";
+
+    private static final String TABLES =
+            "observation o JOIN species s ON s.id = o.species_id JOIN family f ON f.id = s.family_id";
+
+    // 'simple' configuration: no stemming or stop words, notes are written in several languages.
+    // Normalization 1 divides the rank by 1 + log(length), so a long note does not win just by being long.
+    private static final String RANKED_SQL = """
+            SELECT %s, ts_rank(o.notes_search, q.query, 1) AS rank
+            FROM websearch_to_tsquery('simple', ?) AS q(query) CROSS JOIN %s
+            WHERE o.example_id = ? AND o.notes_search @@ q.query""".formatted(COLUMNS, TABLES);
+
+    private static final String POSTGRES_FIRST_PAGE_SQL = """
+            SELECT * FROM (%s) m
+            ORDER BY m.rank DESC, m.observationid DESC
+            LIMIT ?""".formatted(RANKED_SQL);
+
+    private static final String POSTGRES_NEXT_PAGE_SQL = """
+            SELECT * FROM (%s) m
+            WHERE m.rank < ? OR (m.rank = ? AND m.observationid < ?)
+            ORDER BY m.rank DESC, m.observationid DESC
+            LIMIT ?""".formatted(RANKED_SQL);
+
+    private static final String FALLBACK_SQL =
+            "SELECT " + COLUMNS + " FROM " + TABLES + " WHERE o.example_id = ?";
+
+    private record Match(ObservationResponse observation, float rank) {
+    }
+
+    // Words that must and must not occur, for the fallback
+    private record Terms(List<String> included, List<String> excluded) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final UserService userService;
+    private volatile Boolean indexed;
+
+    public ObservationSearchService(JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform, UserService userService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.userService = userService;
+    }
+
+    @Transactional(readOnly = true)
+    public ObservationPageResponse search(String query, String cursor, Integer limit) {
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("Zoekterm ontbreekt of is langer dan " + MAX_QUERY_LENGTH + " tekens");
+        }
+        UUID userId = userService.getCurrentUser().id();
+        int pageSize = limit == null ? ObservationService.DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, ObservationService.MAX_PAGE_SIZE);
+        ObservationSearchCursor position = cursor == null || cursor.isBlank() ? null : ObservationSearchCursor.decode(cursor);
+
+        // One extra row tells whether there is a next page
+        List<Match> rows = isIndexed()
+                ? searchIndexed(userId, query, position, pageSize + 1)
+                : searchFallback(userId, query, position, pageSize + 1);
+
+        if (rows.size() <= pageSize) {
+            return new ObservationPageResponse(rows.stream().map(Match::observation).toList(), null);
+        }
+
+        List<Match> page = rows.subList(0, pageSize);
+        Match last = page.get(page.size() - 1);
+        return new ObservationPageResponse(
+                page.stream().map(Match::observation).toList(),
+                new ObservationSearchCursor(last.rank(), last.observation().getObservationId()).encode());
+    }
+
+    //
+    // Helper functions
+    //
+
+    private List<Match> searchIndexed(UUID userId, String query, ObservationSearchCursor position, int fetch) {
+        if (position == null) {
+            return jdbcTemplate.query(POSTGRES_FIRST_PAGE_SQL, (rs, rowNum) -> match(rs), query, userId, fetch);
+        }
+        return jdbcTemplate.query(POSTGRES_NEXT_PAGE_SQL, (rs, rowNum) -> match(rs),
+                query, userId, position.rank(), position.rank(), position.observationId(), fetch);
+    }
+
+    private List<Match> searchFallback(UUID userId, String query, ObservationSearchCursor position, int fetch) {
+        Terms terms = terms(query);
+        if (terms.included().isEmpty()) {
+            return List.of();
+        }
+
+        StringBuilder sql = new StringBuilder(FALLBACK_SQL);
+        List<Object> arguments = new ArrayList<>();
+        arguments.add(userId);
+        for (String term : terms.included()) {
+            sql.append(" AND LOWER(o.notes) LIKE ? ESCAPE '\\'");
+            arguments.add(likePattern(term));
+        }
+        for (String term : terms.excluded()) {
+            sql.append(" AND LOWER(o.notes) NOT LIKE ? ESCAPE '\\'");
+            arguments.add(likePattern(term));
+        }
+
+        List<Match> matches = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            ObservationResponse observation = observation(rs);
+            return new Match(observation, occurrences(observation.getNotes().toLowerCase(Locale.ROOT), terms.included()));
+        }, arguments.toArray());
+
+        return matches.stream()
+                .filter(match -> position == null || match.rank() < position.rank()
+                        || (match.rank() == position.rank() && match.observation().getObservationId() < position.observationId()))
+                .sorted(Comparator.comparing(Match::rank).reversed()
+                        .thenComparing(match -> match.observation().getObservationId(), Comparator.reverseOrder()))
+                .limit(fetch)
+                .toList();
+    }
+
+    // Detected once: the column only exists where the V9 migration ran
+    private boolean isIndexed() {
+        Boolean detected = indexed;
+        if (detected == null) {
+            detected = databasePlatform.isPostgres() && Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                    SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                                   WHERE table_name = 'observation' AND column_name = 'notes_search')""", Boolean.class));
+            indexed = detected;
+        }
+        return detected;
+    }
+
+    private static Match match(ResultSet rs) throws SQLException {
+        return new Match(observation(rs), rs.getFloat("rank"));
+    }
+
+    private static ObservationResponse observation(ResultSet rs) throws SQLException {
+        return new ObservationResponse(
+                rs.getLong("observationid"),
+                rs.getString("species_code"),
+                rs.getString("family_code"),
+                rs.getString("location"),
+                rs.getObject("latitude", Double.class),
+                rs.getObject("longitude", Double.class),
+                rs.getTimestamp("date_time").toLocalDateTime(),
+                rs.getString("notes")
+        );
+    }
+
+    // Words of the query, lowercased; a word of a -token must not occur, quotes and "or" are ignored
+    private static Terms terms(String query) {
+        List<String> included = new ArrayList<>();
+        List<String> excluded = new ArrayList<>();
+        for (String token : query.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            List<String> target = token.startsWith("-") ? excluded : included;
+            for (String word : token.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty() && !word.equals("or") && !target.contains(word)
+                        && included.size() + excluded.size() < MAX_FALLBACK_TERMS) {
+                    target.add(word);
+                }
+            }
+        }
+        return new Terms(included, excluded);
+    }
+
+    private static String likePattern(String term) {
+        return "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static float occurrences(String notes, List<String> terms) {
+        int count = 0;
+        for (String term : terms) {
+            for (int index = notes.indexOf(term); index >= 0; index = notes.indexOf(term, index + term.length())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,177 @@
+package com.bytser.template.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.components.ObservationCursor;
+import com.bytser.template.dtos.requests.CreateObservationRequest;
+import com.bytser.template.dtos.requests.UpdateObservationRequest;
+import com.bytser.template.dtos.responses.ObservationPageResponse;
+import com.bytser.template.dtos.responses.ObservationResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.exceptions.NotFoundException;
+import com.bytser.template.models.Observation;
+import com.bytser.template.repositories.ObservationRepository;
+import com.bytser.template.repositories.UserRepository;
+import com.bytser.template.security.UserIdentity;
+
+@Service
+public class ObservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ObservationService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final ObservationRepository observationRepository;
+    private final UserRepository userRepository;
+    private final ObservationStatsService observationStatsService;
+    private final UserService userService;
+    private final SpeciesCatalogService speciesCatalogService;
+
+    public ObservationService(ObservationRepository observationRepository, UserRepository userRepository,
+            ObservationStatsService observationStatsService, UserService userService,
+            SpeciesCatalogService speciesCatalogService) {
+        this.observationRepository = observationRepository;
+        this.userRepository = userRepository;
+        this.observationStatsService = observationStatsService;
+        this.userService = userService;
+        this.speciesCatalogService = speciesCatalogService;
+    }
+
+    @Transactional(readOnly = false)
+    public ObservationResponse addObservation(CreateObservationRequest createObservation) {
+        UserIdentity currentUser = userService.getCurrentUser();
+
+        // A reference only carries the id for the foreign key, the User and its observations collection stay unloaded
+        Observation observation = new Observation(
+                speciesCatalogService.resolve(createObservation.getSpeciesCode(), createObservation.getFamilyCode()),
+                createObservation.getLocation(),
+                createObservation.getDateTime(),
+                createObservation.getNotes() == null ? "" : createObservation.getNotes(),
+                userRepository.getReferenceById(currentUser.id())
+        );
+
+        observationRepository.save(observation);
+        observationStatsService.recordInsert(currentUser.id(), observation);
+
+        return toResponse(observation);
+    }
+
+    @Transactional(readOnly = true)
+    public ObservationResponse getObservation(Long observationId) {
+        return toResponse(findOwnObservation(observationId));
+    }
+
+    @Transactional(readOnly = true)
+    public ObservationPageResponse getObservations(String cursor, Integer limit) {
+        UserIdentity currentUser = userService.getCurrentUser();
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
+
+        // One extra row tells whether there is a next page without a COUNT query
+        Limit fetch = Limit.of(pageSize + 1);
+        List<ObservationResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = observationRepository.findFirstPage(currentUser.id(), fetch);
+        } else {
+            ObservationCursor position = ObservationCursor.decode(cursor);
+            rows = observationRepository.findPageAfter(
+                    currentUser.id(), position.dateTime(), position.observationId(), fetch);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new ObservationPageResponse(rows, null);
+        }
+
+        List<ObservationResponse> page = rows.subList(0, pageSize);
+        ObservationResponse last = page.get(page.size() - 1);
+        return new ObservationPageResponse(
+                List.copyOf(page),
+                new ObservationCursor(last.getDateTime(), last.getObservationId()).encode());
+    }
+
+    @Transactional(readOnly = false)
+    public ObservationResponse updateObservation(Long observationId, UpdateObservationRequest updateObservation) {
+        // At least one field must be provided
+        if (isBlank(updateObservation.getSpeciesCode()) && isBlank(updateObservation.getFamilyCode())
+                && isBlank(updateObservation.getLocation()) && updateObservation.getDateTime() == null
+                && updateObservation.getNotes() == null) {
+            throw new BadRequestException("Ongeldige of ontbrekende input data");
+        }
+
+        Observation observation = findOwnObservation(observationId);
+        String previousSpeciesCode = observation.getSpeciesCode();
+        String previousFamilyCode = observation.getFamilyCode();
+        LocalDateTime previousDateTime = observation.getDateTime();
+
+        // The family follows from the species, a given family code is only checked against the catalog
+        if (!isBlank(updateObservation.getSpeciesCode()) || !isBlank(updateObservation.getFamilyCode())) {
+            observation.setSpecies(speciesCatalogService.resolve(
+                    isBlank(updateObservation.getSpeciesCode()) ? previousSpeciesCode : updateObservation.getSpeciesCode(),
+                    isBlank(updateObservation.getFamilyCode()) ? null : updateObservation.getFamilyCode()));
+        }
+        if (!isBlank(updateObservation.getLocation())) {
+            observation.setLocation(updateObservation.getLocation());
+        }
+        if (updateObservation.getDateTime() != null) {
+            observation.setDateTime(updateObservation.getDateTime());
+        }
+        if (updateObservation.getNotes() != null) {
+            observation.setNotes(updateObservation.getNotes());
+        }
+
+        observationStatsService.recordUpdate(userService.getCurrentUser().id(),
+                previousSpeciesCode, previousFamilyCode, previousDateTime, observation);
+
+        return toResponse(observation);
+    }
+
+    @Transactional(readOnly = false)
+    public void deleteObservation(Long observationId) {
+        UUID userId = userService.getCurrentUser().id();
+        Observation observation = findOwnObservation(observationId);
+
+        observationRepository.delete(observation);
+        observationStatsService.recordDelete(userId,
+                observation.getSpeciesCode(), observation.getFamilyCode(), observation.getDateTime());
+
+        // !INFO: Log Observation deletes for debugging and auditing
+        log.info("Observation deleted with id={} by user id={}", observationId, userId);
+    }
+
+    //
+    // Helper functions
+    //
+
+    // Another user's observation is reported as not found, so ids cannot be probed
+    private Observation findOwnObservation(Long observationId) {
+        UserIdentity currentUser = userService.getCurrentUser();
+
+        return observationRepository.findByObservationIDAndOwnerId(observationId, currentUser.id())
+                .orElseThrow(() -> new NotFoundException("Waarneming met id " + observationId + " niet gevonden"));
+    }
+
+    private static ObservationResponse toResponse(Observation observation) {
+        return new ObservationResponse(
+                observation.getObservationID(),
+                observation.getSpeciesCode(),
+                observation.getFamilyCode(),
+                observation.getLocation(),
+                observation.getLatitude(),
+                observation.getLongitude(),
+                observation.getDateTime(),
+                observation.getNotes()
+        );
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
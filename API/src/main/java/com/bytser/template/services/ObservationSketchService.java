@@ -0,0 +1,254 @@
+package com.bytser.template.services;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.components.HyperLogLog;
+import com.bytser.template.components.ObservationImportReader;
+import com.bytser.template.dtos.projections.MonthlySpeciesAggregate;
+import com.bytser.template.dtos.projections.SpeciesAggregate;
+import com.bytser.template.dtos.responses.DistinctCountResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.models.UserMonthSketch;
+import com.bytser.template.models.UserMonthSketchId;
+import com.bytser.template.repositories.ObservationRepository;
+import com.bytser.template.repositories.UserMonthSketchRepository;
+
+import jakarta.persistence.EntityManager;
+
+// Approximate distinct counts from the user_month_sketch rows: one per user per month with the exact observation
+// count and HyperLogLog sketches of the species and families. Any window of whole months, for one user or the whole
+// platform, is answered by merging those sketches instead of a COUNT(DISTINCT) over the observations.
+// The write side is called by ObservationStatsService inside the observation's own transaction (MANDATORY).
+@Service
+public class ObservationSketchService {
+
+    private static final List<String> APPROXIMATE_FIELDS = List.of("uniqueSpecies", "uniqueFamilies");
+
+    // Open ends of a window, within the date range of both PostgreSQL and H2
+    private static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 1);
+
+    private static final List<String> KEY_COLUMNS = List.of("user_id", "month_start");
+    private static final List<String> VALUE_COLUMNS = List.of("observation_count", "species_sketch", "family_sketch");
+    private static final byte[] EMPTY_SKETCH = new HyperLogLog().toBytes();
+
+    private final UserMonthSketchRepository sketchRepository;
+    private final ObservationRepository observationRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    public ObservationSketchService(UserMonthSketchRepository sketchRepository,
+            ObservationRepository observationRepository, EntityManager entityManager,
+            JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform) {
+        this.sketchRepository = sketchRepository;
+        this.observationRepository = observationRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInsert(UUID userId, String speciesCode, String familyCode, LocalDateTime dateTime) {
+        UserMonthSketch sketch = lockedSketch(new UserMonthSketchId(userId, monthOf(dateTime)));
+        add(sketch, 1, Set.of(speciesCode), Set.of(familyCode));
+    }
+
+    // Months in ascending order, so concurrent imports lock the sketch rows in the same order
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBatch(UUID userId, List<ObservationImportReader.Row> rows) {
+        Map<LocalDate, MonthDelta> deltas = new TreeMap<>();
+        for (ObservationImportReader.Row row : rows) {
+            deltas.computeIfAbsent(monthOf(row.dateTime()), month -> new MonthDelta())
+                    .add(row.speciesCode(), row.familyCode(), 1);
+        }
+
+        deltas.forEach((month, delta) -> add(
+                lockedSketch(new UserMonthSketchId(userId, month)), delta.count, delta.species, delta.families));
+    }
+
+    // A sketch cannot forget a value: the month an observation was removed from is sketched again from the
+    // observations it still has. Call after the change, the auto-flush makes it visible to the aggregate query.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recalculate(UUID userId, LocalDateTime dateTime) {
+        UserMonthSketchId id = new UserMonthSketchId(userId, monthOf(dateTime));
+
+        // Lock before reading the month, so a concurrent insert into it is applied after this recalculation
+        UserMonthSketch sketch = sketchRepository.findForUpdate(id).orElse(null);
+        List<SpeciesAggregate> rows = observationRepository.aggregateBySpeciesBetween(
+                userId, id.getMonthStart().atStartOfDay(), id.getMonthStart().plusMonths(1).atStartOfDay());
+
+        if (rows.isEmpty()) {
+            if (sketch != null) {
+                sketchRepository.delete(sketch);
+            }
+            return;
+        }
+
+        MonthDelta month = new MonthDelta();
+        rows.forEach(row -> month.add(row.getSpeciesCode(), row.getFamilyCode(), row.getObservationCount()));
+
+        if (sketch == null) {
+            sketch = lockedSketch(id);
+        }
+        sketch.setObservationCount(month.count);
+        sketch.setSpeciesSketch(sketchOf(month.species));
+        sketch.setFamilySketch(sketchOf(month.families));
+    }
+
+    // Recompute every month of one user from scratch, part of ObservationStatsService.rebuild
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rebuild(UUID userId) {
+        sketchRepository.deleteByUserId(userId);
+
+        Map<LocalDate, MonthDelta> months = new TreeMap<>();
+        for (MonthlySpeciesAggregate row : observationRepository.aggregateBySpeciesPerMonth(userId)) {
+            months.computeIfAbsent(row.getMonthStart().toLocalDate(), month -> new MonthDelta())
+                    .add(row.getSpeciesCode(), row.getFamilyCode(), row.getObservationCount());
+        }
+
+        sketchRepository.saveAll(months.entrySet().stream()
+                .map(month -> {
+                    UserMonthSketch sketch = new UserMonthSketch(new UserMonthSketchId(userId, month.getKey()));
+                    sketch.setObservationCount(month.getValue().count);
+                    sketch.setSpeciesSketch(sketchOf(month.getValue().species));
+                    sketch.setFamilySketch(sketchOf(month.getValue().families));
+                    return sketch;
+                })
+                .toList());
+    }
+
+    @Transactional(readOnly = true)
+    public DistinctCountResponse estimateForUser(UUID userId, LocalDateTime from, LocalDateTime to) {
+        LocalDate fromMonth = windowStart(from, to);
+        LocalDate toMonth = windowEnd(to);
+
+        // At most one row per month of the window
+        Estimate estimate = new Estimate();
+        sketchRepository.findByUserBetween(userId, fromMonth, toMonth).forEach(estimate::merge);
+
+        return estimate.toResponse(from == null ? null : fromMonth, to == null ? null : toMonth);
+    }
+
+    @Transactional(readOnly = true)
+    public DistinctCountResponse estimateForPlatform(LocalDateTime from, LocalDateTime to) {
+        LocalDate fromMonth = windowStart(from, to);
+        LocalDate toMonth = windowEnd(to);
+
+        // One row per active user per month, streamed and detached so memory stays at two sketches
+        Estimate estimate = new Estimate();
+        try (Stream<UserMonthSketch> sketches = sketchRepository.streamBetween(fromMonth, toMonth)) {
+            sketches.forEach(sketch -> {
+                estimate.merge(sketch);
+                entityManager.detach(sketch);
+            });
+        }
+
+        return estimate.toResponse(from == null ? null : fromMonth, to == null ? null : toMonth);
+    }
+
+    //
+    // Helper functions
+    //
+
+    // The sketch row of one month, created empty when missing and locked for the rest of the transaction.
+    // Create-if-absent first, like ObservationStatsService.lockedStats: two concurrent first observations of a month
+    // then both lock the same row, instead of both missing it and one failing on the primary key
+    private UserMonthSketch lockedSketch(UserMonthSketchId id) {
+        String insertIfAbsent = databasePlatform.insertIfAbsentSql("user_month_sketch", KEY_COLUMNS, VALUE_COLUMNS);
+        jdbcTemplate.update(insertIfAbsent, id.getUserId(), Date.valueOf(id.getMonthStart()), 0L, EMPTY_SKETCH, EMPTY_SKETCH);
+
+        return sketchRepository.findForUpdate(id)
+                .orElseThrow(() -> new IllegalStateException("Sketch row " + id + " missing right after its insert"));
+    }
+
+    private static void add(UserMonthSketch sketch, long count, Set<String> speciesCodes, Set<String> familyCodes) {
+        HyperLogLog species = sketch.getSpeciesSketch();
+        speciesCodes.forEach(species::add);
+        HyperLogLog families = sketch.getFamilySketch();
+        familyCodes.forEach(families::add);
+
+        sketch.setObservationCount(sketch.getObservationCount() + count);
+        sketch.setSpeciesSketch(species);
+        sketch.setFamilySketch(families);
+    }
+
+    private static HyperLogLog sketchOf(Set<String> codes) {
+        HyperLogLog sketch = new HyperLogLog();
+        codes.forEach(sketch::add);
+        return sketch;
+    }
+
+    private static LocalDate monthOf(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().withDayOfMonth(1);
+    }
+
+    // Sketches cover whole months: from is rounded down to its month, to up to the next month boundary
+    private static LocalDate windowStart(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from moet voor to liggen");
+        }
+        return from == null ? EARLIEST : monthOf(from);
+    }
+
+    private static LocalDate windowEnd(LocalDateTime to) {
+        if (to == null) {
+            return LATEST;
+        }
+        LocalDate month = monthOf(to);
+        return to.equals(month.atStartOfDay()) ? month : month.plusMonths(1);
+    }
+
+    private static final class MonthDelta {
+
+        private final Set<String> species = new HashSet<>();
+        private final Set<String> families = new HashSet<>();
+        private long count;
+
+        void add(String speciesCode, String familyCode, long observations) {
+            species.add(speciesCode);
+            families.add(familyCode);
+            count += observations;
+        }
+    }
+
+    private static final class Estimate {
+
+        private final HyperLogLog species = new HyperLogLog();
+        private final HyperLogLog families = new HyperLogLog();
+        private long observations;
+
+        void merge(UserMonthSketch sketch) {
+            species.merge(sketch.getSpeciesSketch());
+            families.merge(sketch.getFamilySketch());
+            observations += sketch.getObservationCount();
+        }
+
+        DistinctCountResponse toResponse(LocalDate from, LocalDate to) {
+            return new DistinctCountResponse(
+                    from == null ? null : from.atStartOfDay(),
+                    to == null ? null : to.atStartOfDay(),
+                    observations,
+                    species.estimate(),
+                    families.estimate(),
+                    APPROXIMATE_FIELDS,
+                    HyperLogLog.RELATIVE_STANDARD_ERROR
+            );
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.bytser.template.services;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.components.ObservationImportReader;
+import com.bytser.template.components.UserStatsCache;
+import com.bytser.template.dtos.projections.ObservationSpan;
+import com.bytser.template.dtos.projections.SpeciesAggregate;
+import com.bytser.template.exceptions.NotFoundException;
+import com.bytser.template.models.Observation;
+import com.bytser.template.models.UserSpeciesStats;
+import com.bytser.template.models.UserSpeciesStatsId;
+import com.bytser.template.repositories.ObservationRepository;
+import com.bytser.template.repositories.UserRepository;
+import com.bytser.template.repositories.UserSpeciesStatsRepository;
+
+import jakarta.persistence.EntityManager;
+
+// Keeps the user_species_stats aggregate, and through ObservationSketchService the monthly distinct-count sketches,
+// in sync with the observation table.
+// Every observation write must call the matching record* method inside its own transaction (MANDATORY),
+// so the aggregates commit or roll back together with the observation itself.
+@Service
+public class ObservationStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ObservationStatsService.class);
+
+    private static final List<String> KEY_COLUMNS = List.of("user_id", "species_code", "family_code");
+    private static final List<String> VALUE_COLUMNS = List.of("observation_count", "earliest_observation", "latest_observation");
+
+    private final UserSpeciesStatsRepository statsRepository;
+    private final ObservationRepository observationRepository;
+    private final UserRepository userRepository;
+    private final UserStatsCache userStatsCache;
+    private final ObservationSketchService sketchService;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final EntityManager entityManager;
+
+    public ObservationStatsService(UserSpeciesStatsRepository statsRepository,
+            ObservationRepository observationRepository, UserRepository userRepository,
+            UserStatsCache userStatsCache, ObservationSketchService sketchService,
+            JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform, EntityManager entityManager) {
+        this.statsRepository = statsRepository;
+        this.observationRepository = observationRepository;
+        this.userRepository = userRepository;
+        this.userStatsCache = userStatsCache;
+        this.sketchService = sketchService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInsert(UUID userId, Observation observation) {
+        userStatsCache.invalidate(userId);
+        sketchService.recordInsert(userId, observation.getSpeciesCode(), observation.getFamilyCode(), observation.getDateTime());
+        insertStats(userId, observation);
+    }
+
+    // Call after the observation has been removed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDelete(UUID userId, String speciesCode, String familyCode, LocalDateTime dateTime) {
+        userStatsCache.invalidate(userId);
+        sketchService.recalculate(userId, dateTime);
+        deleteStats(userId, speciesCode, familyCode, dateTime);
+    }
+
+    // Call after the observation has been updated, with the values it had before the update
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdate(UUID userId, String previousSpeciesCode, String previousFamilyCode,
+            LocalDateTime previousDateTime, Observation observation) {
+        userStatsCache.invalidate(userId);
+        boolean sameKey = previousSpeciesCode.equals(observation.getSpeciesCode())
+                && previousFamilyCode.equals(observation.getFamilyCode());
+        boolean sameMonth = previousDateTime.getYear() == observation.getDateTime().getYear()
+                && previousDateTime.getMonth() == observation.getDateTime().getMonth();
+
+        // The month it left is sketched again (that also picks up a new code within the month), the month it moved to gains it
+        if (!sameKey || !sameMonth) {
+            sketchService.recalculate(userId, previousDateTime);
+        }
+        if (!sameMonth) {
+            sketchService.recordInsert(userId, observation.getSpeciesCode(), observation.getFamilyCode(), observation.getDateTime());
+        }
+
+        if (!sameKey) {
+            deleteStats(userId, previousSpeciesCode, previousFamilyCode, previousDateTime);
+            insertStats(userId, observation);
+            return;
+        }
+
+        if (previousDateTime.equals(observation.getDateTime())) {
+            return;
+        }
+
+        UserSpeciesStatsId id = new UserSpeciesStatsId(userId, previousSpeciesCode, previousFamilyCode);
+        UserSpeciesStats stats = statsRepository.findForUpdate(id).orElse(null);
+        if (stats == null) {
+            insertStats(userId, observation);
+            return;
+        }
+
+        if (previousDateTime.equals(stats.getEarliestObservation()) || previousDateTime.equals(stats.getLatestObservation())) {
+            recalculateWindow(stats);
+        } else {
+            stats.widen(observation.getDateTime());
+        }
+    }
+
+    // Apply a bulk insert with one locked stats row per species/family instead of one per observation
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordBatch(UUID userId, List<ObservationImportReader.Row> rows) {
+        userStatsCache.invalidate(userId);
+        sketchService.recordBatch(userId, rows);
+
+        for (SpeciesAggregate delta : aggregate(rows)) {
+            UserSpeciesStatsId id = new UserSpeciesStatsId(userId, delta.getSpeciesCode(), delta.getFamilyCode());
+            UserSpeciesStats stats = lockedStats(id, delta.getEarliestObservation());
+
+            stats.setObservationCount(stats.getObservationCount() + delta.getObservationCount());
+            stats.widen(delta.getEarliestObservation());
+            stats.widen(delta.getLatestObservation());
+        }
+    }
+
+    // Recompute all stats rows of one user from scratch (backfill & repair)
+    @Transactional(readOnly = false)
+    public void rebuild(UUID userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Gebruiker met id " + userId + " niet gevonden");
+        }
+
+        userStatsCache.invalidate(userId);
+        statsRepository.deleteByUserId(userId);
+
+        // GROUP BY runs in the database, only one row per species/family comes back
+        List<UserSpeciesStats> rows = observationRepository.aggregateBySpecies(userId).stream()
+                .map(aggregate -> {
+                    UserSpeciesStats stats = new UserSpeciesStats(
+                            new UserSpeciesStatsId(userId, aggregate.getSpeciesCode(), aggregate.getFamilyCode()),
+                            aggregate.getEarliestObservation());
+                    stats.setObservationCount(aggregate.getObservationCount());
+                    stats.setLatestObservation(aggregate.getLatestObservation());
+                    return stats;
+                })
+                .toList();
+
+        statsRepository.saveAll(rows);
+        sketchService.rebuild(userId);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private void insertStats(UUID userId, Observation observation) {
+        UserSpeciesStatsId id = new UserSpeciesStatsId(userId, observation.getSpeciesCode(), observation.getFamilyCode());
+
+        UserSpeciesStats stats = lockedStats(id, observation.getDateTime());
+
+        stats.include(observation.getDateTime());
+    }
+
+    // The stats row of one key, created empty (count 0) when missing and locked for the rest of the transaction.
+    // Create-if-absent first: two concurrent first observations of a species then both lock the same row,
+    // instead of both missing it and one failing on the primary key
+    private UserSpeciesStats lockedStats(UserSpeciesStatsId id, LocalDateTime firstObservation) {
+        Timestamp first = Timestamp.valueOf(firstObservation);
+        // Hibernate does not flush for plain JDBC: a pending delete of this row would otherwise leave the insert a
+        // no-op and only run before findForUpdate, which then finds nothing
+        entityManager.flush();
+        String insertIfAbsent = databasePlatform.insertIfAbsentSql("user_species_stats", KEY_COLUMNS, VALUE_COLUMNS);
+        jdbcTemplate.update(insertIfAbsent, id.getUserId(), id.getSpeciesCode(), id.getFamilyCode(), 0L, first, first);
+
+        return statsRepository.findForUpdate(id)
+                .orElseThrow(() -> new IllegalStateException("Stats row " + id + " missing right after its insert"));
+    }
+
+    private void deleteStats(UUID userId, String speciesCode, String familyCode, LocalDateTime dateTime) {
+        UserSpeciesStatsId id = new UserSpeciesStatsId(userId, speciesCode, familyCode);
+
+        UserSpeciesStats stats = statsRepository.findForUpdate(id).orElse(null);
+        if (stats == null) {
+            // Not backfilled yet, the next rebuild picks up the current state anyway
+            log.warn("No stats row for user={} species={} family={} while deleting an observation",
+                userId, speciesCode, familyCode);
+            return;
+        }
+
+        if (stats.getObservationCount() <= 1) {
+            statsRepository.delete(stats);
+            return;
+        }
+
+        stats.setObservationCount(stats.getObservationCount() - 1);
+
+        // Only a removed boundary can shrink the window
+        if (dateTime.equals(stats.getEarliestObservation()) || dateTime.equals(stats.getLatestObservation())) {
+            recalculateWindow(stats);
+        }
+    }
+
+    private void recalculateWindow(UserSpeciesStats stats) {
+        UserSpeciesStatsId id = stats.getId();
+
+        // Auto-flush makes the pending delete/update visible to this query
+        ObservationSpan span = observationRepository.findSpeciesSpan(
+                id.getUserId(), id.getSpeciesCode(), id.getFamilyCode());
+
+        stats.setEarliestObservation(span.getFirstObservation());
+        stats.setLatestObservation(span.getLastObservation());
+    }
+
+    // One delta per species/family in a fixed order, so concurrent imports lock the stats rows in the same order
+    private static List<SpeciesAggregate> aggregate(List<ObservationImportReader.Row> rows) {
+        Map<List<String>, SpeciesAggregate> deltas = new HashMap<>();
+        for (ObservationImportReader.Row row : rows) {
+            deltas.merge(
+                    List.of(row.speciesCode(), row.familyCode()),
+                    new SpeciesAggregate(row.speciesCode(), row.familyCode(), 1, row.dateTime(), row.dateTime()),
+                    (a, b) -> new SpeciesAggregate(a.getSpeciesCode(), a.getFamilyCode(),
+                            a.getObservationCount() + b.getObservationCount(),
+                            a.getEarliestObservation().isBefore(b.getEarliestObservation()) ? a.getEarliestObservation() : b.getEarliestObservation(),
+                            a.getLatestObservation().isAfter(b.getLatestObservation()) ? a.getLatestObservation() : b.getLatestObservation()));
+        }
+
+        List<SpeciesAggregate> sorted = new ArrayList<>(deltas.values());
+        sorted.sort(Comparator.comparing(SpeciesAggregate::getSpeciesCode).thenComparing(SpeciesAggregate::getFamilyCode));
+        return sorted;
+    }
+}
@@ -0,0 +1,168 @@
+package com.bytser.template.services;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.dtos.responses.SpeciesResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.models.Family;
+import com.bytser.template.models.Species;
+import com.bytser.template.repositories.FamilyRepository;
+import com.bytser.template.repositories.SpeciesRepository;
+
+// In-memory species/family catalog behind the species_id of every observation.
+// The whole catalog (a few thousand rows at most) is loaded once at startup into an immutable snapshot,
+// so turning a species code into its id or back is a map lookup and never a query.
+// An unknown species is registered on first use: its rows are committed in their own transaction (the snapshot
+// must never point at a row that a rolled back observation write took with it) and a new snapshot with that one
+// species added is swapped in. Registering looks up only that code, the whole catalog is read once at startup.
+// A species belongs to exactly one family, a code pair that contradicts the catalog is rejected.
+@Service
+public class SpeciesCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(SpeciesCatalogService.class);
+
+    // Two instances registering the same code: the loser retries and finds the winner's row
+    private static final int REGISTER_ATTEMPTS = 3;
+
+    private record Catalog(Map<String, Species> byCode, Map<Integer, Species> byId) {
+
+        static Catalog of(Collection<Species> species) {
+            return new Catalog(
+                    species.stream().collect(Collectors.toUnmodifiableMap(Species::getCode, Function.identity())),
+                    species.stream().collect(Collectors.toUnmodifiableMap(Species::getId, Function.identity())));
+        }
+
+        Catalog with(Species species) {
+            Map<String, Species> codes = new HashMap<>(byCode);
+            Map<Integer, Species> ids = new HashMap<>(byId);
+            codes.put(species.getCode(), species);
+            ids.put(species.getId(), species);
+            return new Catalog(Map.copyOf(codes), Map.copyOf(ids));
+        }
+    }
+
+    private final SpeciesRepository speciesRepository;
+    private final FamilyRepository familyRepository;
+    private final TransactionTemplate ownTransaction;
+    private final AtomicReference<Catalog> catalog = new AtomicReference<>();
+    private final ReentrantLock registerLock = new ReentrantLock();
+
+    public SpeciesCatalogService(SpeciesRepository speciesRepository, FamilyRepository familyRepository,
+            PlatformTransactionManager transactionManager) {
+        this.speciesRepository = speciesRepository;
+        this.familyRepository = familyRepository;
+        // Read-write so it runs on the primary, which has every row another instance registered
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        log.info("Species catalog loaded: {} species", reload().byId().size());
+    }
+
+    // familyCode may be null when the caller only knows the species, which then has to exist already
+    public Species resolve(String speciesCode, String familyCode) {
+        Species species = current().byCode().get(speciesCode);
+        if (species == null) {
+            species = register(speciesCode, familyCode);
+        }
+
+        if (familyCode != null && !familyCode.equals(species.getFamilyCode())) {
+            throw new BadRequestException("Soort " + speciesCode + " hoort bij familie " + species.getFamilyCode()
+                    + ", niet bij " + familyCode);
+        }
+        return species;
+    }
+
+    public List<SpeciesResponse> getCatalog() {
+        return current().byCode().values().stream()
+                .sorted(Comparator.comparing(Species::getCode))
+                .map(species -> new SpeciesResponse(species.getCode(), species.getName(),
+                        species.getFamilyCode(), species.getFamily().getName()))
+                .toList();
+    }
+
+    //
+    // Helper functions
+    //
+
+    private Catalog current() {
+        Catalog loaded = catalog.get();
+        return loaded != null ? loaded : reload();
+    }
+
+    private Catalog reload() {
+        Catalog loaded = ownTransaction.execute(status -> Catalog.of(speciesRepository.findAllWithFamily()));
+        catalog.set(loaded);
+        return loaded;
+    }
+
+    // Serialized within the instance, the unique codes take care of other instances.
+    // A lock instead of synchronized: before JDK 24 a virtual thread blocking in JDBC inside a monitor pins its carrier.
+    private Species register(String speciesCode, String familyCode) {
+        registerLock.lock();
+        try {
+            return registerLocked(speciesCode, familyCode);
+        } finally {
+            registerLock.unlock();
+        }
+    }
+
+    private Species registerLocked(String speciesCode, String familyCode) {
+        for (int attempt = 1; attempt <= REGISTER_ATTEMPTS; attempt++) {
+            // Another thread registered it while this one waited for the lock
+            Species species = current().byCode().get(speciesCode);
+            if (species != null) {
+                return species;
+            }
+            // Or another instance did
+            species = ownTransaction.execute(status -> speciesRepository.findByCode(speciesCode).orElse(null));
+            if (species != null) {
+                return merge(species);
+            }
+            if (familyCode == null) {
+                throw new BadRequestException("Onbekende soort " + speciesCode + ", geef ook de familiecode mee");
+            }
+
+            try {
+                Species registered = ownTransaction.execute(status -> {
+                    Family family = familyRepository.findByCode(familyCode)
+                            .orElseGet(() -> familyRepository.saveAndFlush(new Family(familyCode)));
+                    return speciesRepository.saveAndFlush(new Species(speciesCode, family));
+                });
+                // !INFO: Log new catalog entries for debugging and auditing
+                log.info("Registered species {} in family {}", speciesCode, familyCode);
+                return merge(registered);
+            } catch (DataIntegrityViolationException exception) {
+                log.debug("Species {} or family {} was registered concurrently, retrying", speciesCode, familyCode);
+            }
+        }
+
+        throw new IllegalStateException("Could not register species " + speciesCode);
+    }
+
+    // Only called under registerLock, after resolve() has loaded the snapshot
+    private Species merge(Species species) {
+        catalog.updateAndGet(loaded -> loaded.with(species));
+        return species;
+    }
+}
@@ -0,0 +1,259 @@
+package com.bytser.template.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.components.UserBatchWriter;
+import com.bytser.template.dtos.requests.CreateUserRequest;
+import com.bytser.template.dtos.responses.BulkUserResponse;
+import com.bytser.template.dtos.responses.BulkUserResultResponse;
+import com.bytser.template.repositories.UserRepository;
+import com.bytser.template.security.PasswordHasher;
+import com.bytser.template.security.UserIdentity;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+// Bulk account creation for onboarding a partner: an NDJSON stream of CreateUserRequest objects, one per line.
+// Rows are validated and de-duplicated (username and email) in memory as they are read. Then per batch:
+// one query each for usernames and emails already taken (on the primary: a replica may not have a user created
+// seconds ago, and that would fail the whole batch), every password hashed in parallel on the hashing pool,
+// and one JDBC batch insert in its own transaction. Each line gets a result: created with its id, or the reason why not.
+// A failed batch stops the upload; the batches before it stay created and the response says where it stopped.
+@Service
+public class UserProvisioningService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProvisioningService.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // A validated row waiting for its batch
+    private record Pending(long line, CreateUserRequest request) {
+    }
+
+    private final UserBatchWriter batchWriter;
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate primaryTransaction;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxRows;
+
+    public UserProvisioningService(UserBatchWriter batchWriter, UserRepository userRepository,
+            PasswordHasher passwordHasher, PlatformTransactionManager transactionManager, Validator validator,
+            ObjectMapper objectMapper,
+            @Value("${users.provisioning.batch-size:500}") int batchSize,
+            @Value("${users.provisioning.max-rows:100000}") int maxRows) {
+        this.batchWriter = batchWriter;
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        // Read-write, so the checks run on the primary
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    public BulkUserResponse provision(UserIdentity admin, InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+
+        // First line of every username / email in this upload
+        Map<String, Long> usernames = new HashMap<>();
+        Map<String, Long> emails = new HashMap<>();
+        List<Pending> batch = new ArrayList<>(batchSize);
+        List<BulkUserResultResponse> results = new ArrayList<>();
+        long lineNumber = 0;
+        long rows = 0;
+        String error = null;
+
+        String line;
+        while (error == null && (line = readLine(reader)) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (++rows > maxRows) {
+                error = "Maximaal " + maxRows + " gebruikers per upload, gestopt bij regel " + lineNumber;
+                break;
+            }
+
+            CreateUserRequest request;
+            try {
+                request = objectMapper.readValue(line, CreateUserRequest.class);
+            } catch (JacksonException exception) {
+                results.add(BulkUserResultResponse.rejected(lineNumber, null, "Ongeldige JSON: " + exception.getOriginalMessage()));
+                continue;
+            }
+            if (request == null) {
+                results.add(BulkUserResultResponse.rejected(lineNumber, null, "Verwacht een JSON object per regel"));
+                continue;
+            }
+
+            String rejection = validate(request);
+            if (rejection == null) {
+                rejection = duplicate("Gebruikersnaam " + request.getUsername(), usernames.putIfAbsent(request.getUsername(), lineNumber));
+            }
+            if (rejection == null) {
+                rejection = duplicate("Emailadres " + request.getEmail(), emails.putIfAbsent(request.getEmail(), lineNumber));
+            }
+            if (rejection != null) {
+                results.add(BulkUserResultResponse.rejected(lineNumber, request.getUsername(), rejection));
+                continue;
+            }
+
+            batch.add(new Pending(lineNumber, request));
+            if (batch.size() == batchSize) {
+                error = flush(admin, batch, results);
+                batch.clear();
+            }
+        }
+
+        if (error == null && !batch.isEmpty()) {
+            error = flush(admin, batch, results);
+        }
+
+        results.sort(Comparator.comparingLong(BulkUserResultResponse::getLine));
+        long created = results.stream().filter(BulkUserResultResponse::isCreated).count();
+
+        // !INFO: Log bulk provisioning for debugging and auditing (every created user is also in the audit trail)
+        log.info("Provisioned {} users for admin id={} ({} rejected{})",
+            created, admin.id(), results.size() - created, error == null ? "" : ", stopped: " + error);
+
+        return new BulkUserResponse(created, results.size() - created, error == null, error, results);
+    }
+
+    //
+    // Helper functions
+    //
+
+    // Rows that cannot be created (taken) are rejected, the rest is hashed and inserted. null or the reason it stopped
+    private String flush(UserIdentity admin, List<Pending> batch, List<BulkUserResultResponse> results) {
+        List<Pending> remaining = rejectTaken(batch, results);
+        if (remaining.isEmpty()) {
+            return null;
+        }
+
+        List<String> hashes;
+        try {
+            hashes = passwordHasher.encodeAll(remaining.stream().map(pending -> pending.request().getPassword()).toList());
+        } catch (PasswordHasher.SaturatedException exception) {
+            return "Wachtwoorden vanaf regel " + remaining.get(0).line() + " konden niet worden versleuteld: " + exception.getMessage();
+        }
+
+        List<UserBatchWriter.Row> rows = new ArrayList<>(remaining.size());
+        for (int i = 0; i < remaining.size(); i++) {
+            Pending pending = remaining.get(i);
+            rows.add(new UserBatchWriter.Row(pending.line(), UUID.randomUUID(), pending.request().getUsername(),
+                    pending.request().getEmail(), hashes.get(i)));
+        }
+
+        try {
+            batchWriter.write(admin.id(), rows);
+        } catch (DataIntegrityViolationException exception) {
+            // Taken since the check above (a concurrent signup): reject those rows and insert the rest once more
+            Set<Long> stillFree = rejectTaken(remaining, results).stream().map(Pending::line).collect(Collectors.toSet());
+            if (stillFree.size() == rows.size()) {
+                return failed(rows, exception);
+            }
+            rows.removeIf(row -> !stillFree.contains(row.line()));
+            if (!rows.isEmpty()) {
+                try {
+                    batchWriter.write(admin.id(), rows);
+                } catch (DataAccessException retryException) {
+                    return failed(rows, retryException);
+                }
+            }
+        } catch (DataAccessException exception) {
+            return failed(rows, exception);
+        }
+
+        for (UserBatchWriter.Row row : rows) {
+            results.add(BulkUserResultResponse.created(row.line(), row.username(), row.id()));
+        }
+        return null;
+    }
+
+    private static String failed(List<UserBatchWriter.Row> rows, DataAccessException exception) {
+        log.warn("Bulk user batch from line {} failed: {}", rows.get(0).line(), exception.getMostSpecificCause().getMessage());
+        return "Batch vanaf regel " + rows.get(0).line() + " kon niet worden opgeslagen: " + exception.getMostSpecificCause().getMessage();
+    }
+
+    private List<Pending> rejectTaken(List<Pending> batch, List<BulkUserResultResponse> results) {
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        primaryTransaction.executeWithoutResult(status -> {
+            takenUsernames.addAll(userRepository.findTakenUsernames(
+                    batch.stream().map(pending -> pending.request().getUsername()).toList()));
+            takenEmails.addAll(userRepository.findTakenEmails(
+                    batch.stream().map(pending -> pending.request().getEmail()).toList()));
+        });
+
+        List<Pending> remaining = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            String reason = taken(pending.request().getUsername(), pending.request().getEmail(), takenUsernames, takenEmails);
+            if (reason != null) {
+                results.add(BulkUserResultResponse.rejected(pending.line(), pending.request().getUsername(), reason));
+            } else {
+                remaining.add(pending);
+            }
+        }
+        return remaining;
+    }
+
+    private static String taken(String username, String email, Set<String> takenUsernames, Set<String> takenEmails) {
+        if (takenUsernames.contains(username)) {
+            return "Gebruikersnaam " + username + " is al in gebruik";
+        }
+        if (takenEmails.contains(email)) {
+            return "Emailadres " + email + " is al in gebruik";
+        }
+        return null;
+    }
+
+    // The same rules as POST /users (the @NotBlank / @Email messages of CreateUserRequest)
+    private String validate(CreateUserRequest request) {
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+    }
+
+    private static String duplicate(String what, Long firstLine) {
+        return firstLine == null ? null : what + " staat al op regel " + firstLine;
+    }
+
+    private static String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
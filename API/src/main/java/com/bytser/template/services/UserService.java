@@ -1,63 +1,111 @@
 package com.bytser.template.services;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.bytser.template.components.DurationFormatter;
+import com.bytser.template.components.AuditLog;
+import com.bytser.template.components.ConsistencyToken;
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.components.ObservationStatsEngine;
+import com.bytser.template.components.UserStatsCache;
 import com.bytser.template.dtos.requests.CreateUserRequest;
 import com.bytser.template.dtos.requests.UpdateUserRequest;
-import com.bytser.template.dtos.responses.SpeciesStatsResponse;
+import com.bytser.template.dtos.projections.SpeciesAggregate;
+import com.bytser.template.dtos.responses.DistinctCountResponse;
+import com.bytser.template.dtos.responses.StatsBucketResponse;
+import com.bytser.template.dtos.responses.StatsHistogramResponse;
 import com.bytser.template.dtos.responses.UserStatsResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.exceptions.ConflictException;
 import com.bytser.template.exceptions.NotFoundException;
-import com.bytser.template.models.Observation;
+import com.bytser.template.models.AuditAction;
 import com.bytser.template.models.User;
+import com.bytser.template.models.UserSpeciesStats;
+import com.bytser.template.repositories.ObservationRepository;
 import com.bytser.template.repositories.UserRepository;
+import com.bytser.template.repositories.UserSpeciesStatsRepository;
+import com.bytser.template.security.MyUserPrincipal;
+import com.bytser.template.security.PasswordHasher;
+import com.bytser.template.security.PrincipalCache;
+import com.bytser.template.security.UserIdentity;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class UserService {
-    
-    private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
-    private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    // Open ends of a stats window, within the timestamp range of both PostgreSQL and H2
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    private final UserRepository userRepository;
+    private final UserSpeciesStatsRepository userSpeciesStatsRepository;
+    private final ObservationRepository observationRepository;
+    private final UserStatsCache userStatsCache;
+    private final PrincipalCache principalCache;
+    private final PasswordHasher passwordHasher;
+    private final ObservationSketchService observationSketchService;
+    private final AuditLog auditLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate replicaTransaction;
+    private final TransactionTemplate primaryTransaction;
+    private final StatsMetrics wholeHistoryMetrics;
+    private final StatsMetrics windowMetrics;
+
+    public UserService(UserRepository userRepository, UserSpeciesStatsRepository userSpeciesStatsRepository,
+            ObservationRepository observationRepository, UserStatsCache userStatsCache, PrincipalCache principalCache,
+            PasswordHasher passwordHasher, ObservationSketchService observationSketchService, AuditLog auditLog,
+            JdbcTemplate jdbcTemplate, DatabasePlatform databasePlatform, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userSpeciesStatsRepository = userSpeciesStatsRepository;
+        this.observationRepository = observationRepository;
+        this.userStatsCache = userStatsCache;
+        this.principalCache = principalCache;
+        this.passwordHasher = passwordHasher;
+        this.observationSketchService = observationSketchService;
+        this.auditLog = auditLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databasePlatform = databasePlatform;
+        // Stats loads pick their datasource themselves, see getUserStats
+        this.replicaTransaction = new TransactionTemplate(transactionManager);
+        this.replicaTransaction.setReadOnly(true);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.wholeHistoryMetrics = StatsMetrics.register(meterRegistry, "all");
+        this.windowMetrics = StatsMetrics.register(meterRegistry, "range");
     }
     
     @Transactional(readOnly = false)
     public void addUser(CreateUserRequest createUserRequest) {
-        if (userRepository.existsByUsername(createUserRequest.getUsername())) {
-            throw new NotFoundException("Gebruikersnaam " + createUserRequest.getUsername() + " is al in gebruik");
-        }
-
+        // Hashed before the first statement, so no connection is held during BCrypt
         User user = new User(
                 createUserRequest.getUsername(),
                 createUserRequest.getEmail(),
-                passwordEncoder.encode(createUserRequest.getPassword())    // Encode/Hash the password 
+                passwordHasher.encode(createUserRequest.getPassword())    // Encode/Hash the password 
         );
 
-        userRepository.save(user);
+        // One INSERT, a taken username or email comes back as a unique violation (409)
+        saveUnique(user);
 
-        // !INFO: Log User creation for debugging and auditing
-        log.info("User created successfully with id={} and username={}",
-            user.getId(), user.getUsername());
+        // Audit trail, written in the background once this transaction commits
+        auditLog.record(AuditAction.USER_CREATED, user.getId(), null, "username=" + user.getUsername());
     }
 
     @Transactional(readOnly = false)
@@ -69,213 +117,215 @@ public class UserService {
             throw new NotFoundException("Ongeldige of ontbrekende input data");
         }
 
+        // Hashed before the lookup, so no connection is held during BCrypt
+        String passwordHash = updateUser.getPassword() != null && !updateUser.getPassword().isBlank()
+                ? passwordHasher.encode(updateUser.getPassword())     // Encode/Hash the password 
+                : null;
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() ->
                         new NotFoundException("Gebruiker met id " + userId + " niet gevonden"));
+        String previousUsername = user.getUsername();
+
+        // Names of the changed fields for the audit trail, never their values
+        List<String> changed = new ArrayList<>(3);
 
         // Update username if present
         if (updateUser.getUsername() != null && !updateUser.getUsername().isBlank()) {
             user.setUsername(updateUser.getUsername());
+            changed.add("username");
         }
 
         // Update email if present
         if (updateUser.getEmail() != null && !updateUser.getEmail().isBlank()) {
             user.setEmail(updateUser.getEmail());
+            changed.add("email");
         }
 
         // Update password if present
-        if (updateUser.getPassword() != null && !updateUser.getPassword().isBlank()) {
-            user.setPassword(passwordEncoder.encode(updateUser.getPassword()));     // Encode/Hash the password 
+        if (passwordHash != null) {
+            user.setPassword(passwordHash);
+            changed.add("password");
         }
 
-        userRepository.save(user);
+        saveUnique(user);
+        userStatsCache.invalidate(user.getId());
+        // Cached credentials are keyed by the old username
+        principalCache.removeUserFromCache(previousUsername);
 
-        // !INFO: Log User updates for debugging and auditing
-        log.info("User updated successfully with id={} and (new)username={}",
-            user.getId(), user.getUsername());
+        // Audit trail, written in the background once this transaction commits
+        auditLog.record(AuditAction.USER_UPDATED, user.getId(), getCurrentUser().id(), "changed=" + String.join(",", changed));
     }
 
-    @Transactional(readOnly = true)
-    public UserStatsResponse getUserStats() {
-        User currentUser = getCurrentUser();
-
-        // All observations of this User
-        List<Observation> userObservations = currentUser.getObservations();
+    // Not @Transactional: a cache miss right after a write loads from the primary, see UserStatsCache
+    public UserStatsResponse getUserStats(LocalDateTime from, LocalDateTime to) {
+        UserIdentity currentUser = getCurrentUser();
 
-        int userTotalObservations = userObservations.size();
-
-        // Count Unique species & families of User
-        int uniqueSpecies = (int) userObservations.stream()
-                .map(Observation::getSpeciesCode)
-                .distinct()
-                .count();
-
-        int uniqueFamilies = (int) userObservations.stream()
-                .map(Observation::getFamilyCode)
-                .distinct()
-                .count();
+        if (from == null && to == null) {
+            // Served from cache until this user's observations or profile change
+            return wholeHistoryMetrics.record(() -> userStatsCache.get(currentUser.id(),
+                    userId -> replicaTransaction.execute(status -> calculateUserStats(userId)),
+                    userId -> primaryTransaction.execute(status -> calculateUserStatsOnPrimary(userId))));
+        }
 
-        // Calculate average time between observations
-        String avgTimeBetweenObservations = calculateAvgTimeBetweenObservations(userObservations);
+        // A window is aggregated from the observations themselves, not cached (every window is a different key)
+        validateWindow(from, to);
+        return windowMetrics.record(() -> replicaTransaction.execute(status -> {
+            ObservationStatsEngine statsEngine = new ObservationStatsEngine();
+            for (SpeciesAggregate aggregate : observationRepository.aggregateBySpeciesBetween(
+                    currentUser.id(), windowStart(from), windowEnd(to))) {
+                statsEngine.add(
+                        aggregate.getSpeciesCode(),
+                        aggregate.getFamilyCode(),
+                        aggregate.getObservationCount(),
+                        aggregate.getEarliestObservation(),
+                        aggregate.getLatestObservation()
+                );
+            }
 
-        // SHow info about the most observed species and family
-        SpeciesStatsResponse mostObservedSpecies =
-                calculateMostObservedSpecies(userObservations);
+            return statsEngine.toResponse();
+        }));
+    }
 
-        List<SpeciesStatsResponse> mostObservedFamily =
-                calculateMostObservedFamily(userObservations);
+    @Transactional(readOnly = true)
+    public StatsHistogramResponse getUserStatsHistogram(String bucket, LocalDateTime from, LocalDateTime to) {
+        UserIdentity currentUser = getCurrentUser();
+        validateWindow(from, to);
+
+        // Grouped in the database, one row per non-empty bucket comes back
+        List<StatsBucketResponse> buckets = switch (bucket.toLowerCase()) {
+            case "day" -> observationRepository.histogramByDay(currentUser.id(), windowStart(from), windowEnd(to));
+            case "week" -> observationRepository.histogramByWeek(currentUser.id(), windowStart(from), windowEnd(to));
+            case "month" -> observationRepository.histogramByMonth(currentUser.id(), windowStart(from), windowEnd(to));
+            default -> throw new BadRequestException("Onbekende bucket " + bucket + ", kies day, week of month");
+        };
+
+        return new StatsHistogramResponse(bucket.toLowerCase(), from, to, buckets);
+    }
 
-        // Return a completed response DTO
-        return new UserStatsResponse(
-                userTotalObservations,
-                uniqueSpecies,
-                uniqueFamilies,
-                avgTimeBetweenObservations,
-                mostObservedSpecies,
-                mostObservedFamily
-        );
+    // Opt-in approximate mode: merges the monthly sketches instead of counting distinct codes over the observations
+    public DistinctCountResponse getUserDistinctCounts(LocalDateTime from, LocalDateTime to) {
+        return observationSketchService.estimateForUser(getCurrentUser().id(), from, to);
     }
 
     //
     // Helper functions
     //
 
-    public User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-
-        User currentUser = userRepository.findByUsername(username)
-                .orElseThrow(() -> new NotFoundException("Ingelogde gebruiker niet gevonden"));
-
-        return currentUser;
+    // The WAL position is read first, the stats that follow include every write committed up to it
+    private UserStatsResponse calculateUserStatsOnPrimary(UUID userId) {
+        if (databasePlatform.isPostgres()) {
+            ConsistencyToken.served(ConsistencyToken.parse(
+                    jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class)));
+        }
+        return calculateUserStats(userId);
     }
 
-    private String calculateAvgTimeBetweenObservations(List<Observation> observations) {
-        if (observations.size() <= 1) {
-            return DurationFormatter.format(Duration.ZERO);
+    private UserStatsResponse calculateUserStats(UUID userId) {
+        // Pre-aggregated rows (one per species/family) instead of every observation of this User
+        List<UserSpeciesStats> userSpeciesStats = userSpeciesStatsRepository.findByIdUserId(userId);
+
+        // Totals, unique counts, average gap and most observed species/family in one pass
+        ObservationStatsEngine statsEngine = new ObservationStatsEngine();
+        for (UserSpeciesStats stats : userSpeciesStats) {
+            statsEngine.add(
+                    stats.getSpeciesCode(),
+                    stats.getFamilyCode(),
+                    stats.getObservationCount(),
+                    stats.getEarliestObservation(),
+                    stats.getLatestObservation()
+            );
         }
 
-        // Sort observations by dateTime
-        List<Observation> obsChronological = observations.stream()
-                .sorted(Comparator.comparing(Observation::getDateTime))
-                .toList();
-
-        Duration total = Duration.ZERO;
+        // Return a completed response DTO
+        return statsEngine.toResponse();
+    }
 
-        for (int i = 1; i < obsChronological.size(); i++) {
-            LocalDateTime prev = obsChronological.get(i - 1).getDateTime();
-            LocalDateTime curr = obsChronological.get(i).getDateTime();
-            total = total.plus(Duration.between(prev, curr));
+    private static void validateWindow(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from moet voor to liggen");
         }
+    }
 
-        Duration average = total.dividedBy(obsChronological.size() - 1);
-        return DurationFormatter.format(average);
+    // from is inclusive, to exclusive
+    private static LocalDateTime windowStart(LocalDateTime from) {
+        return from == null ? EARLIEST : from;
     }
 
-    private SpeciesStatsResponse calculateMostObservedSpecies(List<Observation> observations) {
-        // Helper class to aggregate data per species
-        class SpeciesCountData {
-            String familyCode;
-            int count;
-            LocalDateTime latest;
-        }
+    private static LocalDateTime windowEnd(LocalDateTime to) {
+        return to == null ? LATEST : to;
+    }
 
-        Map<String, SpeciesCountData> perSpecies = new HashMap<>();
-
-        // Fill in SpeciesCountData map
-        for (Observation observation : observations) {
-            String species = observation.getSpeciesCode();
-            SpeciesCountData specData = perSpecies.computeIfAbsent(species, s -> {
-                SpeciesCountData specDataMap = new SpeciesCountData();
-                specDataMap.familyCode = observation.getFamilyCode();
-                return specDataMap;
-            });
-            specData.count++;
-            if (specData.latest == null || observation.getDateTime().isAfter(specData.latest)) {
-                specData.latest = observation.getDateTime();
+    // Flushed right away so a taken username or email fails here, as a 409 on that field, and not at commit
+    private void saveUnique(User user) {
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException exception) {
+            String violated = violatedConstraint(exception);
+            if (violated.contains(User.USERNAME_CONSTRAINT)) {
+                throw new ConflictException("Gebruikersnaam " + user.getUsername() + " is al in gebruik");
             }
+            if (violated.contains(User.EMAIL_CONSTRAINT)) {
+                throw new ConflictException("Emailadres " + user.getEmail() + " is al in gebruik");
+            }
+            throw exception;
         }
-
-        // Find species with max count
-        Map.Entry<String, SpeciesCountData> bestEntry = perSpecies.entrySet().stream()
-                .max(Comparator.comparing(entry -> entry.getValue().count))
-                .orElse(null);
-
-        String bestSpecies = bestEntry != null ? bestEntry.getKey() : null;
-        SpeciesCountData bestSpeciesData = bestEntry != null ? bestEntry.getValue() : null;
-
-        if (bestSpeciesData == null) {
-            return null;
-        }
-
-        return new SpeciesStatsResponse(
-                bestSpecies,
-                bestSpeciesData.familyCode,
-                bestSpeciesData.count,
-                bestSpeciesData.latest
-        );
     }
 
-    private List<SpeciesStatsResponse> calculateMostObservedFamily(List<Observation> observations) {
-        // Count observations per family
-        Map<String, Integer> familyCounts = new HashMap<>();
-        String bestFamily = null;
-        int bestFamilyCount = 0;
-
-        for (Observation observation : observations) {
-            String family = observation.getFamilyCode();
-            int familyCount = familyCounts.getOrDefault(family, 0) + 1;
-            familyCounts.put(family, familyCount);
-
-            if (familyCount > bestFamilyCount) {
-                bestFamilyCount = familyCount;
-                bestFamily = family;
-            }
-        }
+    // Constraint name as reported by Hibernate plus the driver message, which names the constraint (or on H2 its index)
+    private static String violatedConstraint(DataIntegrityViolationException exception) {
+        String constraint = exception.getCause() instanceof ConstraintViolationException violation
+                ? violation.getConstraintName()
+                : null;
+        return (constraint + " " + NestedExceptionUtils.getMostSpecificCause(exception).getMessage()).toLowerCase();
+    }
 
-        if (bestFamily == null) {
-            return Collections.emptyList();
+    // Read from the principal resolved during authentication, no extra query per request
+    public UserIdentity getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new NotFoundException("Ingelogde gebruiker niet gevonden");
         }
 
-        // Aggregate per species, but only inside bestFamily
-        class SpeciesCountData {
-            int count;
-            LocalDateTime latest;
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserIdentity identity) {
+            return identity;                    // Bearer token
         }
-
-        Map<String, SpeciesCountData> speciesInFamily = new HashMap<>();
-
-        for (Observation observation : observations) {
-            if (!observation.getFamilyCode().equals(bestFamily)) {
-                continue;
-            }
-            String species = observation.getSpeciesCode();
-            SpeciesCountData speciesCountData = speciesInFamily.computeIfAbsent(species, s -> new SpeciesCountData());
-            speciesCountData.count++;
-            if (speciesCountData.latest == null || observation.getDateTime().isAfter(speciesCountData.latest)) {
-                speciesCountData.latest = observation.getDateTime();
-            }
+        if (principal instanceof MyUserPrincipal userPrincipal) {
+            return userPrincipal.getIdentity(); // httpBasic
         }
 
-        // Map to ObservationStatsResponse DTOs
-        List<SpeciesStatsResponse> result = new ArrayList<>();
+        // Any other authentication type: fall back to a lookup by name
+        User currentUser = userRepository.findByUsername(authentication.getName())
+                .orElseThrow(() -> new NotFoundException("Ingelogde gebruiker niet gevonden"));
 
-        for (Map.Entry<String, SpeciesCountData> entry : speciesInFamily.entrySet()) {
-            String speciesCode = entry.getKey();
-            SpeciesCountData speciesCountData = entry.getValue();
+        return new UserIdentity(currentUser.getId(), currentUser.getUsername());
+    }
 
-            result.add(new SpeciesStatsResponse(
-                    speciesCode,
-                    bestFamily,
-                    speciesCountData.count,
-                    speciesCountData.latest
-            ));
+    // user.stats (latency, cache hits included) and user.stats.observations (observations per response),
+    // tagged window=all for the whole history and window=range for a from/to query
+    private record StatsMetrics(Timer timer, DistributionSummary observations) {
+
+        static StatsMetrics register(MeterRegistry meterRegistry, String window) {
+            return new StatsMetrics(
+                    Timer.builder("user.stats")
+                            .tag("window", window)
+                            .description("Time to compute or look up the statistics of a user")
+                            .publishPercentileHistogram()
+                            .register(meterRegistry),
+                    DistributionSummary.builder("user.stats.observations")
+                            .tag("window", window)
+                            .description("Observations summarized in one statistics response")
+                            .baseUnit("observations")
+                            .publishPercentileHistogram()
+                            .register(meterRegistry));
         }
 
-        // Sort: most observations first, then speciesCode
-        result.sort(Comparator.comparing(SpeciesStatsResponse::getLatestObservation).reversed());
-
-        return result;
+        UserStatsResponse record(Supplier<UserStatsResponse> stats) {
+            UserStatsResponse response = timer.record(stats);
+            observations.record(response.getTotalObservations());
+            return response;
+        }
     }
 
 }
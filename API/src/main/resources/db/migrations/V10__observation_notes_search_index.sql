@@ -0,0 +1,6 @@
+-- GIN index behind WHERE notes_search @@ websearch_to_tsquery('simple', ?)
+-- fastupdate (the default, spelled out) queues new entries in a pending list that is merged in bulk by vacuum
+-- or once it exceeds gin_pending_list_limit, so an insert does not pay for updating one posting tree per word
+-- CONCURRENTLY keeps the observation table writable while the index builds (Flyway runs it outside a transaction)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS observation_notes_search_idx
+    ON observation USING gin (notes_search) WITH (fastupdate = on);
@@ -0,0 +1,63 @@
+-- Species/family catalog with integer keys: an observation references its species by id instead of repeating
+-- the species and family codes on every row (see SpeciesCatalogService.java), so a species has exactly one family.
+CREATE TABLE IF NOT EXISTS family (
+    id integer GENERATED BY DEFAULT AS IDENTITY,
+    code varchar(255) NOT NULL,
+    name varchar(255),
+    CONSTRAINT family_pkey PRIMARY KEY (id),
+    CONSTRAINT family_code_key UNIQUE (code)
+);
+
+CREATE TABLE IF NOT EXISTS species (
+    id integer GENERATED BY DEFAULT AS IDENTITY,
+    code varchar(255) NOT NULL,
+    family_id integer NOT NULL,
+    name varchar(255),
+    CONSTRAINT species_pkey PRIMARY KEY (id),
+    CONSTRAINT species_code_key UNIQUE (code),
+    CONSTRAINT species_family_fk FOREIGN KEY (family_id) REFERENCES family (id)
+);
+
+-- The API registers species it has not seen before
+GRANT USAGE, SELECT ON SEQUENCE family_id_seq, species_id_seq TO example_app;
+
+-- Catalog from the existing observations
+INSERT INTO family (code)
+SELECT DISTINCT family_code FROM observation
+ON CONFLICT (code) DO NOTHING;
+
+-- A species observed under several families keeps the one it was observed with most often (ties: lowest code)
+INSERT INTO species (code, family_id)
+SELECT DISTINCT ON (p.species_code) p.species_code, f.id
+FROM (
+    SELECT species_code, family_code, COUNT(*) AS observations
+    FROM observation
+    GROUP BY species_code, family_code
+) p JOIN family f ON f.code = p.family_code
+ORDER BY p.species_code, p.observations DESC, p.family_code
+ON CONFLICT (code) DO NOTHING;
+
+-- Point every observation at its species. The UPDATE writes a new version of every row: on a large table
+-- run it in a quiet window, and VACUUM FULL (or pg_repack) the table afterwards to get the space of the dropped columns back
+ALTER TABLE observation ADD COLUMN IF NOT EXISTS species_id integer;
+
+UPDATE observation o
+SET species_id = s.id
+FROM species s
+WHERE s.code = o.species_code
+  AND o.species_id IS NULL;
+
+ALTER TABLE observation ALTER COLUMN species_id SET NOT NULL;
+ALTER TABLE observation ADD CONSTRAINT observation_species_fk FOREIGN KEY (species_id) REFERENCES species (id);
+ALTER TABLE observation DROP COLUMN IF EXISTS species_code, DROP COLUMN IF EXISTS family_code;
+
+-- user_species_stats stays keyed by codes: rebuild it, so the pairs whose family was corrected above are merged.
+-- The family sketches in user_month_sketch keep counting the old family codes until stats.backfill.enabled=true runs
+DELETE FROM user_species_stats;
+
+INSERT INTO user_species_stats (user_id, species_code, family_code, observation_count, earliest_observation, latest_observation)
+SELECT o.example_id, s.code, f.code, COUNT(*), MIN(o.date_time), MAX(o.date_time)
+FROM observation o
+JOIN species s ON s.id = o.species_id
+JOIN family f ON f.id = s.family_id
+GROUP BY o.example_id, s.code, f.code;
@@ -0,0 +1,16 @@
+-- Audit trail of user writes (see AuditLog.java): queued in memory after the write commits and appended here
+-- in batches by a background writer. No foreign key to users, the trail outlives the account.
+CREATE TABLE IF NOT EXISTS audit_event (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    occurred_at timestamp(6) NOT NULL,
+    action varchar(64) NOT NULL,
+    user_id uuid NOT NULL,
+    actor_id uuid,
+    detail varchar(255),
+    CONSTRAINT audit_event_pkey PRIMARY KEY (id)
+);
+
+-- The trail of one user, newest first
+CREATE INDEX IF NOT EXISTS audit_event_user_id_occurred_at_idx ON audit_event (user_id, occurred_at);
+
+GRANT USAGE, SELECT ON SEQUENCE audit_event_id_seq TO example_app;
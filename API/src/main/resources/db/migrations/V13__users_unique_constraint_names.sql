@@ -0,0 +1,33 @@
+-- Registration inserts without checking first and maps a unique violation to a 409 by constraint name
+-- (User.USERNAME_CONSTRAINT / User.EMAIL_CONSTRAINT). Give the generated unique constraints on users.username and
+-- users.email those names, whatever they were created as, and create them where they are missing: without them
+-- a duplicate registration would simply be inserted.
+DO $$
+DECLARE
+    existing record;
+BEGIN
+    FOR existing IN
+        SELECT con.conname, 'users_' || att.attname || '_key' AS wanted
+        FROM pg_constraint con
+        JOIN pg_class rel ON rel.oid = con.conrelid
+        JOIN pg_attribute att ON att.attrelid = rel.oid AND att.attnum = con.conkey[1]
+        WHERE rel.relname = 'users'
+          AND rel.relnamespace = current_schema()::regnamespace
+          AND con.contype = 'u'
+          AND array_length(con.conkey, 1) = 1
+          AND att.attname IN ('username', 'email')
+    LOOP
+        IF existing.conname <> existing.wanted THEN
+            EXECUTE format('ALTER TABLE users RENAME CONSTRAINT %I TO %I', existing.conname, existing.wanted);
+        END IF;
+    END LOOP;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'users'::regclass AND conname = 'users_username_key') THEN
+        ALTER TABLE users ADD CONSTRAINT users_username_key UNIQUE (username);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'users'::regclass AND conname = 'users_email_key') THEN
+        ALTER TABLE users ADD CONSTRAINT users_email_key UNIQUE (email);
+    END IF;
+END $$;
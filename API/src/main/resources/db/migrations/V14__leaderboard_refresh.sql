@@ -0,0 +1,10 @@
+-- When the leaderboard views were last refreshed. Every API instance schedules a refresh; the one that claims this
+-- row (see LeaderboardService) refreshes the views, the others only read them until the next interval.
+CREATE TABLE IF NOT EXISTS leaderboard_refresh (
+    id smallint NOT NULL,
+    refreshed_at timestamptz NOT NULL,
+    CONSTRAINT leaderboard_refresh_pkey PRIMARY KEY (id),
+    CONSTRAINT leaderboard_refresh_single_row CHECK (id = 1)
+);
+
+INSERT INTO leaderboard_refresh (id, refreshed_at) VALUES (1, '-infinity') ON CONFLICT (id) DO NOTHING;
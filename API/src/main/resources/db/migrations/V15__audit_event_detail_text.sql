@@ -0,0 +1,3 @@
+-- The detail of an audit event repeats user input (a username, the list of changed fields) that has no length limit
+-- of its own; varchar(255) failed the insert, and with it the whole batch, for a long one.
+ALTER TABLE audit_event ALTER COLUMN detail TYPE text;
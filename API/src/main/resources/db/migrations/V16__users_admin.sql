@@ -0,0 +1,4 @@
+-- Who may use the admin endpoints (POST /users/bulk). Granted by hand, per account id, never through the API:
+--   UPDATE users SET admin = true WHERE id = '<user id>';
+-- Checked on every request (see AuthorityCache), so revoking it takes effect within the cache TTL.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS admin boolean NOT NULL DEFAULT false;
@@ -0,0 +1,18 @@
+-- Per user / species / family aggregate of observations, kept up to date by the API on every observation write
+CREATE TABLE IF NOT EXISTS user_species_stats (
+    user_id uuid NOT NULL,
+    species_code varchar(255) NOT NULL,
+    family_code varchar(255) NOT NULL,
+    observation_count bigint NOT NULL,
+    earliest_observation timestamp(6) NOT NULL,
+    latest_observation timestamp(6) NOT NULL,
+    CONSTRAINT user_species_stats_pkey PRIMARY KEY (user_id, species_code, family_code),
+    CONSTRAINT user_species_stats_user_fk FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+-- Backfill from the existing observations (one pass over the observation table)
+INSERT INTO user_species_stats (user_id, species_code, family_code, observation_count, earliest_observation, latest_observation)
+SELECT o.example_id, o.species_code, o.family_code, COUNT(*), MIN(o.date_time), MAX(o.date_time)
+FROM observation o
+GROUP BY o.example_id, o.species_code, o.family_code
+ON CONFLICT (user_id, species_code, family_code) DO NOTHING;
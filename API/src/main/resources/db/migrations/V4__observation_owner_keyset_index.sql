@@ -0,0 +1,5 @@
+-- Keyset pagination of a user's observations: WHERE example_id = ? ORDER BY date_time DESC, observationid DESC
+-- The leading example_id column also serves the per-user aggregate queries of the stats backfill
+-- CONCURRENTLY keeps the observation table writable while the index builds (Flyway runs it outside a transaction)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS observation_owner_date_time_idx
+    ON observation (example_id, date_time, observationid);
@@ -0,0 +1,30 @@
+-- Platform-wide leaderboards, aggregated from user_species_stats (one row per user/species/family) instead of
+-- every observation. The API refreshes them CONCURRENTLY on a schedule, which needs a unique index on each view
+-- and keeps them readable while the refresh runs.
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS species_leaderboard AS
+SELECT s.species_code, SUM(s.observation_count) AS observations, COUNT(DISTINCT s.user_id) AS observers
+FROM user_species_stats s
+GROUP BY s.species_code;
+
+CREATE UNIQUE INDEX IF NOT EXISTS species_leaderboard_species_idx ON species_leaderboard (species_code);
+
+CREATE MATERIALIZED VIEW IF NOT EXISTS family_leaderboard AS
+SELECT s.family_code, SUM(s.observation_count) AS observations, COUNT(DISTINCT s.user_id) AS observers
+FROM user_species_stats s
+GROUP BY s.family_code;
+
+CREATE UNIQUE INDEX IF NOT EXISTS family_leaderboard_family_idx ON family_leaderboard (family_code);
+
+-- Only the 25 best observers of every species are kept, leaderboard.observers-per-species cannot go higher
+CREATE MATERIALIZED VIEW IF NOT EXISTS species_top_observers AS
+SELECT r.species_code, r.user_id, r.observations, r.observer_rank
+FROM (
+    SELECT s.species_code, s.user_id, SUM(s.observation_count) AS observations,
+        ROW_NUMBER() OVER (PARTITION BY s.species_code ORDER BY SUM(s.observation_count) DESC, s.user_id) AS observer_rank
+    FROM user_species_stats s
+    GROUP BY s.species_code, s.user_id
+) r
+WHERE r.observer_rank <= 25;
+
+CREATE UNIQUE INDEX IF NOT EXISTS species_top_observers_species_user_idx ON species_top_observers (species_code, user_id);
@@ -0,0 +1,15 @@
+-- Per user / month summary for approximate distinct counts: the observation count plus HyperLogLog sketches
+-- (see HyperLogLog.java) of the distinct species and families, kept up to date by the API on every observation write.
+-- The sketches are computed in Java: fill them for existing observations with one run of STATS_BACKFILL_ENABLED=true.
+CREATE TABLE IF NOT EXISTS user_month_sketch (
+    user_id uuid NOT NULL,
+    month_start date NOT NULL,
+    observation_count bigint NOT NULL,
+    species_sketch bytea NOT NULL,
+    family_sketch bytea NOT NULL,
+    CONSTRAINT user_month_sketch_pkey PRIMARY KEY (user_id, month_start),
+    CONSTRAINT user_month_sketch_user_fk FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+-- Platform-wide windows read every user's rows of a few months
+CREATE INDEX IF NOT EXISTS user_month_sketch_month_start_idx ON user_month_sketch (month_start);
@@ -0,0 +1,39 @@
+-- Structured coordinates next to the free-text location, plus the key of the 0.05 degree grid cell (see GeoGrid.java).
+-- The API fills them on every write when location is "lat,lon", other locations stay NULL.
+ALTER TABLE observation ADD COLUMN IF NOT EXISTS latitude double precision;
+ALTER TABLE observation ADD COLUMN IF NOT EXISTS longitude double precision;
+ALTER TABLE observation ADD COLUMN IF NOT EXISTS geo_cell bigint;
+
+-- Backfill the parseable locations: same pattern, range check and cell formula as GeoGrid.parse / GeoGrid.cellOf.
+-- In observationid ranges of 10000, each committed on its own (V7__observation_coordinates.sql.conf runs this script
+-- outside a transaction): no transaction holds row locks on the whole table or keeps vacuum waiting until the end.
+-- Rerunning after a failure continues where it stopped, rows that have a geo_cell are skipped.
+DO $$
+DECLARE
+    batch_start bigint;
+    last_id bigint;
+BEGIN
+    SELECT min(observationid), max(observationid) INTO batch_start, last_id FROM observation;
+
+    WHILE batch_start <= last_id LOOP
+        UPDATE observation o
+        SET latitude = p.lat,
+            longitude = p.lon,
+            geo_cell = LEAST(floor((p.lat + 90) * 20), 3599)::bigint * 7200 + LEAST(floor((p.lon + 180) * 20), 7199)::bigint
+        FROM (
+            SELECT observationid,
+                   split_part(location, ',', 1)::double precision AS lat,
+                   split_part(location, ',', 2)::double precision AS lon
+            FROM observation
+            WHERE observationid >= batch_start AND observationid < batch_start + 10000
+              AND geo_cell IS NULL
+              AND location ~ '^\s*[-+]?[0-9]+(\.[0-9]+)?\s*,\s*[-+]?[0-9]+(\.[0-9]+)?\s*$'
+        ) p
+        WHERE o.observationid = p.observationid
+          AND p.lat BETWEEN -90 AND 90
+          AND p.lon BETWEEN -180 AND 180;
+
+        COMMIT;
+        batch_start := batch_start + 10000;
+    END LOOP;
+END $$;
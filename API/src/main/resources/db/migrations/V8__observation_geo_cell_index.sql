@@ -0,0 +1,6 @@
+-- Nearby searches: WHERE geo_cell IN (...) AND date_time >= ? AND date_time < ? ORDER BY date_time DESC
+-- Rows without coordinates have a NULL geo_cell and never match, the partial index leaves them out
+-- CONCURRENTLY keeps the observation table writable while the index builds (Flyway runs it outside a transaction)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS observation_geo_cell_date_time_idx
+    ON observation (geo_cell, date_time)
+    WHERE geo_cell IS NOT NULL;
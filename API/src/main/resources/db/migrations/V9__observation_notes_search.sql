@@ -0,0 +1,5 @@
+-- Full-text search over the notes: a tsvector kept up to date by PostgreSQL itself on every insert/update,
+-- so the API and the COPY import path need no changes. 'simple' = no stemming or stop words (notes mix languages).
+-- Adding a stored generated column rewrites the table once: run it in a quiet window on large tables.
+ALTER TABLE observation
+    ADD COLUMN IF NOT EXISTS notes_search tsvector GENERATED ALWAYS AS (to_tsvector('simple', notes)) STORED;
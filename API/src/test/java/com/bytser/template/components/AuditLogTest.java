@@ -0,0 +1,113 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.bytser.template.models.AuditAction;
+import com.bytser.template.models.AuditEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void drain_returnsEventsInArrivalOrderUpToMax() {
+        AuditLog auditLog = auditLog(10, AuditProperties.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            auditLog.offer(event("event-" + i));
+        }
+
+        List<AuditEvent> batch = auditLog.drain(3);
+
+        assertEquals(List.of("event-0", "event-1", "event-2"), details(batch));
+        assertEquals(2, auditLog.size());
+        assertEquals(2.0, meterRegistry.get("audit.queue.depth").gauge().value());
+    }
+
+    @Test
+    void offer_dropNewest_keepsQueuedEventsAndCountsTheDrop() {
+        AuditLog auditLog = auditLog(2, AuditProperties.OverflowPolicy.DROP_NEWEST);
+
+        assertTrue(auditLog.offer(event("first")));
+        assertTrue(auditLog.offer(event("second")));
+        assertFalse(auditLog.offer(event("third")));
+
+        assertEquals(List.of("first", "second"), details(auditLog.drain(10)));
+        assertEquals(1.0, dropped("queue-full"));
+    }
+
+    @Test
+    void offer_dropOldest_makesRoomForTheNewEvent() {
+        AuditLog auditLog = auditLog(2, AuditProperties.OverflowPolicy.DROP_OLDEST);
+
+        auditLog.offer(event("first"));
+        auditLog.offer(event("second"));
+        assertTrue(auditLog.offer(event("third")));
+
+        assertEquals(List.of("second", "third"), details(auditLog.drain(10)));
+        assertEquals(1.0, dropped("queue-full"));
+    }
+
+    @Test
+    void offer_block_dropsAfterMaxBlock() {
+        AuditLog auditLog = auditLog(1, AuditProperties.OverflowPolicy.BLOCK);
+        auditLog.offer(event("first"));
+
+        long start = System.nanoTime();
+        assertFalse(auditLog.offer(event("second")));
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+        assertEquals(1.0, dropped("queue-full"));
+    }
+
+    @Test
+    void record_withoutTransaction_isQueuedRightAway() {
+        AuditLog auditLog = auditLog(10, AuditProperties.OverflowPolicy.DROP_NEWEST);
+
+        auditLog.record(AuditAction.USER_CREATED, UUID.randomUUID(), null, "username=alice");
+
+        assertEquals(List.of("username=alice"), details(auditLog.drain(10)));
+    }
+
+    @Test
+    void writeFailed_isCountedAsDropped() {
+        AuditLog auditLog = auditLog(10, AuditProperties.OverflowPolicy.DROP_NEWEST);
+
+        auditLog.writeFailed(3);
+
+        assertEquals(3.0, dropped("write-failed"));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private AuditLog auditLog(int capacity, AuditProperties.OverflowPolicy overflowPolicy) {
+        AuditProperties properties = new AuditProperties();
+        properties.setQueueCapacity(capacity);
+        properties.setOverflowPolicy(overflowPolicy);
+        properties.setMaxBlock(Duration.ofMillis(20));
+        return new AuditLog(properties, meterRegistry);
+    }
+
+    private double dropped(String reason) {
+        return meterRegistry.get("audit.events.dropped").tag("reason", reason).counter().count();
+    }
+
+    private static AuditEvent event(String detail) {
+        return new AuditEvent(AuditAction.USER_UPDATED, UUID.randomUUID(), null, detail, LocalDateTime.now());
+    }
+
+    private static List<String> details(List<AuditEvent> events) {
+        return events.stream().map(AuditEvent::getDetail).toList();
+    }
+}
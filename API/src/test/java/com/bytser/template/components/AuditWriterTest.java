@@ -0,0 +1,84 @@
+package com.bytser.template.components;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.models.AuditAction;
+import com.bytser.template.models.AuditEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+class AuditWriterTest {
+
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:audit-writer;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AuditProperties properties = new AuditProperties();
+    private final AuditLog auditLog = new AuditLog(properties, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS audit_event");
+        // A short detail column, so one event can fail the batch it is in
+        jdbcTemplate.execute("""
+                CREATE TABLE audit_event (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, occurred_at TIMESTAMP(6) NOT NULL,
+                    action VARCHAR(64) NOT NULL, user_id UUID NOT NULL, actor_id UUID, detail VARCHAR(20))""");
+    }
+
+    @Test
+    void stop_writesWhatIsStillQueued() {
+        auditLog.offer(event("username=merel"));
+        auditLog.offer(event("username=vink"));
+
+        writeAll();
+
+        assertEquals(List.of("username=merel", "username=vink"), writtenDetails());
+        assertEquals(2.0, meterRegistry.get("audit.events.written").counter().count());
+    }
+
+    @Test
+    void flush_failingBatch_retriesItsEventsOneByOne() {
+        auditLog.offer(event("username=merel"));
+        auditLog.offer(event("username=" + "x".repeat(300)));
+        auditLog.offer(event("username=vink"));
+
+        writeAll();
+
+        // Only the event that cannot be written is lost
+        assertEquals(List.of("username=merel", "username=vink"), writtenDetails());
+        assertEquals(2.0, meterRegistry.get("audit.events.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("audit.events.dropped").tag("reason", "write-failed").counter().count());
+    }
+
+    //
+    // Helper functions
+    //
+
+    // Starts the writer and stops it right away, stopping writes the whole queue
+    private void writeAll() {
+        AuditWriter auditWriter = new AuditWriter(auditLog, properties, jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database)), JsonMapper.builder().build(),
+                meterRegistry);
+        auditWriter.start();
+        auditWriter.stop();
+    }
+
+    private List<String> writtenDetails() {
+        return jdbcTemplate.queryForList("SELECT detail FROM audit_event ORDER BY id", String.class);
+    }
+
+    private static AuditEvent event(String detail) {
+        return new AuditEvent(AuditAction.USER_CREATED, UUID.randomUUID(), null, detail, LocalDateTime.now());
+    }
+}
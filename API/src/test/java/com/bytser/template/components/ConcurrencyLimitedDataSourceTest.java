@@ -0,0 +1,97 @@
+package com.bytser.template.components;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    @Test
+    void getConnection_closeReturnsThePermitOnce() throws SQLException {
+        StubDataSource target = new StubDataSource();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+                "write", target, 2, 0, Duration.ofMillis(50), registry);
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+        assertEquals(2.0, registry.get("datasource.limiter.active").tag("target", "write").gauge().value());
+
+        first.close();
+        first.close();
+        assertEquals(1.0, registry.get("datasource.limiter.active").tag("target", "write").gauge().value());
+
+        dataSource.getConnection();
+        assertEquals(3, target.connections);
+    }
+
+    @Test
+    void getConnection_queueFull_isRejectedWithoutWaiting() throws SQLException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+                "read", new StubDataSource(), 1, 0, Duration.ofMinutes(1), registry);
+
+        dataSource.getConnection();
+
+        assertThrows(ConcurrencyLimitedDataSource.LimitExceededException.class, dataSource::getConnection);
+        assertEquals(1.0, registry.get("datasource.limiter.rejected").tag("target", "read").counter().count());
+    }
+
+    @Test
+    void getConnection_noPermitWithinMaxWait_isRejected() throws SQLException {
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+                "write", new StubDataSource(), 1, 10, Duration.ofMillis(20), new SimpleMeterRegistry());
+
+        dataSource.getConnection();
+
+        assertThrows(ConcurrencyLimitedDataSource.LimitExceededException.class, dataSource::getConnection);
+    }
+
+    @Test
+    void getConnection_failingTarget_releasesThePermit() throws SQLException {
+        StubDataSource target = new StubDataSource();
+        target.failing = true;
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(
+                "write", target, 1, 0, Duration.ofMillis(20), new SimpleMeterRegistry());
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        target.failing = false;
+
+        dataSource.getConnection();
+        assertEquals(1, target.connections);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static final class StubDataSource extends AbstractDataSource {
+
+        private int connections;
+        private boolean failing;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            connections++;
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                    (proxy, method, args) -> null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.bytser.template.components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+
+class ConsistencyTokenFilterTest {
+
+    private final ConsistencyTokenFilter filter = new ConsistencyTokenFilter();
+
+    @Test
+    void doFilter_writeMethods_getATokenBack() throws Exception {
+        assertEquals(List.of(true, true, true, true, false, false),
+                List.of(issuing("POST"), issuing("PUT"), issuing("PATCH"), issuing("DELETE"), issuing("GET"), issuing("HEAD")));
+    }
+
+    @Test
+    void doFilter_bindsTheTokenForTheRequestOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/stats");
+        request.addHeader(ConsistencyToken.HEADER, "0/16B6C50");
+        List<Long> required = new ArrayList<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain(() -> required.add(ConsistencyToken.requiredLsn())));
+
+        assertEquals(List.of(ConsistencyToken.parse("0/16B6C50")), required);
+        assertEquals(0, ConsistencyToken.requiredLsn());
+        assertFalse(ConsistencyToken.issuing());
+    }
+
+    @Test
+    void doFilter_invalidToken_isIgnored() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/stats");
+        request.addHeader(ConsistencyToken.HEADER, "not-a-token");
+        List<Long> required = new ArrayList<>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain(() -> required.add(ConsistencyToken.requiredLsn())));
+
+        assertEquals(List.of(0L), required);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private boolean issuing(String method) throws Exception {
+        List<Boolean> issuing = new ArrayList<>();
+        filter.doFilter(new MockHttpServletRequest(method, "/observations"), new MockHttpServletResponse(),
+                chain(() -> issuing.add(ConsistencyToken.issuing())));
+        return issuing.get(0);
+    }
+
+    private static FilterChain chain(Runnable inRequest) {
+        return (request, response) -> inRequest.run();
+    }
+}
@@ -0,0 +1,55 @@
+package com.bytser.template.components;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class DatabasePlatformTest {
+
+    private static final List<String> KEY = List.of("owner", "code");
+    private static final List<String> VALUES = List.of("amount");
+
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:database-platform;DB_CLOSE_DELAY=-1");
+    private final DatabasePlatform databasePlatform = new DatabasePlatform(database);
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS counter (owner INT, code VARCHAR(20), amount BIGINT, PRIMARY KEY (owner, code))");
+        jdbcTemplate.execute("DELETE FROM counter");
+    }
+
+    @Test
+    void isPostgres_h2_isFalse() {
+        assertFalse(databasePlatform.isPostgres());
+    }
+
+    @Test
+    void insertIfAbsent_missingRow_isInserted() {
+        String sql = databasePlatform.insertIfAbsentSql("counter", KEY, VALUES);
+
+        assertEquals(1, jdbcTemplate.update(sql, 1, "a", 0L));
+
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT amount FROM counter WHERE owner = 1 AND code = 'a'", Long.class));
+    }
+
+    @Test
+    void insertIfAbsent_existingRow_isLeftAlone() {
+        jdbcTemplate.update("INSERT INTO counter VALUES (1, 'a', 42)");
+        String sql = databasePlatform.insertIfAbsentSql("counter", KEY, VALUES);
+
+        assertEquals(0, jdbcTemplate.update(sql, 1, "a", 0L));
+        jdbcTemplate.update(sql, 1, "b", 0L);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT code, amount FROM counter ORDER BY code");
+        assertEquals(2, rows.size());
+        assertEquals(42L, ((Number) rows.get(0).get("AMOUNT")).longValue());
+        assertEquals("b", rows.get(1).get("CODE"));
+    }
+}
@@ -0,0 +1,128 @@
+package com.bytser.template.components;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.bytser.template.exceptions.BadRequestException;
+
+class GeoGridTest {
+
+    @Test
+    void parse_acceptsLatLonAndRejectsFreeText() {
+        assertEquals(new GeoGrid.Point(51.05, 3.72), GeoGrid.parse("51.05,3.72"));
+        assertEquals(new GeoGrid.Point(-33.9, -18), GeoGrid.parse(" -33.9 , -18 "));
+
+        assertNull(GeoGrid.parse("Gent, Citadelpark"));
+        assertNull(GeoGrid.parse("51.05"));
+        assertNull(GeoGrid.parse("91,3"));
+        assertNull(GeoGrid.parse("51,181"));
+        assertNull(GeoGrid.parse("1e2,3"));
+        assertNull(GeoGrid.parse(null));
+    }
+
+    @Test
+    void cellOf_gridEdgesStayInsideTheGrid() {
+        assertEquals(0, GeoGrid.cellOf(-90, -180));
+        assertEquals(GeoGrid.cellOf(89.99, 179.99), GeoGrid.cellOf(90, 180));
+        assertEquals(GeoGrid.cellOf(51.0, 3.7) + 1, GeoGrid.cellOf(51.0, 3.75));
+    }
+
+    @Test
+    void cellsWithin_radiusBoxCoversEveryPointInRange() {
+        Random random = new Random(3);
+        double[][] centers = {{51.05, 3.72}, {-0.01, 179.99}, {69.6, -18.9}, {-54.8, -68.3}};
+
+        for (double[] center : centers) {
+            List<Long> cells = GeoGrid.cellsWithin(GeoGrid.around(center[0], center[1], 10));
+            for (int i = 0; i < 2_000; i++) {
+                GeoGrid.Point point = randomPointNear(random, center[0], center[1], 0.15);
+                if (GeoGrid.distanceKm(center[0], center[1], point.latitude(), point.longitude()) <= 10) {
+                    assertTrue(cells.contains(GeoGrid.cellOf(point.latitude(), point.longitude())), point.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void box_acrossTheAntimeridian_containsBothSides() {
+        GeoGrid.Box box = new GeoGrid.Box(-1, 179, 1, -179);
+        List<Long> cells = GeoGrid.cellsWithin(box);
+
+        assertTrue(box.contains(0, 179.5));
+        assertTrue(box.contains(0, -179.5));
+        assertFalse(box.contains(0, 0));
+        assertTrue(cells.contains(GeoGrid.cellOf(0, 179.5)));
+        assertTrue(cells.contains(GeoGrid.cellOf(0, -179.5)));
+        assertEquals(41 * 41, cells.size());
+    }
+
+    @Test
+    void cellsWithin_hugeArea_isRejected() {
+        assertThrows(BadRequestException.class, () -> GeoGrid.cellsWithin(new GeoGrid.Box(0, 0, 10, 10)));
+    }
+
+    @Test
+    void rangesWithin_coverTheSameCellsAsCellsWithin() {
+        for (GeoGrid.Box box : List.of(GeoGrid.around(51.05, 3.72, 10), new GeoGrid.Box(-1, 179, 1, -179))) {
+            List<Long> cells = GeoGrid.cellsWithin(box);
+            List<Long> fromRanges = GeoGrid.rangesWithin(box).stream()
+                    .flatMap(range -> LongStream.rangeClosed(range.firstCell(), range.lastCell()).boxed())
+                    .toList();
+
+            assertEquals(new HashSet<>(cells), new HashSet<>(fromRanges));
+            assertEquals(cells.size(), fromRanges.size());
+            assertEquals(cells.size(), GeoGrid.cellCount(box));
+        }
+    }
+
+    @Test
+    void rangesWithin_polarRadius_isOneRangePerRow() {
+        // 50 km at 85 degrees spans more narrow cells than cellsWithin accepts
+        GeoGrid.Box area = GeoGrid.around(85, 10, 50);
+        assertTrue(GeoGrid.cellCount(area) > GeoGrid.MAX_CELLS);
+
+        List<GeoGrid.CellRange> ranges = GeoGrid.rangesWithin(area);
+
+        assertTrue(ranges.size() <= 20, ranges.size() + " ranges");
+        assertTrue(ranges.stream().anyMatch(range ->
+                range.firstCell() <= GeoGrid.cellOf(85.2, 12) && GeoGrid.cellOf(85.2, 12) <= range.lastCell()));
+    }
+
+    @Test
+    void rangesWithin_aroundThePole_coversWholeRows() {
+        List<GeoGrid.CellRange> ranges = GeoGrid.rangesWithin(GeoGrid.around(89.9, 0, 50));
+
+        assertEquals(GeoGrid.cellOf(90, 180), ranges.get(ranges.size() - 1).lastCell());
+        assertEquals(GeoGrid.cellOf(90, -180), ranges.get(ranges.size() - 1).firstCell());
+    }
+
+    @Test
+    void distanceKm_oneDegreeOfLatitude() {
+        assertEquals(111.195, GeoGrid.distanceKm(0, 0, 1, 0), 0.001);
+        assertEquals(GeoGrid.distanceKm(0, 179.5, 0, -179.5), GeoGrid.distanceKm(0, 0, 0, 1), 1e-9);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static GeoGrid.Point randomPointNear(Random random, double latitude, double longitude, double degrees) {
+        double pointLatitude = Math.clamp(latitude + (random.nextDouble() * 2 - 1) * degrees, -90, 90);
+        double pointLongitude = longitude + (random.nextDouble() * 2 - 1) * degrees;
+        if (pointLongitude > 180) {
+            pointLongitude -= 360;
+        } else if (pointLongitude < -180) {
+            pointLongitude += 360;
+        }
+        return new GeoGrid.Point(pointLatitude, pointLongitude);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bytser.template.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_smallCardinalities_areExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertEquals(0, sketch.estimate());
+
+        for (int i = 0; i < 100; i++) {
+            sketch.add("SP" + i);
+            sketch.add("SP" + i);
+        }
+
+        // Linear counting is exact as long as no two values share a register
+        assertTrue(Math.abs(sketch.estimate() - 100) <= 2);
+    }
+
+    @Test
+    void estimate_largeCardinality_staysWithinErrorBound() {
+        HyperLogLog sketch = sketchOf(0, 100_000);
+
+        double error = Math.abs(sketch.estimate() - 100_000) / 100_000.0;
+        assertTrue(error < 3 * HyperLogLog.RELATIVE_STANDARD_ERROR, "relative error " + error);
+    }
+
+    @Test
+    void merge_equalsSketchOfTheUnion() {
+        HyperLogLog left = sketchOf(0, 6_000);
+        HyperLogLog right = sketchOf(4_000, 10_000);
+
+        left.merge(right);
+
+        assertEquals(sketchOf(0, 10_000), left);
+    }
+
+    @Test
+    void toBytes_roundTripsSparseAndDenseSketches() {
+        HyperLogLog sparse = sketchOf(0, 20);
+        HyperLogLog dense = sketchOf(0, 50_000);
+
+        assertEquals(sparse, HyperLogLog.fromBytes(sparse.toBytes()));
+        assertEquals(dense, HyperLogLog.fromBytes(dense.toBytes()));
+        assertTrue(sparse.toBytes().length < dense.toBytes().length);
+        assertEquals(new HyperLogLog(), HyperLogLog.fromBytes(new HyperLogLog().toBytes()));
+    }
+
+    @Test
+    void fromBytes_corruptData_throws() {
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {7}));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[] {1, 0, 0}));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static HyperLogLog sketchOf(int from, int to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = from; i < to; i++) {
+            sketch.add("SP" + i);
+        }
+        return sketch;
+    }
+}
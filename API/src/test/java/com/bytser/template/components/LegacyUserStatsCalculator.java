@@ -0,0 +1,158 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bytser.template.dtos.responses.SpeciesStatsResponse;
+import com.bytser.template.dtos.responses.UserStatsResponse;
+import com.bytser.template.models.Observation;
+
+// The multi-pass, in-memory statistics of the original UserService.getUserStats(),
+// kept as the reference ObservationStatsEngine must agree with (tests & benchmarks).
+final class LegacyUserStatsCalculator {
+
+    private LegacyUserStatsCalculator() {
+    }
+
+    static UserStatsResponse calculate(List<Observation> userObservations) {
+        int userTotalObservations = userObservations.size();
+
+        int uniqueSpecies = (int) userObservations.stream()
+                .map(Observation::getSpeciesCode)
+                .distinct()
+                .count();
+
+        int uniqueFamilies = (int) userObservations.stream()
+                .map(Observation::getFamilyCode)
+                .distinct()
+                .count();
+
+        return new UserStatsResponse(
+                userTotalObservations,
+                uniqueSpecies,
+                uniqueFamilies,
+                calculateAvgTimeBetweenObservations(userObservations),
+                calculateMostObservedSpecies(userObservations),
+                calculateMostObservedFamily(userObservations)
+        );
+    }
+
+    static String calculateAvgTimeBetweenObservations(List<Observation> observations) {
+        if (observations.size() <= 1) {
+            return DurationFormatter.format(Duration.ZERO);
+        }
+
+        List<Observation> obsChronological = observations.stream()
+                .sorted(Comparator.comparing(Observation::getDateTime))
+                .toList();
+
+        Duration total = Duration.ZERO;
+
+        for (int i = 1; i < obsChronological.size(); i++) {
+            LocalDateTime prev = obsChronological.get(i - 1).getDateTime();
+            LocalDateTime curr = obsChronological.get(i).getDateTime();
+            total = total.plus(Duration.between(prev, curr));
+        }
+
+        Duration average = total.dividedBy(obsChronological.size() - 1);
+        return DurationFormatter.format(average);
+    }
+
+    static SpeciesStatsResponse calculateMostObservedSpecies(List<Observation> observations) {
+        class SpeciesCountData {
+            String familyCode;
+            int count;
+            LocalDateTime latest;
+        }
+
+        Map<String, SpeciesCountData> perSpecies = new HashMap<>();
+
+        for (Observation observation : observations) {
+            String species = observation.getSpeciesCode();
+            SpeciesCountData specData = perSpecies.computeIfAbsent(species, s -> {
+                SpeciesCountData specDataMap = new SpeciesCountData();
+                specDataMap.familyCode = observation.getFamilyCode();
+                return specDataMap;
+            });
+            specData.count++;
+            if (specData.latest == null || observation.getDateTime().isAfter(specData.latest)) {
+                specData.latest = observation.getDateTime();
+            }
+        }
+
+        Map.Entry<String, SpeciesCountData> bestEntry = perSpecies.entrySet().stream()
+                .max(Comparator.comparing(entry -> entry.getValue().count))
+                .orElse(null);
+
+        if (bestEntry == null) {
+            return null;
+        }
+
+        return new SpeciesStatsResponse(
+                bestEntry.getKey(),
+                bestEntry.getValue().familyCode,
+                bestEntry.getValue().count,
+                bestEntry.getValue().latest
+        );
+    }
+
+    static List<SpeciesStatsResponse> calculateMostObservedFamily(List<Observation> observations) {
+        Map<String, Integer> familyCounts = new HashMap<>();
+        String bestFamily = null;
+        int bestFamilyCount = 0;
+
+        for (Observation observation : observations) {
+            String family = observation.getFamilyCode();
+            int familyCount = familyCounts.getOrDefault(family, 0) + 1;
+            familyCounts.put(family, familyCount);
+
+            if (familyCount > bestFamilyCount) {
+                bestFamilyCount = familyCount;
+                bestFamily = family;
+            }
+        }
+
+        if (bestFamily == null) {
+            return Collections.emptyList();
+        }
+
+        class SpeciesCountData {
+            int count;
+            LocalDateTime latest;
+        }
+
+        Map<String, SpeciesCountData> speciesInFamily = new HashMap<>();
+
+        for (Observation observation : observations) {
+            if (!observation.getFamilyCode().equals(bestFamily)) {
+                continue;
+            }
+            SpeciesCountData speciesCountData = speciesInFamily.computeIfAbsent(observation.getSpeciesCode(), s -> new SpeciesCountData());
+            speciesCountData.count++;
+            if (speciesCountData.latest == null || observation.getDateTime().isAfter(speciesCountData.latest)) {
+                speciesCountData.latest = observation.getDateTime();
+            }
+        }
+
+        List<SpeciesStatsResponse> result = new ArrayList<>();
+
+        for (Map.Entry<String, SpeciesCountData> entry : speciesInFamily.entrySet()) {
+            result.add(new SpeciesStatsResponse(
+                    entry.getKey(),
+                    bestFamily,
+                    entry.getValue().count,
+                    entry.getValue().latest
+            ));
+        }
+
+        result.sort(Comparator.comparing(SpeciesStatsResponse::getLatestObservation).reversed());
+
+        return result;
+    }
+}
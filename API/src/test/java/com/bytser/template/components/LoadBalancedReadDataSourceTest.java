@@ -0,0 +1,256 @@
+package com.bytser.template.components;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoadBalancedReadDataSourceTest {
+
+    @Test
+    void getConnection_roundRobin_spreadsOverHealthyReplicas() throws SQLException {
+        StubDataSource first = new StubDataSource();
+        StubDataSource second = new StubDataSource();
+        StubDataSource primary = new StubDataSource();
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(new ReplicaTarget("first", first), new ReplicaTarget("second", second)),
+                primary, new ReplicaBalancer.RoundRobin(), registry);
+
+        for (int i = 0; i < 10; i++) {
+            dataSource.getConnection();
+        }
+
+        assertEquals(5, first.connections);
+        assertEquals(5, second.connections);
+        assertEquals(0, primary.connections);
+        assertEquals(5.0, registry.get("datasource.read.routed").tag("target", "first").counter().count());
+    }
+
+    @Test
+    void getConnection_unhealthyReplica_isSkipped() throws SQLException {
+        StubDataSource first = new StubDataSource();
+        StubDataSource second = new StubDataSource();
+        ReplicaTarget ejected = new ReplicaTarget("first", first);
+        ejected.setHealthy(false);
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(ejected, new ReplicaTarget("second", second)),
+                new StubDataSource(), new ReplicaBalancer.RoundRobin(), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 4; i++) {
+            dataSource.getConnection();
+        }
+
+        assertEquals(0, first.connections);
+        assertEquals(4, second.connections);
+    }
+
+    @Test
+    void getConnection_failoverToALimitedPrimary_sharesThePermitsOfTheWrites() throws SQLException {
+        StubDataSource replica = new StubDataSource();
+        replica.failing = true;
+        StubDataSource primary = new StubDataSource();
+        // The WRITE target and the failover of the reads are one limiter, as in DataSourceConfig
+        ConcurrencyLimitedDataSource primaryTarget = new ConcurrencyLimitedDataSource(
+                "write", primary, 1, 0, Duration.ofMillis(20), new SimpleMeterRegistry());
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(new ReplicaTarget("replica", replica)), primaryTarget, new ReplicaBalancer.RoundRobin(),
+                new SimpleMeterRegistry());
+
+        Connection write = primaryTarget.getConnection();
+        assertThrows(ConcurrencyLimitedDataSource.LimitExceededException.class, dataSource::getConnection);
+
+        write.close();
+        dataSource.getConnection();
+        assertEquals(2, primary.connections);
+    }
+
+    @Test
+    void getConnection_failingReplica_isEjectedAndReadFallsBackToPrimary() throws SQLException {
+        StubDataSource broken = new StubDataSource();
+        broken.failing = true;
+        StubDataSource primary = new StubDataSource();
+        ReplicaTarget replica = new ReplicaTarget("broken", broken);
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(replica), primary, new ReplicaBalancer.LeastActive(), new SimpleMeterRegistry());
+
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertFalse(replica.isHealthy());
+        assertEquals(2, primary.connections);
+        // Ejected after the first failure, the second read goes straight to the primary
+        assertEquals(1, broken.attempts);
+    }
+
+    @Test
+    void getConnection_consistencyToken_usesReplicaThatReplayedPastIt() throws SQLException {
+        StubDataSource behind = new StubDataSource();
+        StubDataSource caughtUp = new StubDataSource();
+        StubDataSource primary = new StubDataSource();
+        ReplicaTarget behindReplica = new ReplicaTarget("behind", behind);
+        ReplicaTarget caughtUpReplica = new ReplicaTarget("caught-up", caughtUp);
+        behindReplica.setReplayedLsn(ConsistencyToken.parse("0/16B3000"));
+        caughtUpReplica.setReplayedLsn(ConsistencyToken.parse("0/16B6C50"));
+        behind.replayedLsn = "0/16B3000";
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(behindReplica, caughtUpReplica), primary, new ReplicaBalancer.RoundRobin(), new SimpleMeterRegistry());
+
+        try {
+            // Known to be past the token at the last probe: no need to ask
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B6C50"));
+            dataSource.getConnection();
+            dataSource.getConnection();
+            assertEquals(0, behind.connections);
+            assertEquals(2, caughtUp.connections);
+            assertEquals(0, caughtUp.queries);
+
+            // No replica has replayed this far yet, asked on acquisition: read from the primary
+            caughtUp.replayedLsn = "0/FFFFFFFF";
+            ConsistencyToken.require(ConsistencyToken.parse("1/0"));
+            dataSource.getConnection();
+        } finally {
+            ConsistencyToken.clear();
+        }
+
+        assertEquals(1, primary.connections);
+        // Both replicas were asked and their connections handed back
+        assertEquals(1, behind.closed);
+        assertEquals(1, caughtUp.closed);
+        assertEquals(ConsistencyToken.parse("0/FFFFFFFF"), caughtUpReplica.getReplayedLsn());
+    }
+
+    @Test
+    void getConnection_consistencyToken_replicaCaughtUpSinceTheProbe_isUsed() throws SQLException {
+        StubDataSource replica = new StubDataSource();
+        StubDataSource primary = new StubDataSource();
+        ReplicaTarget target = new ReplicaTarget("replica", replica);
+        // The last probe saw an older position, the replica has replayed the write since
+        target.setReplayedLsn(ConsistencyToken.parse("0/16B3000"));
+        replica.replayedLsn = "0/16B6C50";
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(target), primary, new ReplicaBalancer.RoundRobin(), new SimpleMeterRegistry());
+
+        try {
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B6C50"));
+            dataSource.getConnection();
+            dataSource.getConnection();
+        } finally {
+            ConsistencyToken.clear();
+        }
+
+        assertEquals(2, replica.connections);
+        assertEquals(0, replica.closed);
+        assertEquals(0, primary.connections);
+        // The position read on the first acquisition spares the second one the query
+        assertEquals(1, replica.queries);
+        assertEquals(ConsistencyToken.parse("0/16B6C50"), target.getReplayedLsn());
+    }
+
+    @Test
+    void getConnection_recordsThePositionTheConnectionIsKnownToHaveReached() throws SQLException {
+        StubDataSource replica = new StubDataSource();
+        StubDataSource primary = new StubDataSource();
+        ReplicaTarget target = new ReplicaTarget("replica", replica);
+        target.setReplayedLsn(ConsistencyToken.parse("0/16B3000"));
+
+        LoadBalancedReadDataSource dataSource = new LoadBalancedReadDataSource(
+                List.of(target), primary, new ReplicaBalancer.RoundRobin(), new SimpleMeterRegistry());
+
+        try {
+            dataSource.getConnection();
+            assertEquals(ConsistencyToken.parse("0/16B3000"), ConsistencyToken.servedLsn());
+
+            // On the primary: at least as far as the token
+            ConsistencyToken.clearServed();
+            target.setHealthy(false);
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B6C50"));
+            dataSource.getConnection();
+            assertEquals(ConsistencyToken.parse("0/16B6C50"), ConsistencyToken.servedLsn());
+        } finally {
+            ConsistencyToken.clear();
+        }
+        assertEquals(0, ConsistencyToken.servedLsn());
+    }
+
+    @Test
+    void consistencyToken_parseAndFormat_roundTripPostgresLsn() {
+        assertEquals(0x16_B374D848L, ConsistencyToken.parse("16/B374D848"));
+        assertEquals("16/B374D848", ConsistencyToken.format(ConsistencyToken.parse("16/b374d848")));
+        assertEquals("0/0", ConsistencyToken.format(0));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static final class StubDataSource extends AbstractDataSource {
+
+        private int attempts;
+        private int connections;
+        private int closed;
+        private int queries;
+        private boolean failing;
+        // What the replay position query answers on this "PostgreSQL" database
+        private String replayedLsn = "0/0";
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            if (failing) {
+                throw new SQLException("Connection refused");
+            }
+            connections++;
+            return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+                case "getMetaData" -> proxy(DatabaseMetaData.class, (p, m, a) ->
+                        "getDatabaseProductName".equals(m.getName()) ? "PostgreSQL" : null);
+                case "createStatement" -> proxy(Statement.class, (p, m, a) -> switch (m.getName()) {
+                    case "executeQuery" -> {
+                        queries++;
+                        yield proxy(ResultSet.class, (r, rm, ra) -> switch (rm.getName()) {
+                            case "next" -> true;
+                            case "getString" -> replayedLsn;
+                            default -> null;
+                        });
+                    }
+                    default -> null;
+                });
+                case "close" -> {
+                    closed++;
+                    yield null;
+                }
+                default -> null;
+            });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(StubDataSource.class.getClassLoader(), new Class<?>[] { type }, handler);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bytser.template.components;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.bytser.template.exceptions.BadRequestException;
+
+class ObservationCursorTest {
+
+    @Test
+    void decode_encodedCursor_roundTrips() {
+        ObservationCursor cursor = new ObservationCursor(LocalDateTime.of(2024, 5, 1, 6, 30, 15, 123_456_000), 4_200_000_123L);
+
+        assertEquals(cursor, ObservationCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_tamperedCursor_throwsBadRequest() {
+        assertThrows(BadRequestException.class, () -> ObservationCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> ObservationCursor.decode("MjAyNC0wMS0wMQ"));
+        assertThrows(BadRequestException.class, () -> ObservationCursor.decode(""));
+    }
+}
@@ -0,0 +1,76 @@
+package com.bytser.template.components;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.bytser.template.models.Family;
+import com.bytser.template.models.Observation;
+import com.bytser.template.models.Species;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class ObservationExportWriterTest {
+
+    private static final List<Observation> OBSERVATIONS = List.of(
+            new Observation(new Species("GRETIT", new Family("PARIDAE")), "51.05,3.72", LocalDateTime.of(2024, 5, 1, 6, 0), "say \"hi\", twice", null),
+            new Observation(new Species("ROBIN", new Family("TURDIDAE")), "garden", LocalDateTime.of(2024, 5, 1, 6, 30, 15, 250_000_000), "", null)
+    );
+
+    @Test
+    void csv_exportedRows_importAgainUnchanged() {
+        StringWriter out = new StringWriter();
+        ObservationExportWriter writer = ObservationExportWriter.csv(out);
+        OBSERVATIONS.forEach(writer::write);
+        writer.finish();
+
+        assertRoundTrip(ObservationImportReader.csv(reader(out)));
+    }
+
+    @Test
+    void ndjson_exportedRows_importAgainUnchanged() {
+        StringWriter out = new StringWriter();
+        ObservationExportWriter writer = ObservationExportWriter.ndjson(out, JsonMapper.builder().build());
+        OBSERVATIONS.forEach(writer::write);
+        writer.finish();
+
+        assertEquals(OBSERVATIONS.size(), out.toString().lines().count());
+        assertRoundTrip(ObservationImportReader.ndjson(reader(out), JsonMapper.builder().build()));
+    }
+
+    @Test
+    void csv_noObservations_writesHeaderOnly() {
+        StringWriter out = new StringWriter();
+        ObservationExportWriter writer = ObservationExportWriter.csv(out);
+        writer.finish();
+
+        assertEquals("observationId,speciesCode,familyCode,location,dateTime,notes\n", out.toString());
+        assertNull(ObservationImportReader.csv(reader(out)).next());
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static BufferedReader reader(StringWriter out) {
+        return new BufferedReader(new StringReader(out.toString()));
+    }
+
+    private static void assertRoundTrip(ObservationImportReader reader) {
+        for (Observation observation : OBSERVATIONS) {
+            ObservationImportReader.Row row = reader.next().row();
+            assertEquals(observation.getSpeciesCode(), row.speciesCode());
+            assertEquals(observation.getFamilyCode(), row.familyCode());
+            assertEquals(observation.getLocation(), row.location());
+            assertEquals(observation.getDateTime(), row.dateTime());
+            assertEquals(observation.getNotes(), row.notes());
+        }
+        assertNull(reader.next());
+    }
+}
@@ -0,0 +1,83 @@
+package com.bytser.template.components;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class ObservationImportReaderTest {
+
+    @Test
+    void ndjson_validAndInvalidLines_areRowsAndRejections() {
+        ObservationImportReader reader = ndjson("""
+                {"speciesCode":"GRETIT","familyCode":"PARIDAE","location":"51.05,3.72","dateTime":"2024-05-01T06:30:00","notes":"song"}
+
+                {"speciesCode":"GRETIT"
+                {"speciesCode":"ROBIN","familyCode":"TURDIDAE","location":"x","dateTime":"yesterday"}
+                """);
+
+        ObservationImportReader.Row row = reader.next().row();
+        assertEquals("GRETIT", row.speciesCode());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 6, 30), row.dateTime());
+        assertEquals(1, row.line());
+
+        // Blank line 2 is skipped, the line numbers still count it
+        assertEquals(3, reader.next().rejection().line());
+        assertEquals(4, reader.next().rejection().line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void ndjson_missingNotes_defaultsToEmpty() {
+        ObservationImportReader reader = ndjson("""
+                {"speciesCode":"A","familyCode":"B","location":"C","dateTime":"2024-01-01T00:00:00"}
+                """);
+
+        assertEquals("", reader.next().row().notes());
+    }
+
+    @Test
+    void csv_headerOrderAndQuoting_areRespected() {
+        ObservationImportReader reader = csv("""
+                dateTime,location,speciesCode,familyCode,notes
+                2024-01-01T10:00:00,"51,05 ""center""\",GRETIT,PARIDAE,"a, b"
+                2024-01-01T11:00:00,loc,ROBIN,,x
+                2024-01-01T12:00:00,"unterminated,ROBIN,TURDIDAE,x
+                """);
+
+        ObservationImportReader.Row row = reader.next().row();
+        assertEquals("51,05 \"center\"", row.location());
+        assertEquals("GRETIT", row.speciesCode());
+        assertEquals("a, b", row.notes());
+        assertEquals(2, row.line());
+
+        assertEquals("familyCode is verplicht", reader.next().rejection().reason());
+        assertEquals(4, reader.next().rejection().line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void csv_headerWithoutRequiredColumn_isRefused() {
+        ObservationImportReader reader = csv("species,family\nA,B\n");
+
+        assertThrows(IllegalArgumentException.class, reader::next);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static ObservationImportReader ndjson(String content) {
+        return ObservationImportReader.ndjson(new BufferedReader(new StringReader(content)), JsonMapper.builder().build());
+    }
+
+    private static ObservationImportReader csv(String content) {
+        return ObservationImportReader.csv(new BufferedReader(new StringReader(content)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.bytser.template.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.bytser.template.exceptions.BadRequestException;
+
+class ObservationSearchCursorTest {
+
+    @Test
+    void decode_encodedCursor_roundTripsTheExactRank() {
+        ObservationSearchCursor cursor = new ObservationSearchCursor(0.0607927F, 4_200_000_123L);
+        ObservationSearchCursor tiny = new ObservationSearchCursor(Math.nextUp(0F), 1L);
+
+        assertEquals(cursor, ObservationSearchCursor.decode(cursor.encode()));
+        assertEquals(tiny, ObservationSearchCursor.decode(tiny.encode()));
+    }
+
+    @Test
+    void decode_tamperedCursor_throwsBadRequest() {
+        assertThrows(BadRequestException.class, () -> ObservationSearchCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> ObservationSearchCursor.decode("MC41"));
+        assertThrows(BadRequestException.class, () -> ObservationSearchCursor.decode(""));
+    }
+}
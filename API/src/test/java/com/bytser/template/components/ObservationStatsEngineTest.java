@@ -0,0 +1,155 @@
+package com.bytser.template.components;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.bytser.template.dtos.responses.SpeciesStatsResponse;
+import com.bytser.template.dtos.responses.UserStatsResponse;
+import com.bytser.template.models.Family;
+import com.bytser.template.models.Observation;
+import com.bytser.template.models.Species;
+
+class ObservationStatsEngineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2020, 3, 1, 6, 30, 15, 250_000_000);
+
+    @Test
+    void toResponse_noObservations_matchesLegacy() {
+        UserStatsResponse result = new ObservationStatsEngine().toResponse();
+
+        assertSameStats(LegacyUserStatsCalculator.calculate(List.of()), result);
+        assertNull(result.getMostObservedSpecies());
+        assertTrue(result.getMostObservedFamily().isEmpty());
+    }
+
+    @Test
+    void toResponse_singleObservation_matchesLegacy() {
+        List<Observation> observations = List.of(observation("GRETIT", "PARIDAE", START));
+
+        assertSameStats(LegacyUserStatsCalculator.calculate(observations), feed(observations).toResponse());
+    }
+
+    @Test
+    void toResponse_randomHistories_matchLegacy() {
+        for (long seed = 1; seed <= 20; seed++) {
+            List<Observation> observations = randomHistory(new Random(seed), 5_000, 60, 9);
+
+            assertSameStats(LegacyUserStatsCalculator.calculate(observations), feed(observations).toResponse());
+        }
+    }
+
+    @Test
+    void toResponse_speciesLoggedUnderSeveralFamilies_matchesLegacy() {
+        List<Observation> observations = new ArrayList<>();
+        observations.add(observation("ROBIN", "MUSCICAPIDAE", START));
+        observations.add(observation("ROBIN", "TURDIDAE", START.plusHours(1)));
+        observations.add(observation("ROBIN", "TURDIDAE", START.plusHours(2)));
+        observations.add(observation("BLACKBIRD", "TURDIDAE", START.plusHours(3)));
+
+        assertSameStats(LegacyUserStatsCalculator.calculate(observations), feed(observations).toResponse());
+    }
+
+    @Test
+    void toResponse_preAggregatedRows_matchRawObservations() {
+        List<Observation> observations = randomHistory(new Random(42), 2_000, 25, 5);
+
+        // Same shape as the user_species_stats rows
+        Map<String, List<Observation>> perPair = new LinkedHashMap<>();
+        for (Observation observation : observations) {
+            perPair.computeIfAbsent(observation.getSpeciesCode() + "|" + observation.getFamilyCode(), key -> new ArrayList<>())
+                    .add(observation);
+        }
+
+        ObservationStatsEngine rows = new ObservationStatsEngine();
+        for (List<Observation> pair : perPair.values()) {
+            rows.add(
+                    pair.get(0).getSpeciesCode(),
+                    pair.get(0).getFamilyCode(),
+                    pair.size(),
+                    pair.stream().map(Observation::getDateTime).min(LocalDateTime::compareTo).orElseThrow(),
+                    pair.stream().map(Observation::getDateTime).max(LocalDateTime::compareTo).orElseThrow()
+            );
+        }
+
+        assertSameStats(feed(observations).toResponse(), rows.toResponse());
+    }
+
+    @Test
+    void epochMicros_roundTripsTimestampPrecision() {
+        LocalDateTime beforeEpoch = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000);
+
+        assertEquals(START, ObservationStatsEngine.fromEpochMicros(ObservationStatsEngine.toEpochMicros(START)));
+        assertEquals(beforeEpoch, ObservationStatsEngine.fromEpochMicros(ObservationStatsEngine.toEpochMicros(beforeEpoch)));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static ObservationStatsEngine feed(List<Observation> observations) {
+        ObservationStatsEngine engine = new ObservationStatsEngine();
+        for (Observation observation : observations) {
+            engine.add(observation.getSpeciesCode(), observation.getFamilyCode(), observation.getDateTime());
+        }
+        return engine;
+    }
+
+    // Unique timestamps and one clearly dominant species, so tie-breaking never decides the outcome
+    private static List<Observation> randomHistory(Random random, int size, int speciesCardinality, int familyCardinality) {
+        List<Observation> observations = new ArrayList<>(size);
+        LocalDateTime dateTime = START;
+
+        for (int i = 0; i < size; i++) {
+            dateTime = dateTime.plusSeconds(1 + random.nextInt(86_400));
+            int species = i % 10 == 0 ? 0 : random.nextInt(speciesCardinality);
+            int family = random.nextInt(20) == 0 ? random.nextInt(familyCardinality) : species % familyCardinality;
+            observations.add(observation("SP" + species, "FAM" + family, dateTime));
+        }
+
+        // Shuffle so insertion order is not chronological
+        for (int i = observations.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Observation swap = observations.get(i);
+            observations.set(i, observations.get(j));
+            observations.set(j, swap);
+        }
+        return observations;
+    }
+
+    private static Observation observation(String speciesCode, String familyCode, LocalDateTime dateTime) {
+        return new Observation(new Species(speciesCode, new Family(familyCode)), "51.05,3.72", dateTime, "notes", null);
+    }
+
+    private static void assertSameStats(UserStatsResponse expected, UserStatsResponse actual) {
+        assertEquals(expected.getTotalObservations(), actual.getTotalObservations());
+        assertEquals(expected.getUniqueSpecies(), actual.getUniqueSpecies());
+        assertEquals(expected.getUniqueFamilies(), actual.getUniqueFamilies());
+        assertEquals(expected.getAverageTimeBetweenObservations(), actual.getAverageTimeBetweenObservations());
+        assertSameSpecies(expected.getMostObservedSpecies(), actual.getMostObservedSpecies());
+
+        assertEquals(expected.getMostObservedFamily().size(), actual.getMostObservedFamily().size());
+        for (int i = 0; i < expected.getMostObservedFamily().size(); i++) {
+            assertSameSpecies(expected.getMostObservedFamily().get(i), actual.getMostObservedFamily().get(i));
+        }
+    }
+
+    private static void assertSameSpecies(SpeciesStatsResponse expected, SpeciesStatsResponse actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getSpeciesCode(), actual.getSpeciesCode());
+        assertEquals(expected.getFamilyCode(), actual.getFamilyCode());
+        assertEquals(expected.getNumberObservations(), actual.getNumberObservations());
+        assertEquals(expected.getLatestObservation(), actual.getLatestObservation());
+    }
+}
@@ -0,0 +1,33 @@
+package com.bytser.template.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReadWriteRoutingDataSourceTest {
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void determineCurrentLookupKey_countsReadAndWriteDecisions() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(registry);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(DataSourceType.READ, dataSource.determineCurrentLookupKey());
+        assertEquals(DataSourceType.READ, dataSource.determineCurrentLookupKey());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        assertEquals(DataSourceType.WRITE, dataSource.determineCurrentLookupKey());
+
+        assertEquals(2.0, registry.get("datasource.routing.decisions").tag("target", "read").counter().count());
+        assertEquals(1.0, registry.get("datasource.routing.decisions").tag("target", "write").counter().count());
+    }
+}
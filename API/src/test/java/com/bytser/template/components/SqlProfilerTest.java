@@ -0,0 +1,112 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SqlProfilerTest {
+
+    private static final String SELECT_BY_ID = "SELECT name FROM item WHERE id = ?";
+
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:sql-profiler;DB_CLOSE_DELAY=-1");
+    private final SqlProfiler sqlProfiler = new SqlProfiler(true, Duration.ofSeconds(10));
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(sqlProfiler.wrap(database));
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate plain = new JdbcTemplate(database);
+        plain.execute("CREATE TABLE IF NOT EXISTS item (id INT PRIMARY KEY, name VARCHAR(20))");
+        plain.execute("DELETE FROM item");
+        plain.execute("INSERT INTO item VALUES (1, 'one'), (2, 'two'), (3, 'three')");
+    }
+
+    @Test
+    void profile_countsStatementsTimeAndFetchedRows() throws Exception {
+        SqlProfile profile = SqlQueryBudget.profile(sqlProfiler, () -> {
+            jdbcTemplate.queryForList("SELECT id FROM item");
+            jdbcTemplate.update("UPDATE item SET name = ? WHERE id = ?", "uno", 1);
+        });
+
+        assertEquals(2, profile.getStatements());
+        assertEquals(3, profile.getRowsFetched());
+        assertTrue(profile.getJdbcNanos() > 0);
+    }
+
+    @Test
+    void profile_sameSqlRunPerRow_isReportedAsRepeated() throws Exception {
+        SqlProfile profile = SqlQueryBudget.profile(sqlProfiler, () -> {
+            for (int id = 1; id <= 3; id++) {
+                jdbcTemplate.queryForObject(SELECT_BY_ID, String.class, id);
+            }
+            jdbcTemplate.queryForList("SELECT id FROM item");
+        });
+
+        assertEquals(Map.of(SELECT_BY_ID, 3), profile.getRepeatedStatements(3));
+    }
+
+    @Test
+    void profile_nested_countsForEveryOpenProfile() throws Exception {
+        SqlProfile[] inner = new SqlProfile[1];
+        SqlProfile outer = SqlQueryBudget.profile(sqlProfiler, () -> {
+            jdbcTemplate.queryForList("SELECT id FROM item");
+            inner[0] = SqlQueryBudget.profile(sqlProfiler, () -> jdbcTemplate.queryForList("SELECT name FROM item"));
+        });
+
+        assertEquals(1, inner[0].getStatements());
+        assertEquals(2, outer.getStatements());
+        assertEquals(6, outer.getRowsFetched());
+    }
+
+    @Test
+    void slowStatement_isRecordedWithParameterShapeNotValues() throws Exception {
+        SqlProfiler everythingSlow = new SqlProfiler(true, Duration.ZERO);
+        JdbcTemplate profiled = new JdbcTemplate(everythingSlow.wrap(database));
+
+        SqlProfile profile = SqlQueryBudget.profile(everythingSlow, () -> profiled.queryForObject(SELECT_BY_ID, String.class, 2));
+
+        assertEquals(1, profile.getSlowStatements().size());
+        String slow = profile.getSlowStatements().get(0);
+        assertTrue(slow.contains(SELECT_BY_ID), slow);
+        assertTrue(slow.contains("[1:Integer]"), slow);
+    }
+
+    @Test
+    void recordStatement_sqlPastTheProxy_countsLikeAnyOtherStatement() throws Exception {
+        String copy = "COPY item (id, name) FROM STDIN WITH (FORMAT csv)";
+        SqlProfiler everythingSlow = new SqlProfiler(true, Duration.ZERO);
+
+        SqlProfile profile = SqlQueryBudget.profile(everythingSlow, () -> everythingSlow.recordStatement(copy, 3_000_000));
+
+        assertEquals(1, profile.getStatements());
+        assertEquals(3_000_000, profile.getJdbcNanos());
+        assertEquals(List.of("3 ms: " + copy), profile.getSlowStatements());
+    }
+
+    @Test
+    void assertAtMost_overBudget_failsWithTheRepeatedStatements() {
+        AssertionFailedError error = assertThrows(AssertionFailedError.class, () ->
+                SqlQueryBudget.assertAtMost(sqlProfiler, 2, () -> {
+                    for (int id = 1; id <= 3; id++) {
+                        jdbcTemplate.queryForObject(SELECT_BY_ID, String.class, id);
+                    }
+                }));
+
+        assertTrue(error.getMessage().contains("3x " + SELECT_BY_ID), error.getMessage());
+    }
+
+    @Test
+    void assertAtMost_withinBudget_passes() throws Exception {
+        SqlProfile profile = SqlQueryBudget.assertAtMost(sqlProfiler, 1, () -> jdbcTemplate.queryForList("SELECT id FROM item"));
+
+        assertEquals(1, profile.getStatements());
+    }
+}
@@ -0,0 +1,46 @@
+package com.bytser.template.components;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Query budget for tests: fails when the code under test runs more SQL statements than allowed.
+// Profiles the current thread, so it also covers a MockMvc request (the filter's profile nests inside this one):
+//   SqlQueryBudget.assertAtMost(sqlProfiler, 2, () -> mockMvc.perform(get("/users/stats")).andExpect(status().isOk()));
+public final class SqlQueryBudget {
+
+    // Statements repeated this often are listed in the failure as likely N+1 queries
+    private static final int REPEATED = 2;
+
+    @FunctionalInterface
+    public interface SqlAction {
+        void run() throws Exception;
+    }
+
+    private SqlQueryBudget() {
+    }
+
+    public static SqlProfile profile(SqlProfiler sqlProfiler, SqlAction action) throws Exception {
+        SqlProfile profile = sqlProfiler.start();
+        try {
+            action.run();
+        } finally {
+            sqlProfiler.stop(profile);
+        }
+        return profile;
+    }
+
+    public static SqlProfile assertAtMost(SqlProfiler sqlProfiler, int statements, SqlAction action) throws Exception {
+        SqlProfile profile = profile(sqlProfiler, action);
+
+        if (profile.getStatements() > statements) {
+            StringBuilder message = new StringBuilder("Query budget of ").append(statements)
+                    .append(" statements exceeded: ").append(profile.summary());
+            for (Map.Entry<String, Integer> repeated : profile.getRepeatedStatements(REPEATED).entrySet()) {
+                message.append("\n  ").append(repeated.getValue()).append("x ").append(repeated.getKey());
+            }
+            fail(message.toString());
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,217 @@
+package com.bytser.template.components;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.bytser.template.dtos.responses.UserStatsResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserStatsCacheTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserStatsCache cache = new UserStatsCache(meterRegistry, 100, Duration.ofMinutes(5));
+    private final List<String> loads = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_secondLookup_isAHitWithoutLoading() {
+        UserStatsResponse first = get(1);
+        UserStatsResponse second = get(2);
+
+        assertSame(first, second);
+        assertEquals(List.of("replica"), loads);
+        assertEquals(1.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", "userStats").gauge().value());
+    }
+
+    @Test
+    void get_otherUser_isAMiss() {
+        get(1);
+        cache.get(UUID.randomUUID(), loader("replica", 2), loader("primary", 2));
+
+        assertEquals(List.of("replica", "replica"), loads);
+        assertEquals(2.0, gets("miss"));
+    }
+
+    @Test
+    void invalidate_withoutTransaction_evictsRightAway() {
+        get(1);
+
+        cache.invalidate(USER);
+
+        assertEquals(2, get(2).getTotalObservations());
+    }
+
+    @Test
+    void invalidate_evictsOnlyOnCommit() {
+        get(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(USER);
+        // Still the committed state for everyone else until the write commits
+        assertEquals(1, get(2).getTotalObservations());
+
+        complete(true);
+        assertEquals(3, get(3).getTotalObservations());
+    }
+
+    @Test
+    void invalidate_rolledBack_keepsTheEntry() {
+        get(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(USER);
+        complete(false);
+
+        assertEquals(1, get(2).getTotalObservations());
+        assertEquals(List.of("replica"), loads);
+    }
+
+    @Test
+    void get_afterInvalidation_loadsOnceFromThePrimary() {
+        get(1);
+
+        cache.invalidate(USER);
+        get(2);
+        cache.invalidate(USER);
+        get(3);
+        assertEquals(List.of("replica", "primary", "primary"), loads);
+
+        // A hit again, the primary load was cached
+        assertEquals(3, get(4).getTotalObservations());
+        assertEquals(3, loads.size());
+    }
+
+    @Test
+    void get_primaryLoadFails_nextLoadStillReadsThePrimary() {
+        get(1);
+        cache.invalidate(USER);
+
+        try {
+            cache.get(USER, loader("replica", 2), userId -> {
+                throw new IllegalStateException("primary down");
+            });
+        } catch (IllegalStateException expected) {
+            // The marker must survive a failed load
+        }
+
+        get(3);
+        assertEquals(List.of("replica", "primary"), loads);
+    }
+
+    @Test
+    void get_withConsistencyToken_reloadsAndCachesTheFreshResult() {
+        get(1);
+
+        try {
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B6C50"));
+            assertEquals(2, get(2).getTotalObservations());
+        } finally {
+            ConsistencyToken.clear();
+        }
+
+        // Requests without a token get what the token request loaded
+        assertEquals(2, get(3).getTotalObservations());
+        assertEquals(List.of("replica", "replica"), loads);
+    }
+
+    @Test
+    void get_sameTokenTwice_secondIsAHit() {
+        get(1);
+
+        try {
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B6C50"));
+            assertEquals(2, get(2).getTotalObservations());
+            // Polling with the same token: the reload already covers it
+            assertEquals(2, get(3).getTotalObservations());
+        } finally {
+            ConsistencyToken.clear();
+        }
+
+        assertEquals(List.of("replica", "replica"), loads);
+        assertEquals(1.0, gets("hit"));
+        assertEquals(2.0, gets("miss"));
+    }
+
+    @Test
+    void get_entryLoadedPastTheToken_isServedWithoutLoading() {
+        // The replica that served the load had replayed past the write the token comes from
+        cache.get(USER, userId -> {
+            ConsistencyToken.served(ConsistencyToken.parse("0/16B6C50"));
+            return loader("replica", 1).apply(userId);
+        }, loader("primary", 1));
+
+        try {
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B3000"));
+            assertEquals(1, get(2).getTotalObservations());
+            // A newer token does reload
+            ConsistencyToken.require(ConsistencyToken.parse("0/16B7000"));
+            assertEquals(3, get(3).getTotalObservations());
+        } finally {
+            ConsistencyToken.clear();
+        }
+
+        assertEquals(List.of("replica", "replica"), loads);
+        assertEquals(1.0, gets("hit"));
+    }
+
+    @Test
+    void invalidate_emptiesTheSizeGauge() {
+        get(1);
+
+        cache.invalidate(USER);
+
+        assertEquals(0.0, meterRegistry.get("cache.size").tag("cache", "userStats").gauge().value());
+    }
+
+    //
+    // Helper functions
+    //
+
+    private UserStatsResponse get(int observations) {
+        return cache.get(USER, loader("replica", observations), loader("primary", observations));
+    }
+
+    private Function<UUID, UserStatsResponse> loader(String source, int observations) {
+        return userId -> {
+            loads.add(source);
+            return new UserStatsResponse(observations, 0, 0, null, null, List.of());
+        };
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "userStats").tag("result", result).functionCounter().count();
+    }
+
+    // What the transaction manager does at the end of the transaction
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (committed) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(committed
+                ? TransactionSynchronization.STATUS_COMMITTED
+                : TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,90 @@
+package com.bytser.template.controllers;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.components.SqlProfiler;
+import com.bytser.template.components.SqlProfilingFilter;
+import com.bytser.template.components.SqlQueryBudget;
+import com.bytser.template.services.LeaderboardService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Query budgets of the leaderboard endpoints: a refresh reads each leaderboard with one query, whatever the number
+// of species, and the requests themselves are served from the snapshot without any SQL
+class LeaderboardControllerTest {
+
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:leaderboard-controller;DB_CLOSE_DELAY=-1");
+    private final SqlProfiler sqlProfiler = new SqlProfiler(true, Duration.ofSeconds(10));
+
+    private LeaderboardService leaderboardService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate plain = new JdbcTemplate(database);
+        plain.execute("DROP TABLE IF EXISTS user_species_stats");
+        plain.execute("DROP TABLE IF EXISTS users");
+        plain.execute("CREATE TABLE users (id UUID PRIMARY KEY, username VARCHAR(255))");
+        plain.execute("""
+                CREATE TABLE user_species_stats (
+                    user_id UUID, species_code VARCHAR(255), family_code VARCHAR(255), observation_count BIGINT,
+                    PRIMARY KEY (user_id, species_code, family_code))""");
+        plain.execute("INSERT INTO users VALUES ('00000000-0000-0000-0000-000000000001', 'merel'),"
+                + " ('00000000-0000-0000-0000-000000000002', 'vink')");
+        plain.execute("""
+                INSERT INTO user_species_stats VALUES
+                    ('00000000-0000-0000-0000-000000000001', 'GRETIT', 'PARIDAE', 5),
+                    ('00000000-0000-0000-0000-000000000001', 'BLUTIT', 'PARIDAE', 2),
+                    ('00000000-0000-0000-0000-000000000002', 'GRETIT', 'PARIDAE', 7),
+                    ('00000000-0000-0000-0000-000000000002', 'ROBIN', 'TURDIDAE', 1)""");
+
+        leaderboardService = new LeaderboardService(new JdbcTemplate(sqlProfiler.wrap(database)),
+                new TransactionTemplate(new DataSourceTransactionManager(database)), new DatabasePlatform(database),
+                new SimpleMeterRegistry(), Duration.ofMinutes(5), 100, 10);
+        mockMvc = MockMvcBuilders.standaloneSetup(new LeaderboardController(leaderboardService, null))
+                .addFilters(new SqlProfilingFilter(sqlProfiler, true, 5))
+                .build();
+    }
+
+    @Test
+    void refresh_readsEveryLeaderboardWithOneQuery() throws Exception {
+        SqlQueryBudget.assertAtMost(sqlProfiler, 3, leaderboardService::refresh);
+    }
+
+    @Test
+    void getTopSpecies_isServedWithoutSql() throws Exception {
+        leaderboardService.refresh();
+
+        SqlQueryBudget.assertAtMost(sqlProfiler, 0, () -> mockMvc.perform(get("/leaderboards/species"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries[0].code").value("GRETIT"))
+                .andExpect(header().string("X-SQL-Statements", "0")));
+    }
+
+    @Test
+    void getTopFamiliesAndObservers_areServedWithoutSql() throws Exception {
+        leaderboardService.refresh();
+
+        SqlQueryBudget.assertAtMost(sqlProfiler, 0, () -> {
+            mockMvc.perform(get("/leaderboards/families")).andExpect(status().isOk());
+            mockMvc.perform(get("/leaderboards/species/GRETIT/observers"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.entries[0].username").value("vink"));
+        });
+    }
+}
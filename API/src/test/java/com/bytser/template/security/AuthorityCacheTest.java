@@ -0,0 +1,96 @@
+package com.bytser.template.security;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bytser.template.models.User;
+import com.bytser.template.repositories.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuthorityCacheTest {
+
+    private final Map<UUID, User> users = new HashMap<>();
+    private int lookups;
+
+    @Test
+    void get_adminFlag_grantsTheAdminRole() {
+        UUID admin = user("beheer", true);
+        UUID regular = user("merel", false);
+        AuthorityCache authorityCache = authorityCache(Duration.ofMinutes(1));
+
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), roles(authorityCache.get(admin)));
+        assertEquals(List.of("ROLE_USER"), roles(authorityCache.get(regular)));
+    }
+
+    @Test
+    void get_withinTheTimeToLive_looksUpOnce() {
+        UUID admin = user("beheer", true);
+        AuthorityCache authorityCache = authorityCache(Duration.ofMinutes(1));
+
+        authorityCache.get(admin);
+        authorityCache.get(admin);
+
+        assertEquals(1, lookups);
+    }
+
+    @Test
+    void get_revokedAdmin_losesTheRoleOnTheNextLookup() {
+        UUID admin = user("beheer", true);
+        AuthorityCache authorityCache = authorityCache(Duration.ZERO);
+        authorityCache.get(admin);
+
+        ReflectionTestUtils.setField(users.get(admin), "admin", false);
+
+        // Whatever the token says, it no longer opens the admin endpoints
+        assertEquals(List.of("ROLE_USER"), roles(authorityCache.get(admin)));
+    }
+
+    @Test
+    void get_deletedAccount_hasNoAuthorities() {
+        UUID deleted = user("vink", false);
+        users.remove(deleted);
+
+        assertTrue(authorityCache(Duration.ofMinutes(1)).get(deleted).isEmpty());
+    }
+
+    //
+    // Helper functions
+    //
+
+    private AuthorityCache authorityCache(Duration timeToLive) {
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    lookups++;
+                    return Optional.ofNullable(users.get((UUID) args[0]));
+                });
+        return new AuthorityCache(userRepository, new SimpleMeterRegistry(), 100, timeToLive);
+    }
+
+    private UUID user(String username, boolean admin) {
+        User user = new User(username, username + "@example.com", "hash");
+        UUID id = UUID.randomUUID();
+        ReflectionTestUtils.setField(user, "id", id);
+        ReflectionTestUtils.setField(user, "admin", admin);
+        users.put(id, user);
+        return id;
+    }
+
+    private static List<String> roles(List<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
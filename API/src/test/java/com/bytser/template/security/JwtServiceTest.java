@@ -0,0 +1,201 @@
+package com.bytser.template.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+class JwtServiceTest {
+
+    private static final String OLD_KEY = "b2xkLXRlc3Qtc2lnbmluZy1rZXktMDEyMzQ1Njc4OWFiY2RlZg==";
+    private static final String NEW_KEY = "bmV3LXRlc3Qtc2lnbmluZy1rZXktMDEyMzQ1Njc4OWFiY2RlZg==";
+    private static final String FOREIGN_KEY = "Zm9yZWlnbi1zaWduaW5nLWtleS0wMTIzNDU2Nzg5YWJjZGVmZ2g=";
+    private static final String ISSUER = "test-api";
+
+    private final UserIdentity identity = new UserIdentity(UUID.randomUUID(), "merel");
+
+    @Test
+    void verify_issuedToken_returnsTheIdentity() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        String token = jwtService.issueToken(identity);
+
+        assertEquals(identity, jwtService.verify(token));
+        assertEquals(900, jwtService.getExpirySeconds());
+    }
+
+    @Test
+    void issueToken_carriesNoRoles() {
+        String token = jwtService("new", Map.of("new", NEW_KEY)).issueToken(identity);
+
+        // Roles are looked up per request, a token must not keep a revoked one alive
+        String payload = new String(Decoders.BASE64URL.decode(token.split("\\.")[1]));
+        assertFalse(payload.contains("roles"), payload);
+    }
+
+    @Test
+    void verify_afterRotation_acceptsTokensOfThePreviousKey() {
+        JwtService before = jwtService("old", Map.of("old", OLD_KEY));
+        String oldToken = before.issueToken(identity);
+
+        // New key active, the old one still configured until its last tokens expire
+        JwtService after = jwtService("new", keys("new", NEW_KEY, "old", OLD_KEY));
+        String newToken = after.issueToken(identity);
+
+        assertEquals(identity, after.verify(oldToken));
+        assertEquals(identity, after.verify(newToken));
+        assertEquals("new", keyId(newToken));
+    }
+
+    @Test
+    void verify_oldKeyRemoved_rejectsItsTokens() {
+        String oldToken = jwtService("old", Map.of("old", OLD_KEY)).issueToken(identity);
+
+        JwtService after = jwtService("new", Map.of("new", NEW_KEY));
+
+        assertThrows(JwtException.class, () -> after.verify(oldToken));
+    }
+
+    @Test
+    void verify_unknownKeyId_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        assertThrows(JwtException.class, () -> jwtService.verify(token("other", NEW_KEY, Instant.now().plusSeconds(60))));
+    }
+
+    @Test
+    void verify_knownKeyIdSignedWithAnotherKey_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        assertThrows(JwtException.class, () -> jwtService.verify(token("new", FOREIGN_KEY, Instant.now().plusSeconds(60))));
+    }
+
+    @Test
+    void verify_expiredWithinClockSkew_isAccepted() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        String token = token("new", NEW_KEY, Instant.now().minusSeconds(10));
+
+        assertEquals(identity, jwtService.verify(token));
+    }
+
+    @Test
+    void verify_expiredBeyondClockSkew_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        String token = token("new", NEW_KEY, Instant.now().minusSeconds(60));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void verify_tamperedPayload_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+        String[] parts = jwtService.issueToken(identity).split("\\.");
+
+        // Same header and signature, payload of a token for another user
+        String forged = jwtService.issueToken(new UserIdentity(UUID.randomUUID(), "admin")).split("\\.")[1];
+
+        assertThrows(JwtException.class, () -> jwtService.verify(parts[0] + "." + forged + "." + parts[2]));
+    }
+
+    @Test
+    void verify_unsignedToken_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        String unsigned = Jwts.builder()
+                .setIssuer(ISSUER)
+                .setSubject(identity.id().toString())
+                .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtService.verify(unsigned));
+    }
+
+    @Test
+    void verify_otherIssuer_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, "new")
+                .setIssuer("someone-else")
+                .setSubject(identity.id().toString())
+                .setExpiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(NEW_KEY)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void verify_malformedToken_isRejected() {
+        JwtService jwtService = jwtService("new", Map.of("new", NEW_KEY));
+
+        assertThrows(JwtException.class, () -> jwtService.verify("not-a-token"));
+        assertThrows(JwtException.class, () -> jwtService.verify("a.b.c"));
+    }
+
+    @Test
+    void constructor_withoutKeys_signsWithAnEphemeralKey() {
+        JwtService jwtService = jwtService(null, Map.of());
+
+        String token = jwtService.issueToken(identity);
+
+        assertEquals(identity, jwtService.verify(token));
+        // Another instance (a restart, another replica) has another key
+        assertThrows(JwtException.class, () -> jwtService(null, Map.of()).verify(token));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static JwtService jwtService(String activeKeyId, Map<String, String> keys) {
+        JwtProperties properties = new JwtProperties();
+        properties.setIssuer(ISSUER);
+        properties.setExpiry(Duration.ofMinutes(15));
+        properties.setActiveKeyId(activeKeyId);
+        properties.setKeys(new LinkedHashMap<>(keys));
+        return new JwtService(properties);
+    }
+
+    private static Map<String, String> keys(String firstId, String first, String secondId, String second) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        keys.put(firstId, first);
+        keys.put(secondId, second);
+        return keys;
+    }
+
+    // A token as JwtService would issue it, but with the key id, signing key and expiry of the test
+    private String token(String keyId, String secret, Instant expiresAt) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyId)
+                .setIssuer(ISSUER)
+                .setSubject(identity.id().toString())
+                .claim("username", identity.username())
+                .setIssuedAt(Date.from(expiresAt.minus(Duration.ofMinutes(15))))
+                .setExpiration(Date.from(expiresAt))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static String keyId(String token) {
+        String header = new String(Decoders.BASE64URL.decode(token.substring(0, token.indexOf('.'))));
+        return header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+    }
+}
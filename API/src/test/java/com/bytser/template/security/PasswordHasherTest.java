@@ -0,0 +1,139 @@
+package com.bytser.template.security;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHasherTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final BlockingEncoder encoder = new BlockingEncoder();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        encoder.release.countDown();
+        hasher.destroy();
+    }
+
+    @Test
+    void encode_returnsTheHashFromTheHashingThread() {
+        encoder.release.countDown();
+        hasher = new PasswordHasher(encoder, registry, 1, 1, Duration.ofSeconds(5));
+
+        assertEquals("hashed:secret@password-hasher-0", hasher.encode("secret"));
+        assertEquals(1, registry.get("password.hashing").timer().count());
+    }
+
+    @Test
+    void encode_queueFull_isRejectedWithoutWaiting() throws InterruptedException {
+        hasher = new PasswordHasher(encoder, registry, 1, 1, Duration.ofMinutes(1));
+
+        // One hash running, one queued: the pool and its queue are full
+        CompletableFuture.runAsync(() -> hasher.encode("running"));
+        encoder.started.await();
+        CompletableFuture.runAsync(() -> hasher.encode("queued"));
+        while (registry.get("password.hashing.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        assertThrows(PasswordHasher.SaturatedException.class, () -> hasher.encode("rejected"));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(1).toNanos());
+        assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void encode_noHashWithinMaxWait_isRejected() {
+        hasher = new PasswordHasher(encoder, registry, 1, 10, Duration.ofMillis(20));
+
+        assertThrows(PasswordHasher.SaturatedException.class, () -> hasher.encode("slow"));
+        assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void encode_queuedHashesTakeLongerThanMaxWait_isRejectedBeforeQueueing() throws InterruptedException {
+        hasher = new PasswordHasher(encoder, registry, 1, 10, Duration.ofMillis(250));
+        // Hashes have taken 100 ms so far
+        registry.get("password.hashing").timer().record(Duration.ofMillis(100));
+
+        // One hash running, two queued: about 300 ms until a new one would be done
+        CompletableFuture.runAsync(() -> hasher.encode("running"));
+        encoder.started.await();
+        CompletableFuture.runAsync(() -> hasher.encode("queued"));
+        CompletableFuture.runAsync(() -> hasher.encode("queued"));
+        while (registry.get("password.hashing.queued").gauge().value() < 2) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        assertThrows(PasswordHasher.SaturatedException.class, () -> hasher.encode("rejected"));
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(100).toNanos());
+        assertEquals(2.0, registry.get("password.hashing.queued").gauge().value());
+        assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void encodeAll_hashesOnEveryThreadInInputOrder() {
+        encoder.release.countDown();
+        hasher = new PasswordHasher(encoder, registry, 2, 2, Duration.ofSeconds(5));
+
+        List<String> hashes = hasher.encodeAll(List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), hashes.stream().map(hash -> hash.substring(7, 8)).toList());
+        assertTrue(hashes.stream().allMatch(hash -> hash.contains("@password-hasher-")));
+        assertEquals(5, registry.get("password.hashing").timer().count());
+    }
+
+    @Test
+    void encodeAll_neverQueuesMoreThanThePoolSize() {
+        encoder.release.countDown();
+        // A queue of one would reject the list if it was submitted at once
+        hasher = new PasswordHasher(encoder, registry, 1, 1, Duration.ofSeconds(5));
+
+        assertEquals(20, hasher.encodeAll(Collections.nCopies(20, "x")).size());
+        assertEquals(0.0, registry.get("password.hashing.rejected").counter().count());
+    }
+
+    @Test
+    void threads_defaultsToHalfTheCores() {
+        hasher = new PasswordHasher(encoder, registry, 0, 1, Duration.ofSeconds(1));
+
+        assertEquals(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), hasher.getThreads());
+    }
+
+    // Hashes once `release` is counted down, names the thread it ran on
+    private static class BlockingEncoder implements PasswordEncoder {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword + "@" + Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.bytser.template.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.components.DatabasePlatform;
+import com.bytser.template.dtos.responses.LeaderboardEntryResponse;
+import com.bytser.template.dtos.responses.LeaderboardResponse;
+import com.bytser.template.dtos.responses.ObserverRankResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// On H2 the snapshot is aggregated from user_species_stats, the materialized views and their refresh lease are
+// PostgreSQL only
+class LeaderboardServiceTest {
+
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:leaderboard;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UUID merel = UUID.randomUUID();
+    private final UUID vink = UUID.randomUUID();
+    private final UUID uil = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS user_species_stats");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (id UUID PRIMARY KEY, username VARCHAR(255))");
+        jdbcTemplate.execute("""
+                CREATE TABLE user_species_stats (
+                    user_id UUID, species_code VARCHAR(255), family_code VARCHAR(255), observation_count BIGINT,
+                    PRIMARY KEY (user_id, species_code, family_code))""");
+
+        jdbcTemplate.update("INSERT INTO users VALUES (?, 'merel'), (?, 'vink'), (?, 'uil')", merel, vink, uil);
+        stats(merel, "GRETIT", "PARIDAE", 5);
+        stats(merel, "BLUTIT", "PARIDAE", 2);
+        stats(vink, "GRETIT", "PARIDAE", 7);
+        stats(vink, "ROBIN", "TURDIDAE", 1);
+        stats(uil, "GRETIT", "PARIDAE", 1);
+    }
+
+    @Test
+    void getTopSpecies_beforeTheFirstRefresh_isEmpty() {
+        LeaderboardResponse<LeaderboardEntryResponse> species = leaderboardService(100, 10).getTopSpecies(10);
+
+        assertNull(species.getRefreshedAt());
+        assertTrue(species.getEntries().isEmpty());
+    }
+
+    @Test
+    void refresh_ranksSpeciesAndFamiliesByObservations() {
+        LeaderboardService leaderboardService = leaderboardService(100, 10);
+        Instant before = Instant.now();
+
+        leaderboardService.refresh();
+
+        LeaderboardResponse<LeaderboardEntryResponse> species = leaderboardService.getTopSpecies(10);
+        assertEquals(List.of("GRETIT", "BLUTIT", "ROBIN"), codes(species));
+        assertEquals(13, species.getEntries().get(0).getObservations());
+        assertEquals(3, species.getEntries().get(0).getObservers());
+        assertFalse(species.getRefreshedAt().isBefore(before));
+
+        LeaderboardResponse<LeaderboardEntryResponse> families = leaderboardService.getTopFamilies(10);
+        assertEquals(List.of("PARIDAE", "TURDIDAE"), codes(families));
+        assertEquals(15, families.getEntries().get(0).getObservations());
+        assertEquals(1, meterRegistry.get("leaderboard.refresh").timer().count());
+    }
+
+    @Test
+    void getTopSpecies_limit_isClampedToTheSnapshot() {
+        LeaderboardService leaderboardService = leaderboardService(2, 10);
+        leaderboardService.refresh();
+
+        // leaderboard.size keeps two, asking for more or less than that
+        assertEquals(List.of("GRETIT", "BLUTIT"), codes(leaderboardService.getTopSpecies(50)));
+        assertEquals(List.of("GRETIT"), codes(leaderboardService.getTopSpecies(1)));
+        assertTrue(leaderboardService.getTopSpecies(-1).getEntries().isEmpty());
+    }
+
+    @Test
+    void getTopObservers_ranksObserversPerSpeciesUpToTheLimit() {
+        LeaderboardService leaderboardService = leaderboardService(100, 2);
+        leaderboardService.refresh();
+
+        List<ObserverRankResponse> observers = leaderboardService.getTopObservers("GRETIT").getEntries();
+
+        assertEquals(List.of("vink", "merel"), observers.stream().map(ObserverRankResponse::getUsername).toList());
+        assertEquals(7, observers.get(0).getObservations());
+        assertTrue(leaderboardService.getTopObservers("UNKNOWN").getEntries().isEmpty());
+    }
+
+    @Test
+    void refresh_newStats_areOnlyVisibleAfterTheNextRefresh() {
+        LeaderboardService leaderboardService = leaderboardService(100, 10);
+        leaderboardService.refresh();
+
+        stats(uil, "ROBIN", "TURDIDAE", 40);
+        assertEquals("GRETIT", leaderboardService.getTopSpecies(1).getEntries().get(0).getCode());
+
+        leaderboardService.refresh();
+        assertEquals("ROBIN", leaderboardService.getTopSpecies(1).getEntries().get(0).getCode());
+    }
+
+    @Test
+    void refresh_failing_keepsServingThePreviousSnapshot() {
+        LeaderboardService leaderboardService = leaderboardService(100, 10);
+        leaderboardService.refresh();
+        Instant refreshedAt = leaderboardService.getTopSpecies(10).getRefreshedAt();
+
+        jdbcTemplate.execute("DROP TABLE user_species_stats");
+        leaderboardService.refresh();
+
+        assertEquals(refreshedAt, leaderboardService.getTopSpecies(10).getRefreshedAt());
+        assertEquals(List.of("GRETIT", "BLUTIT", "ROBIN"), codes(leaderboardService.getTopSpecies(10)));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private LeaderboardService leaderboardService(int size, int observersPerSpecies) {
+        return new LeaderboardService(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(database)),
+                new DatabasePlatform(database), meterRegistry, Duration.ofMinutes(5), size, observersPerSpecies);
+    }
+
+    private void stats(UUID userId, String speciesCode, String familyCode, long observations) {
+        jdbcTemplate.update("INSERT INTO user_species_stats VALUES (?, ?, ?, ?)", userId, speciesCode, familyCode, observations);
+    }
+
+    private static List<String> codes(LeaderboardResponse<LeaderboardEntryResponse> leaderboard) {
+        return leaderboard.getEntries().stream().map(LeaderboardEntryResponse::getCode).toList();
+    }
+}
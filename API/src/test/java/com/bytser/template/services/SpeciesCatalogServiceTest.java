@@ -0,0 +1,280 @@
+package com.bytser.template.services;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.bytser.template.dtos.responses.SpeciesResponse;
+import com.bytser.template.exceptions.BadRequestException;
+import com.bytser.template.models.Family;
+import com.bytser.template.models.Species;
+import com.bytser.template.repositories.FamilyRepository;
+import com.bytser.template.repositories.SpeciesRepository;
+
+class SpeciesCatalogServiceTest {
+
+    private final CatalogDatabase database = new CatalogDatabase();
+    private final SpeciesCatalogService catalogService = new SpeciesCatalogService(
+            database.speciesRepository(), database.familyRepository(), database);
+
+    @Test
+    void resolve_knownSpecies_isALookupWithoutWrites() {
+        Species greatTit = database.insertSpecies("GRETIT", "PARIDAE");
+
+        assertSame(greatTit, catalogService.resolve("GRETIT", "PARIDAE"));
+        assertSame(greatTit, catalogService.resolve("GRETIT", null));
+        assertEquals(1, database.reads);
+    }
+
+    @Test
+    void resolve_unknownSpecies_registersItInItsFamily() {
+        Species greatTit = database.insertSpecies("GRETIT", "PARIDAE");
+
+        Species blueTit = catalogService.resolve("BLUTIT", "PARIDAE");
+
+        assertEquals("BLUTIT", blueTit.getCode());
+        assertEquals(greatTit.getFamily().getId(), blueTit.getFamily().getId());
+        assertEquals(1, database.families.size());
+        // Served from the new snapshot from now on
+        assertSame(blueTit, catalogService.resolve("BLUTIT", null));
+        // The species is added to the snapshot, the catalog is not read again
+        assertEquals(1, database.reads);
+        assertEquals(List.of("BLUTIT", "GRETIT"),
+                catalogService.getCatalog().stream().map(SpeciesResponse::getCode).toList());
+    }
+
+    @Test
+    void resolve_unknownSpeciesAndFamily_registersBoth() {
+        Species robin = catalogService.resolve("ROBIN", "TURDIDAE");
+
+        assertEquals("TURDIDAE", robin.getFamilyCode());
+        assertEquals(List.of("TURDIDAE"), List.copyOf(database.families.keySet()));
+    }
+
+    @Test
+    void resolve_unknownSpeciesWithoutFamily_isRejected() {
+        assertThrows(BadRequestException.class, () -> catalogService.resolve("ROBIN", null));
+
+        assertEquals(0, database.species.size());
+    }
+
+    @Test
+    void resolve_familyContradictingTheCatalog_isRejected() {
+        database.insertSpecies("GRETIT", "PARIDAE");
+
+        assertThrows(BadRequestException.class, () -> catalogService.resolve("GRETIT", "TURDIDAE"));
+        assertEquals(List.of("PARIDAE"), List.copyOf(database.families.keySet()));
+    }
+
+    @Test
+    void resolve_familyCreatedConcurrently_retriesAndUsesTheExistingFamily() {
+        // Another instance commits the family between our lookup and our insert
+        database.beforeFamilyInsert = () -> database.insertFamily("TURDIDAE");
+
+        Species robin = catalogService.resolve("ROBIN", "TURDIDAE");
+
+        assertEquals(1, database.families.size());
+        assertEquals(database.families.get("TURDIDAE").getId(), robin.getFamily().getId());
+        assertEquals(1, database.failedInserts);
+    }
+
+    @Test
+    void resolve_speciesRegisteredConcurrently_returnsTheOtherInstancesRow() {
+        database.insertFamily("TURDIDAE");
+        database.beforeSpeciesInsert = () -> database.insertSpecies("ROBIN", "TURDIDAE");
+
+        Species robin = catalogService.resolve("ROBIN", "TURDIDAE");
+
+        assertSame(database.species.get("ROBIN"), robin);
+        assertEquals(1, database.species.size());
+        assertEquals(1, database.failedInserts);
+        // Found by its code, not by reading the whole catalog again
+        assertEquals(1, database.reads);
+    }
+
+    @Test
+    void resolve_speciesRegisteredByAnotherInstanceEarlier_isLookedUpByCode() {
+        database.insertSpecies("GRETIT", "PARIDAE");
+        catalogService.resolve("GRETIT", null);
+        database.insertSpecies("ROBIN", "TURDIDAE");
+
+        Species robin = catalogService.resolve("ROBIN", "TURDIDAE");
+
+        assertSame(database.species.get("ROBIN"), robin);
+        assertEquals(0, database.failedInserts);
+        assertEquals(1, database.reads);
+        assertSame(robin, catalogService.resolve("ROBIN", null));
+    }
+
+    @Test
+    void resolve_sameUnknownSpeciesOnManyThreads_registersItOnce() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Species>> calls = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            calls.add(() -> {
+                start.await();
+                return catalogService.resolve("ROBIN", "TURDIDAE");
+            });
+        }
+
+        List<Species> resolved = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Species>> futures = calls.stream().map(executor::submit).toList();
+            start.countDown();
+            for (Future<Species> future : futures) {
+                resolved.add(future.get());
+            }
+        }
+
+        assertEquals(1, database.species.size());
+        assertEquals(1, database.families.size());
+        assertEquals(0, database.failedInserts);
+        resolved.forEach(species -> assertEquals(database.species.get("ROBIN").getId(), species.getId()));
+    }
+
+    @Test
+    void getCatalog_isSortedByCode() {
+        database.insertSpecies("ROBIN", "TURDIDAE");
+        database.insertSpecies("GRETIT", "PARIDAE");
+        database.insertSpecies("BLUTIT", "PARIDAE");
+
+        List<String> codes = catalogService.getCatalog().stream().map(SpeciesResponse::getCode).toList();
+
+        assertEquals(List.of("BLUTIT", "GRETIT", "ROBIN"), codes);
+    }
+
+    //
+    // Helper functions
+    //
+
+    // The species and family tables with their unique codes, and a transaction manager that undoes the inserts
+    // of a rolled back transaction
+    private static final class CatalogDatabase implements PlatformTransactionManager {
+
+        private final Map<String, Family> families = new LinkedHashMap<>();
+        private final Map<String, Species> species = new LinkedHashMap<>();
+        private final List<Runnable> undo = new ArrayList<>();
+        private int nextId = 1;
+        private int reads;
+        private int failedInserts;
+        // What another instance commits right before our next insert of that table
+        private Runnable beforeFamilyInsert;
+        private Runnable beforeSpeciesInsert;
+
+        synchronized Family insertFamily(String code) {
+            Family family = new Family(code);
+            ReflectionTestUtils.setField(family, "id", nextId++);
+            families.put(code, family);
+            return family;
+        }
+
+        synchronized Species insertSpecies(String code, String familyCode) {
+            Family family = families.containsKey(familyCode) ? families.get(familyCode) : insertFamily(familyCode);
+            Species inserted = new Species(code, family);
+            ReflectionTestUtils.setField(inserted, "id", nextId++);
+            species.put(code, inserted);
+            return inserted;
+        }
+
+        SpeciesRepository speciesRepository() {
+            return repository(SpeciesRepository.class, (proxy, method, args) -> {
+                synchronized (this) {
+                    return switch (method.getName()) {
+                        case "findAllWithFamily" -> {
+                            reads++;
+                            yield List.copyOf(species.values());
+                        }
+                        case "findByCode" -> Optional.ofNullable(species.get((String) args[0]));
+                        case "saveAndFlush" -> {
+                            Species saved = (Species) args[0];
+                            beforeSpeciesInsert = runOnce(beforeSpeciesInsert);
+                            checkUnique(species.containsKey(saved.getCode()), saved.getCode());
+                            ReflectionTestUtils.setField(saved, "id", nextId++);
+                            species.put(saved.getCode(), saved);
+                            undo.add(() -> species.remove(saved.getCode(), saved));
+                            yield saved;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                }
+            });
+        }
+
+        FamilyRepository familyRepository() {
+            return repository(FamilyRepository.class, (proxy, method, args) -> {
+                synchronized (this) {
+                    return switch (method.getName()) {
+                        case "findByCode" -> Optional.ofNullable(families.get((String) args[0]));
+                        case "saveAndFlush" -> {
+                            Family saved = (Family) args[0];
+                            beforeFamilyInsert = runOnce(beforeFamilyInsert);
+                            checkUnique(families.containsKey(saved.getCode()), saved.getCode());
+                            ReflectionTestUtils.setField(saved, "id", nextId++);
+                            families.put(saved.getCode(), saved);
+                            undo.add(() -> families.remove(saved.getCode(), saved));
+                            yield saved;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                }
+            });
+        }
+
+        @Override
+        public synchronized TransactionStatus getTransaction(TransactionDefinition definition) {
+            undo.clear();
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public synchronized void commit(TransactionStatus status) {
+            undo.clear();
+        }
+
+        @Override
+        public synchronized void rollback(TransactionStatus status) {
+            undo.reversed().forEach(Runnable::run);
+            undo.clear();
+        }
+
+        private void checkUnique(boolean taken, String code) {
+            if (taken) {
+                failedInserts++;
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint: " + code);
+            }
+        }
+
+        private static Runnable runOnce(Runnable hook) {
+            if (hook != null) {
+                hook.run();
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T repository(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(CatalogDatabase.class.getClassLoader(), new Class<?>[] { type }, handler);
+        }
+    }
+}
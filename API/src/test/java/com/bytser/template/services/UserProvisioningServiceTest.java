@@ -0,0 +1,234 @@
+package com.bytser.template.services;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bytser.template.components.AuditLog;
+import com.bytser.template.components.AuditProperties;
+import com.bytser.template.components.UserBatchWriter;
+import com.bytser.template.dtos.responses.BulkUserResponse;
+import com.bytser.template.dtos.responses.BulkUserResultResponse;
+import com.bytser.template.repositories.UserRepository;
+import com.bytser.template.security.PasswordHasher;
+import com.bytser.template.security.UserIdentity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import tools.jackson.databind.json.JsonMapper;
+
+// Against H2 with the named unique constraints of users; the repository's two lookups are plain SQL here
+class UserProvisioningServiceTest {
+
+    private static final UserIdentity ADMIN = new UserIdentity(UUID.randomUUID(), "beheer");
+
+    private final DriverManagerDataSource database = new DriverManagerDataSource("jdbc:h2:mem:user-provisioning;DB_CLOSE_DELAY=-1");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(database);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHasher passwordHasher = new PasswordHasher(new PlainEncoder(), meterRegistry, 2, 16, Duration.ofSeconds(5));
+
+    // Whether each taken-lookup ran in a read-write (primary) transaction
+    private final List<Boolean> lookupsOnPrimary = new ArrayList<>();
+    // What a concurrent signup commits right after the first lookup
+    private Runnable afterFirstLookup;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("""
+                CREATE TABLE users (
+                    id UUID PRIMARY KEY, username VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL,
+                    password VARCHAR(255) NOT NULL, admin BOOLEAN DEFAULT FALSE NOT NULL,
+                    CONSTRAINT users_username_key UNIQUE (username), CONSTRAINT users_email_key UNIQUE (email))""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.destroy();
+    }
+
+    @Test
+    void provision_validRows_areCreatedWithHashedPasswords() {
+        BulkUserResponse response = provision(10,
+                row("merel", "merel@example.com"),
+                row("vink", "vink@example.com"));
+
+        assertTrue(response.isCompleted());
+        assertEquals(2, response.getCreatedRows());
+        assertEquals("hashed:secret123", jdbcTemplate.queryForObject(
+                "SELECT password FROM users WHERE username = 'merel'", String.class));
+    }
+
+    @Test
+    void provision_duplicatesWithinTheUpload_keepTheFirstLine() {
+        BulkUserResponse response = provision(10,
+                row("merel", "merel@example.com"),
+                row("merel", "other@example.com"),
+                row("vink", "merel@example.com"),
+                row("uil", "uil@example.com"));
+
+        assertEquals(2, response.getCreatedRows());
+        assertEquals("Gebruikersnaam merel staat al op regel 1", reason(response, 2));
+        assertEquals("Emailadres merel@example.com staat al op regel 1", reason(response, 3));
+        assertEquals(List.of("merel", "uil"), usernames());
+    }
+
+    @Test
+    void provision_existingUsers_areRejectedAndTheRestCreated() {
+        insertUser("merel", "merel@example.com");
+
+        BulkUserResponse response = provision(10,
+                row("merel", "new@example.com"),
+                row("vink", "merel@example.com"),
+                row("uil", "uil@example.com"));
+
+        assertTrue(response.isCompleted());
+        assertEquals(1, response.getCreatedRows());
+        assertEquals("Gebruikersnaam merel is al in gebruik", reason(response, 1));
+        assertEquals("Emailadres merel@example.com is al in gebruik", reason(response, 2));
+        assertEquals(List.of("merel", "uil"), usernames());
+    }
+
+    @Test
+    void provision_takenSinceTheCheck_rejectsThatRowAndInsertsTheRest() {
+        // A signup commits between the lookup and the batch insert, the insert fails on the unique constraint
+        afterFirstLookup = () -> insertUser("vink", "signup@example.com");
+
+        BulkUserResponse response = provision(10,
+                row("merel", "merel@example.com"),
+                row("vink", "vink@example.com"),
+                row("uil", "uil@example.com"));
+
+        assertTrue(response.isCompleted());
+        assertEquals(2, response.getCreatedRows());
+        assertEquals("Gebruikersnaam vink is al in gebruik", reason(response, 2));
+        assertEquals(List.of("merel", "uil", "vink"), usernames());
+        assertEquals("signup@example.com", jdbcTemplate.queryForObject(
+                "SELECT email FROM users WHERE username = 'vink'", String.class));
+    }
+
+    @Test
+    void provision_takenLookups_runOnThePrimary() {
+        afterFirstLookup = () -> insertUser("vink", "signup@example.com");
+
+        provision(2,
+                row("merel", "merel@example.com"),
+                row("vink", "vink@example.com"),
+                row("uil", "uil@example.com"));
+
+        // Two lookups per check: the first batch, its re-check after the constraint violation, the second batch
+        assertEquals(6, lookupsOnPrimary.size());
+        assertTrue(lookupsOnPrimary.stream().allMatch(Boolean::booleanValue), lookupsOnPrimary.toString());
+    }
+
+    @Test
+    void provision_invalidLines_areRejectedPerLine() {
+        BulkUserResponse response = provision(10,
+                "not json",
+                "{\"username\": \"merel\", \"email\": \"geen-email\", \"password\": \"secret123\"}",
+                row("vink", "vink@example.com"));
+
+        assertEquals(1, response.getCreatedRows());
+        assertTrue(reason(response, 1).startsWith("Ongeldige JSON"), reason(response, 1));
+        assertEquals("Ongeldig emailadres", reason(response, 2));
+    }
+
+    //
+    // Helper functions
+    //
+
+    private BulkUserResponse provision(int batchSize, String... lines) {
+        UserProvisioningService service = new UserProvisioningService(batchWriter(), userRepository(), passwordHasher,
+                transactionManager, Validation.buildDefaultValidatorFactory().getValidator(), JsonMapper.builder().build(),
+                batchSize, 1000);
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return service.provision(ADMIN, new ByteArrayInputStream(body));
+    }
+
+    // The writer's @Transactional without a Spring proxy: one transaction per batch, as in the application
+    private UserBatchWriter batchWriter() {
+        TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+        return new UserBatchWriter(jdbcTemplate, new AuditLog(new AuditProperties(), meterRegistry)) {
+            @Override
+            public void write(UUID actorId, List<Row> rows) {
+                ownTransaction.executeWithoutResult(status -> super.write(actorId, rows));
+            }
+        };
+    }
+
+    private UserRepository userRepository() {
+        NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        return (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { UserRepository.class },
+                (proxy, method, args) -> {
+                    String column = switch (method.getName()) {
+                        case "findTakenUsernames" -> "username";
+                        case "findTakenEmails" -> "email";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                    lookupsOnPrimary.add(TransactionSynchronizationManager.isActualTransactionActive()
+                            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                    List<String> taken = named.queryForList("SELECT " + column + " FROM users WHERE " + column + " IN (:values)",
+                            Map.of("values", (Collection<?>) args[0]), String.class);
+                    if (afterFirstLookup != null && column.equals("email")) {
+                        Runnable concurrentSignup = afterFirstLookup;
+                        afterFirstLookup = null;
+                        concurrentSignup.run();
+                    }
+                    return taken;
+                });
+    }
+
+    private void insertUser(String username, String email) {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, 'hash')",
+                UUID.randomUUID(), username, email);
+    }
+
+    private List<String> usernames() {
+        return jdbcTemplate.queryForList("SELECT username FROM users ORDER BY username", String.class);
+    }
+
+    private static String row(String username, String email) {
+        return "{\"username\": \"" + username + "\", \"email\": \"" + email + "\", \"password\": \"secret123\"}";
+    }
+
+    private static String reason(BulkUserResponse response, long line) {
+        return response.getResults().stream()
+                .filter(result -> result.getLine() == line)
+                .map(BulkUserResultResponse::getReason)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static final class PlainEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
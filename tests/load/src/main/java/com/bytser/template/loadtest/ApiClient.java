@@ -0,0 +1,117 @@
+package com.bytser.template.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The few API calls of the workload over one shared HttpClient.
+// Bodies are built by hand: every value is generated by the harness and needs no escaping.
+public final class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern SUBJECT = Pattern.compile("\"sub\"\\s*:\\s*\"([^\"]+)\"");
+
+    // A logged in user: the id comes from the token subject, the API has no endpoint returning it
+    public record Session(UUID userId, String username, String bearer) {
+    }
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    public ApiClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public int register(String username, String password) throws IOException, InterruptedException {
+        String body = """
+                {"username":"%s","email":"%s@loadtest.local","password":"%s"}""".formatted(username, username, password);
+        return send(post("/users", "application/json", body)).statusCode();
+    }
+
+    public Session login(String username, String password) throws IOException, InterruptedException {
+        String body = """
+                {"username":"%s","password":"%s"}""".formatted(username, password);
+        HttpResponse<String> response = send(post("/auth/login", "application/json", body));
+        expectOk(response, "login of " + username);
+
+        Matcher token = ACCESS_TOKEN.matcher(response.body());
+        if (!token.find()) {
+            throw new IOException("No access token in the login response of " + username);
+        }
+        String accessToken = token.group(1);
+
+        // Payload of the JWT, the subject is the user id
+        String payload = new String(Base64.getUrlDecoder().decode(accessToken.split("\\.")[1]), StandardCharsets.UTF_8);
+        Matcher subject = SUBJECT.matcher(payload);
+        if (!subject.find()) {
+            throw new IOException("No subject in the access token of " + username);
+        }
+        return new Session(UUID.fromString(subject.group(1)), username, "Bearer " + accessToken);
+    }
+
+    public void importObservations(Session session, String ndjson) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/observations/import"))
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/x-ndjson")
+                .header("Authorization", session.bearer())
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson))
+                .build();
+        expectOk(send(request), "import for " + session.username());
+    }
+
+    public int updateEmail(Session session, String email) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + session.userId()))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Authorization", session.bearer())
+                .PUT(HttpRequest.BodyPublishers.ofString("""
+                        {"email":"%s"}""".formatted(email)))
+                .build();
+        return send(request).statusCode();
+    }
+
+    public int stats(Session session) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/stats"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", session.bearer())
+                .GET()
+                .build();
+        return send(request).statusCode();
+    }
+
+    //
+    // Helper functions
+    //
+
+    private HttpRequest post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void expectOk(HttpResponse<String> response, String what) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(what + " failed with HTTP " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.bytser.template.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.bytser.template.loadtest.ApiClient.Session;
+import com.bytser.template.loadtest.OpenModelDriver.Result;
+
+// Load test of a running API (e.g. mvn spring-boot:run in API/, which uses the in-memory H2 database):
+// seeds users with observations, drives the register/update/stats mix at the target rate and reports the
+// latency percentiles per operation. See tests/load/README.md.
+public final class LoadTest {
+
+    static final String PASSWORD = "LoadTest-Password-1";
+
+    // Seed requests in flight at once, registration hashes with BCrypt on the API side
+    private static final int SEED_CONCURRENCY = 8;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        // Unique per run, so users from an earlier run against the same database never clash
+        String runId = "lt" + Long.toString(System.currentTimeMillis(), 36);
+        ApiClient client = new ApiClient(options.baseUrl());
+
+        System.out.println("Seeding " + options.users() + " users with " + options.observationsPerUser()
+                + " observations each on " + options.baseUrl());
+        List<Session> sessions = seed(client, options, runId);
+
+        System.out.println("Running " + options.rate() + " req/s for " + options.warmup() + " warmup + "
+                + options.duration() + " measured");
+        Map<Operation, Result> results = new OpenModelDriver(client, options, sessions, runId).run();
+
+        new Report(options, commit(), startedAt).write(results);
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static List<Session> seed(ApiClient client, LoadTestOptions options, String runId) throws Exception {
+        List<Future<Session>> futures = new ArrayList<>(options.users());
+        try (ExecutorService executor = Executors.newFixedThreadPool(SEED_CONCURRENCY)) {
+            for (int i = 0; i < options.users(); i++) {
+                String username = runId + "-u" + i;
+                // One generator per user: the data does not depend on which seed request finishes first
+                Random random = new Random(options.seed() + i);
+                futures.add(executor.submit(() -> {
+                    int status = client.register(username, PASSWORD);
+                    if (status / 100 != 2) {
+                        throw new IOException("Registration of " + username + " failed with HTTP " + status);
+                    }
+                    Session session = client.login(username, PASSWORD);
+                    if (options.observationsPerUser() > 0) {
+                        client.importObservations(session, observations(options, random));
+                    }
+                    return session;
+                }));
+            }
+        }
+
+        List<Session> sessions = new ArrayList<>(futures.size());
+        for (Future<Session> future : futures) {
+            sessions.add(future.get());
+        }
+        return sessions;
+    }
+
+    // NDJSON for POST /observations/import, a species always belongs to the same family
+    private static String observations(LoadTestOptions options, Random random) {
+        StringBuilder ndjson = new StringBuilder(options.observationsPerUser() * 120);
+        LocalDateTime dateTime = LocalDateTime.of(2020, 1, 1, 6, 0);
+
+        for (int i = 0; i < options.observationsPerUser(); i++) {
+            dateTime = dateTime.plusMinutes(1 + random.nextInt(720));
+            int species = random.nextInt(options.species());
+            ndjson.append("{\"speciesCode\":\"SP").append(species)
+                    .append("\",\"familyCode\":\"FAM").append(species % options.families())
+                    .append("\",\"location\":\"").append(50 + random.nextInt(2000) / 1000d)
+                    .append(',').append(3 + random.nextInt(3000) / 1000d)
+                    .append("\",\"dateTime\":\"").append(dateTime)
+                    .append("\",\"notes\":\"load test\"}\n");
+        }
+        return ndjson.toString();
+    }
+
+    // Short hash of the checked out commit, marked dirty with local changes, "unknown" outside a git checkout
+    private static String commit() {
+        String head = git("rev-parse", "--short", "HEAD");
+        if (head == null) {
+            return "unknown";
+        }
+        String status = git("status", "--porcelain", "--untracked-files=no");
+        return status == null || status.isEmpty() ? head : head + "-dirty";
+    }
+
+    private static String git(String... args) {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (InputStream output = process.getInputStream()) {
+                String text = new String(output.readAllBytes(), StandardCharsets.UTF_8).trim();
+                if (!process.waitFor(10, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                    return null;
+                }
+                return text;
+            }
+        } catch (IOException exception) {
+            return null;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bytser.template.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Command line options. Everything that shapes the load has a fixed default (seed included),
+// so two runs with the same arguments against two commits put the same load on the API.
+public record LoadTestOptions(
+        String baseUrl,
+        double rate,
+        Duration warmup,
+        Duration duration,
+        Map<Operation, Integer> mix,
+        int users,
+        int observationsPerUser,
+        int species,
+        int families,
+        long seed,
+        Path output
+) {
+
+    public static LoadTestOptions parse(String[] args) {
+        String baseUrl = "http://localhost:8080";
+        double rate = 100;
+        Duration warmup = Duration.ofSeconds(15);
+        Duration duration = Duration.ofSeconds(60);
+        Map<Operation, Integer> mix = parseMix("register=5,update=15,stats=80");
+        int users = 100;
+        int observationsPerUser = 1000;
+        int species = 500;
+        int families = 60;
+        long seed = 7;
+        Path output = Path.of("results");
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i] + "\n" + usage());
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--base-url" -> baseUrl = value;
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--warmup" -> warmup = parseDuration(value);
+                case "--duration" -> duration = parseDuration(value);
+                case "--mix" -> mix = parseMix(value);
+                case "--users" -> users = Integer.parseInt(value);
+                case "--observations" -> observationsPerUser = Integer.parseInt(value);
+                case "--species" -> species = Integer.parseInt(value);
+                case "--families" -> families = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--output" -> output = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i] + "\n" + usage());
+            }
+            i++;
+        }
+
+        if (baseUrl.isBlank() || rate <= 0 || users <= 0 || observationsPerUser < 0 || species <= 0 || families <= 0) {
+            throw new IllegalArgumentException("Invalid options\n" + usage());
+        }
+        return new LoadTestOptions(baseUrl.replaceAll("/+$", ""), rate, warmup, duration, mix, users,
+                observationsPerUser, species, families, seed, output);
+    }
+
+    public static String usage() {
+        return """
+                Usage: LoadTest [options]
+                  --base-url <url>        API under test (default http://localhost:8080)
+                  --rate <n>              requests per second, started on schedule whatever the latency (default 100)
+                  --warmup <duration>     load before the measurement starts, e.g. 15s (default 15s)
+                  --duration <duration>   measured load, e.g. 60s or 5m (default 60s)
+                  --mix <op=weight,...>   register, update and stats weights (default register=5,update=15,stats=80)
+                  --users <n>             users seeded before the run (default 100)
+                  --observations <n>      observations imported per seeded user (default 1000)
+                  --species <n>           distinct species codes in the seeded observations (default 500)
+                  --families <n>          distinct family codes in the seeded observations (default 60)
+                  --seed <n>              seed of every random choice (default 7)
+                  --output <dir>          report directory (default results)""";
+    }
+
+    //
+    // Helper functions
+    //
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry " + entry + ", expected op=weight");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+
+    // 90s, 5m, 1h or an ISO-8601 duration
+    private static Duration parseDuration(String value) {
+        String lower = value.trim().toLowerCase();
+        if (lower.startsWith("p")) {
+            return Duration.parse(value);
+        }
+        long amount = Long.parseLong(lower.substring(0, lower.length() - 1));
+        return switch (lower.charAt(lower.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Invalid duration " + value + ", use e.g. 30s, 5m or PT1M");
+        };
+    }
+}
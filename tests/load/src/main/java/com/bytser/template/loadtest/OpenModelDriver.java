@@ -0,0 +1,121 @@
+package com.bytser.template.loadtest;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.bytser.template.loadtest.ApiClient.Session;
+
+// Open workload model: requests start on a fixed schedule (rate per second) whatever the API's latency,
+// each on its own virtual thread, so a slow API builds up outstanding requests instead of slowing the load down.
+// Latency is measured from the scheduled start, not the actual send, which keeps coordinated omission
+// out of the percentiles. Only requests scheduled after the warmup are recorded.
+public final class OpenModelDriver {
+
+    // Per operation
+    public record Result(Operation operation, Histogram latencyNanos, long successes, long errors) {
+    }
+
+    private final ApiClient client;
+    private final LoadTestOptions options;
+    private final List<Session> sessions;
+    private final String runId;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> successes = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    public OpenModelDriver(ApiClient client, LoadTestOptions options, List<Session> sessions, String runId) {
+        this.client = client;
+        this.options = options;
+        this.sessions = sessions;
+        this.runId = runId;
+
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            successes.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public Map<Operation, Result> run() throws InterruptedException {
+        // Every choice is drawn on this thread, so a seed always gives the same request sequence
+        Random random = new Random(options.seed());
+        Operation[] weighted = weightedOperations();
+
+        long start = System.nanoTime();
+        long measureStart = start + options.warmup().toNanos();
+        long end = measureStart + options.duration().toNanos();
+        double intervalNanos = 1_000_000_000d / options.rate();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long scheduled = start + (long) (i * intervalNanos);
+                if (scheduled >= end) {
+                    break;
+                }
+                parkUntil(scheduled);
+
+                Operation operation = weighted[random.nextInt(weighted.length)];
+                Session session = sessions.get(random.nextInt(sessions.size()));
+                long sequence = i;
+                boolean measured = scheduled >= measureStart;
+                executor.execute(() -> execute(operation, session, sequence, scheduled, measured));
+            }
+        } // close() waits for the outstanding requests
+
+        Map<Operation, Result> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new Result(operation, latencies.get(operation).getIntervalHistogram(),
+                    successes.get(operation).sum(), errors.get(operation).sum()));
+        }
+        return results;
+    }
+
+    //
+    // Helper functions
+    //
+
+    private void execute(Operation operation, Session session, long sequence, long scheduled, boolean measured) {
+        int status;
+        try {
+            status = switch (operation) {
+                case REGISTER -> client.register(runId + "-r" + sequence, LoadTest.PASSWORD);
+                case UPDATE -> client.updateEmail(session, session.username() + "-" + sequence + "@loadtest.local");
+                case STATS -> client.stats(session);
+            };
+        } catch (Exception exception) {
+            status = -1;
+        }
+        long latency = System.nanoTime() - scheduled;
+
+        if (!measured) {
+            return;
+        }
+        latencies.get(operation).recordValue(latency);
+        (status / 100 == 2 ? successes : errors).get(operation).increment();
+    }
+
+    // Each operation repeated by its weight, so a uniform pick follows the mix
+    private Operation[] weightedOperations() {
+        return options.mix().entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                .toArray(Operation[]::new);
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bytser.template.loadtest;
+
+// The requests of the mixed workload, each reported in its own histogram
+public enum Operation {
+
+    // POST /users: a new user, BCrypt on the request path
+    REGISTER,
+
+    // PUT /users/{id}: a seeded user changes their email, which invalidates their cached stats
+    UPDATE,
+
+    // GET /users/stats: a seeded user polls their statistics
+    STATS
+}
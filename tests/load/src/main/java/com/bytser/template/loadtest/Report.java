@@ -0,0 +1,144 @@
+package com.bytser.template.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.bytser.template.loadtest.OpenModelDriver.Result;
+
+// Writes the outcome of a run three ways:
+//  - <run>.txt    the options and a percentile table, also printed to stdout
+//  - <run>.hgrm   the full latency distribution per operation, plottable with HdrHistogram's plotter
+//  - summary.csv  one line per operation per run, appended, so runs on different commits line up in one file
+public final class Report {
+
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final String CSV_HEADER =
+            "run,commit,rate,warmup,duration,mix,users,observations,seed,operation,requests,errors,throughput,p50_ms,p99_ms,p999_ms,max_ms";
+
+    private final LoadTestOptions options;
+    private final String commit;
+    private final String run;
+
+    public Report(LoadTestOptions options, String commit, LocalDateTime startedAt) {
+        this.options = options;
+        this.commit = commit;
+        this.run = RUN_ID.format(startedAt) + "-" + commit;
+    }
+
+    public void write(Map<Operation, Result> results) throws IOException {
+        Files.createDirectories(options.output());
+
+        Path text = options.output().resolve(run + ".txt");
+        try (PrintStream file = new PrintStream(Files.newOutputStream(text), true, StandardCharsets.UTF_8)) {
+            printSummary(results, System.out);
+            printSummary(results, file);
+        }
+
+        Path distribution = options.output().resolve(run + ".hgrm");
+        try (PrintStream file = new PrintStream(Files.newOutputStream(distribution), true, StandardCharsets.UTF_8)) {
+            for (Result result : results.values()) {
+                if (result.latencyNanos().getTotalCount() == 0) {
+                    continue;
+                }
+                file.println("# " + result.operation() + " (ms)");
+                result.latencyNanos().outputPercentileDistribution(file, NANOS_PER_MILLI);
+                file.println();
+            }
+        }
+
+        Path summary = options.output().resolve("summary.csv");
+        StringBuilder lines = new StringBuilder();
+        if (Files.notExists(summary)) {
+            lines.append(CSV_HEADER).append('\n');
+        }
+        for (Result result : results.values()) {
+            lines.append(String.join(",",
+                    run,
+                    commit,
+                    format(options.rate()),
+                    options.warmup().toString(),
+                    options.duration().toString(),
+                    '"' + mix() + '"',
+                    Integer.toString(options.users()),
+                    Integer.toString(options.observationsPerUser()),
+                    Long.toString(options.seed()),
+                    result.operation().name().toLowerCase(),
+                    Long.toString(requests(result)),
+                    Long.toString(result.errors()),
+                    format(throughput(result)),
+                    millis(result, 50),
+                    millis(result, 99),
+                    millis(result, 99.9),
+                    format(result.latencyNanos().getMaxValue() / NANOS_PER_MILLI)
+            )).append('\n');
+        }
+        Files.writeString(summary, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        System.out.println("Report written to " + text.toAbsolutePath() + ", " + distribution.getFileName()
+                + " and " + summary.getFileName());
+    }
+
+    //
+    // Helper functions
+    //
+
+    private void printSummary(Map<Operation, Result> results, PrintStream out) {
+        out.println("Run        " + run);
+        out.println("Commit     " + commit);
+        out.println("Target     " + options.baseUrl());
+        out.println("JVM        " + Runtime.version() + ", " + Runtime.getRuntime().availableProcessors() + " cpus");
+        out.println("Load       " + format(options.rate()) + " req/s, open model, warmup " + options.warmup()
+                + ", measured " + options.duration());
+        out.println("Mix        " + mix());
+        out.println("Seed data  " + options.users() + " users x " + options.observationsPerUser() + " observations, "
+                + options.species() + " species in " + options.families() + " families, seed " + options.seed());
+        out.println();
+        out.printf(Locale.ROOT, "%-10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Result result : results.values()) {
+            out.printf(Locale.ROOT, "%-10s %10d %8d %10s %10s %10s %10s %10s%n",
+                    result.operation().name().toLowerCase(),
+                    requests(result),
+                    result.errors(),
+                    format(throughput(result)),
+                    millis(result, 50),
+                    millis(result, 99),
+                    millis(result, 99.9),
+                    format(result.latencyNanos().getMaxValue() / NANOS_PER_MILLI));
+        }
+        out.println();
+    }
+
+    private String mix() {
+        return options.mix().entrySet().stream()
+                .map(entry -> entry.getKey().name().toLowerCase() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+
+    private static long requests(Result result) {
+        return result.successes() + result.errors();
+    }
+
+    // Completed requests per second of the measured window
+    private double throughput(Result result) {
+        return requests(result) / (options.duration().toMillis() / 1000d);
+    }
+
+    private static String millis(Result result, double percentile) {
+        return format(result.latencyNanos().getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}